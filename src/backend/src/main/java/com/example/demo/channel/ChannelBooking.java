@@ -0,0 +1,87 @@
+package com.example.demo.channel;
+
+import com.example.demo.service.AvailabilityIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Pattern;
+
+// One event from a channel manager: a reservation confirmed for a room and dates, or cancelled. Everything
+// that can be checked without the database is checked here, before the event is acknowledged.
+public record ChannelBooking(String channel, String reservationId, String event, String roomNumber,
+                             LocalDate checkIn, LocalDate checkOut, String guestName, String guestEmail, String guestPhone) {
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String CANCELLED = "CANCELLED";
+    private static final Pattern CHANNEL = Pattern.compile("[A-Za-z0-9._-]{1,40}");
+    private static final Pattern RESERVATION_ID = Pattern.compile("[A-Za-z0-9._:-]{1,100}");
+    private static final int MAX_NIGHTS = 366;
+
+    public static ChannelBooking parse(JsonNode node) {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Each booking must be a JSON object");
+        }
+        String channel = text(node, "channel", true);
+        String reservationId = text(node, "reservationId", true);
+        String event = text(node, "event", true);
+        String roomNumber = text(node, "roomNumber", true);
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel: " + channel);
+        }
+        if (!RESERVATION_ID.matcher(reservationId).matches()) {
+            throw new IllegalArgumentException("Invalid reservationId: " + reservationId);
+        }
+        if (roomNumber.length() > 32) {
+            throw new IllegalArgumentException("Invalid roomNumber: " + roomNumber);
+        }
+        if (event.equals(CANCELLED)) {
+            return new ChannelBooking(channel, reservationId, event, roomNumber, null, null, null, null, null);
+        }
+        if (!event.equals(CONFIRMED)) {
+            throw new IllegalArgumentException("Unknown event: " + event + "; expected " + CONFIRMED + " or " + CANCELLED);
+        }
+        LocalDate checkIn = date(node, "checkIn");
+        LocalDate checkOut = date(node, "checkOut");
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out must be after check-in");
+        }
+        if (checkIn.isBefore(AvailabilityIndex.ORIGIN)) {
+            throw new IllegalArgumentException("Dates before " + AvailabilityIndex.ORIGIN + " are not supported");
+        }
+        if (ChronoUnit.DAYS.between(checkIn, checkOut) > MAX_NIGHTS) {
+            throw new IllegalArgumentException("A stay cannot exceed " + MAX_NIGHTS + " nights");
+        }
+        JsonNode guest = node.path("guest");
+        String guestName = text(guest, "name", true);
+        return new ChannelBooking(channel, reservationId, event, roomNumber, checkIn, checkOut, guestName,
+            text(guest, "email", false), text(guest, "phone", false));
+    }
+
+    // Reservations are unique per channel and the channel's own reservation id
+    public String ref() {
+        return channel + ":" + reservationId;
+    }
+
+    private static String text(JsonNode node, String field, boolean required) {
+        JsonNode value = node.path(field);
+        if (value.isTextual() && !value.asText().isBlank() && value.asText().length() <= 255) {
+            return value.asText().trim();
+        }
+        if (value.isMissingNode() || value.isNull()) {
+            if (required) {
+                throw new IllegalArgumentException(field + " is required");
+            }
+            return null;
+        }
+        throw new IllegalArgumentException("Invalid " + field);
+    }
+
+    private static LocalDate date(JsonNode node, String field) {
+        try {
+            return LocalDate.parse(text(node, field, true));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(field + " must be an ISO date (yyyy-MM-dd)");
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.demo.channel;
+
+import com.example.demo.exception.BookingConflictException;
+import com.example.demo.model.Guest;
+import com.example.demo.model.InboundBooking;
+import com.example.demo.model.Reservation;
+import com.example.demo.model.Room;
+import com.example.demo.repository.GuestRepository;
+import com.example.demo.repository.InboundBookingRepository;
+import com.example.demo.repository.ReservationRepository;
+import com.example.demo.repository.ReservationRepository.BookingSpan;
+import com.example.demo.repository.RoomRepository;
+import com.example.demo.service.AvailabilityIndex;
+import com.example.demo.service.GuestSearchIndex;
+import com.example.demo.service.ReservationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Applies staged channel bookings. Each worker thread owns a share of the partitions and drains them in
+// batches: one transaction per batch looks up the batch's reservations and rooms' stays with a query each,
+// applies the events in arrival order and writes the outcomes. Redeliveries are recognised by the
+// reservation's external ref and recorded as duplicates.
+@Service
+public class ChannelBookingPipeline {
+    private static final Logger log = LoggerFactory.getLogger(ChannelBookingPipeline.class);
+
+    private final InboundBookingRepository inboundBookingRepository;
+    private final ReservationRepository reservationRepository;
+    private final RoomRepository roomRepository;
+    private final GuestRepository guestRepository;
+    private final ReservationService reservationService;
+    private final AvailabilityIndex availabilityIndex;
+    private final GuestSearchIndex guestSearchIndex;
+    private final ChannelInbox channelInbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int workers;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final Duration retention;
+    private final Map<String, AtomicLong> outcomes = new LinkedHashMap<>();
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    // A stay as the availability index takes it when a room is resynced
+    private record Stay(Long roomId, LocalDate checkIn, LocalDate checkOut) implements BookingSpan {
+        @Override
+        public Long getRoomId() { return roomId; }
+        @Override
+        public LocalDate getCheckIn() { return checkIn; }
+        @Override
+        public LocalDate getCheckOut() { return checkOut; }
+
+        boolean overlaps(LocalDate from, LocalDate to) {
+            return checkIn.isBefore(to) && checkOut.isAfter(from);
+        }
+    }
+
+    private record Outcome(String status, String error) {
+    }
+
+    public ChannelBookingPipeline(InboundBookingRepository inboundBookingRepository, ReservationRepository reservationRepository,
+                                  RoomRepository roomRepository, GuestRepository guestRepository,
+                                  ReservationService reservationService, AvailabilityIndex availabilityIndex,
+                                  GuestSearchIndex guestSearchIndex, ChannelInbox channelInbox,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${channel.workers:4}") int workers,
+                                  @Value("${channel.batch-size:100}") int batchSize,
+                                  @Value("${channel.poll-interval-ms:100}") long pollIntervalMillis,
+                                  @Value("${channel.retention-days:7}") long retentionDays) {
+        this.inboundBookingRepository = inboundBookingRepository;
+        this.reservationRepository = reservationRepository;
+        this.roomRepository = roomRepository;
+        this.guestRepository = guestRepository;
+        this.reservationService = reservationService;
+        this.availabilityIndex = availabilityIndex;
+        this.guestSearchIndex = guestSearchIndex;
+        this.channelInbox = channelInbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Math.min(workers, channelInbox.getPartitions());
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.retention = Duration.ofDays(retentionDays);
+        for (String status : List.of(InboundBooking.APPLIED, InboundBooking.DUPLICATE, InboundBooking.REJECTED, InboundBooking.FAILED)) {
+            outcomes.put(status, new AtomicLong());
+        }
+    }
+
+    // Batches resync the calendars they touch from the database, so they may run alongside the index rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running || workers <= 0) {
+            return;
+        }
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "channel-worker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int worker = 0; worker < workers; worker++) {
+            int first = worker;
+            executor.execute(() -> runWorker(first));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // Worker n drains partitions n, n + workers, ...; with one worker per partition on each node, the
+    // events of a room are never applied by two threads of the same node at once
+    private void runWorker(int first) {
+        while (running) {
+            int applied = 0;
+            try {
+                for (int partition = first; partition < channelInbox.getPartitions(); partition += workers) {
+                    applied += drain(partition);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Channel worker {} failed: {}", first, e.getMessage());
+            }
+            if (applied == 0) {
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Applies up to a batch of the partition's pending events; returns how many were processed
+    public int drain(int partition) {
+        List<InboundBooking> batch = inboundBookingRepository.findPending(partition, Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            return apply(batch);
+        } catch (BookingConflictException e) {
+            // Another node kept changing the same rooms; the events stay pending and keep their order
+            return 0;
+        } catch (RuntimeException e) {
+            log.warn("Channel batch in partition {} failed, applying it one event at a time: {}", partition, e.getMessage());
+        }
+        // One broken event must not hold up the partition, so only the event that fails on its own is failed
+        int processed = 0;
+        for (InboundBooking row : batch) {
+            try {
+                processed += apply(List.of(row));
+            } catch (BookingConflictException e) {
+                return processed;
+            } catch (RuntimeException e) {
+                log.warn("Channel booking {} ({}) failed: {}", row.getId(), row.getExternalRef(), e.getMessage());
+                Integer failed = transactionTemplate.execute(status -> inboundBookingRepository.markProcessed(
+                    List.of(row.getId()), InboundBooking.FAILED, truncate(String.valueOf(e.getMessage())), Instant.now()));
+                if (failed != null && failed > 0) {
+                    outcomes.get(InboundBooking.FAILED).incrementAndGet();
+                    channelInbox.release(1);
+                    processed++;
+                }
+            }
+        }
+        return processed;
+    }
+
+    private int apply(List<InboundBooking> batch) {
+        Map<Long, ChannelBooking> bookings = new HashMap<>();
+        for (InboundBooking row : batch) {
+            bookings.put(row.getId(), parse(row));
+        }
+        Set<String> roomNumbers = bookings.values().stream().map(ChannelBooking::roomNumber).collect(Collectors.toSet());
+        Map<String, Long> roomIds = roomRepository.findAllByNumberIn(roomNumbers).stream()
+            .collect(Collectors.toMap(Room::getNumber, Room::getId));
+        Map<String, Integer> counts = reservationService.withRoomsChange(roomIds.values(), rooms -> {
+            // Rows another node applied in the meantime are no longer pending and drop out here
+            List<InboundBooking> rows = inboundBookingRepository.lockPending(bookings.keySet());
+            Map<String, Reservation> reservations = reservationRepository.findAllByExternalRefIn(
+                    rows.stream().map(InboundBooking::getExternalRef).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Reservation::getExternalRef, reservation -> reservation));
+            Map<Long, List<Stay>> stays = new HashMap<>();
+            for (Long roomId : rooms.keySet()) {
+                stays.put(roomId, new ArrayList<>());
+            }
+            if (!rooms.isEmpty()) {
+                for (BookingSpan span : reservationRepository.findConfirmedSpansForRooms(rooms.keySet(), LocalDate.now().minusDays(1))) {
+                    stays.get(span.getRoomId()).add(new Stay(span.getRoomId(), span.getCheckIn(), span.getCheckOut()));
+                }
+            }
+            // The versions the rooms will have once the force increment is written at commit
+            Map<Long, Long> nextVersions = new HashMap<>();
+            rooms.values().forEach(room -> nextVersions.put(room.getId(), room.getVersion() + 1));
+            List<Guest> newGuests = new ArrayList<>();
+            Map<Outcome, List<Long>> results = new LinkedHashMap<>();
+            for (InboundBooking row : rows) {
+                ChannelBooking booking = bookings.get(row.getId());
+                Long roomId = roomIds.get(booking.roomNumber());
+                Outcome outcome = booking.event().equals(ChannelBooking.CANCELLED)
+                    ? cancel(booking, roomId, reservations, stays)
+                    : confirm(booking, roomId == null ? null : rooms.get(roomId), reservations, stays, newGuests);
+                results.computeIfAbsent(outcome, o -> new ArrayList<>()).add(row.getId());
+            }
+            Instant now = Instant.now();
+            Map<String, Integer> applied = new HashMap<>();
+            results.forEach((outcome, ids) -> {
+                inboundBookingRepository.markProcessed(ids, outcome.status(), outcome.error(), now);
+                applied.merge(outcome.status(), ids.size(), Integer::sum);
+            });
+            // Every locked room's version is bumped at commit, so each calendar is rebuilt from the stays
+            // this transaction ended with
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (Room room : rooms.values()) {
+                        availabilityIndex.addRoom(room.getId(), room.getType());
+                        availabilityIndex.resync(room.getId(), List.copyOf(stays.get(room.getId())), nextVersions.get(room.getId()));
+                    }
+                    newGuests.forEach(guestSearchIndex::put);
+                }
+            });
+            return applied;
+        });
+        int processed = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            outcomes.get(entry.getKey()).addAndGet(entry.getValue());
+            processed += entry.getValue();
+        }
+        channelInbox.release(processed);
+        return processed;
+    }
+
+    private Outcome confirm(ChannelBooking booking, Room room, Map<String, Reservation> reservations,
+                            Map<Long, List<Stay>> stays, List<Guest> newGuests) {
+        if (reservations.containsKey(booking.ref())) {
+            return new Outcome(InboundBooking.DUPLICATE, null);
+        }
+        if (room == null) {
+            return new Outcome(InboundBooking.REJECTED, "Unknown room: " + booking.roomNumber());
+        }
+        List<Stay> roomStays = stays.get(room.getId());
+        for (Stay stay : roomStays) {
+            if (stay.overlaps(booking.checkIn(), booking.checkOut())) {
+                return new Outcome(InboundBooking.REJECTED, "Room " + room.getNumber() + " is not available for the selected dates");
+            }
+        }
+        Guest guest = new Guest();
+        guest.setFullName(booking.guestName());
+        guest.setEmail(booking.guestEmail());
+        guest.setPhone(booking.guestPhone());
+        guestRepository.save(guest);
+        newGuests.add(guest);
+        Reservation reservation = new Reservation();
+        reservation.setRoom(room);
+        reservation.setGuest(guest);
+        reservation.setCheckIn(booking.checkIn());
+        reservation.setCheckOut(booking.checkOut());
+        reservation.setCreatedAt(Instant.now());
+        reservation.setExternalRef(booking.ref());
+        reservations.put(booking.ref(), reservationRepository.save(reservation));
+        roomStays.add(new Stay(room.getId(), booking.checkIn(), booking.checkOut()));
+        return new Outcome(InboundBooking.APPLIED, null);
+    }
+
+    private Outcome cancel(ChannelBooking booking, Long roomId, Map<String, Reservation> reservations, Map<Long, List<Stay>> stays) {
+        Reservation reservation = reservations.get(booking.ref());
+        if (reservation == null) {
+            return new Outcome(InboundBooking.REJECTED, "Unknown reservation: " + booking.ref());
+        }
+        if (Reservation.CANCELLED.equals(reservation.getStatus())) {
+            return new Outcome(InboundBooking.DUPLICATE, null);
+        }
+        // Only rooms locked for this batch may change; a cancellation naming another room was partitioned
+        // by that room and could otherwise overtake the booking it cancels
+        if (!reservation.getRoom().getId().equals(roomId)) {
+            return new Outcome(InboundBooking.REJECTED, "Reservation " + booking.ref() + " is for room "
+                + reservation.getRoom().getNumber() + ", not " + booking.roomNumber());
+        }
+        reservation.setStatus(Reservation.CANCELLED);
+        reservationRepository.save(reservation);
+        stays.get(roomId).remove(new Stay(roomId, reservation.getCheckIn(), reservation.getCheckOut()));
+        return new Outcome(InboundBooking.APPLIED, null);
+    }
+
+    private ChannelBooking parse(InboundBooking row) {
+        try {
+            return ChannelBooking.parse(objectMapper.readTree(row.getPayload()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable payload: " + e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Instant oldestPending = inboundBookingRepository.findOldestPendingReceivedAt();
+        stats.put("pending", inboundBookingRepository.countByStatus(InboundBooking.PENDING));
+        stats.put("capacity", channelInbox.getCapacity());
+        stats.put("oldestPendingMs", oldestPending == null ? 0 : Duration.between(oldestPending, Instant.now()).toMillis());
+        stats.put("workers", running ? workers : 0);
+        stats.put("partitions", channelInbox.getPartitions());
+        stats.put("refusedByThisNode", channelInbox.getRefused());
+        outcomes.forEach((status, count) -> stats.put(status.toLowerCase() + "ByThisNode", count.get()));
+        return stats;
+    }
+
+    @Scheduled(cron = "${channel.prune-cron:0 47 * * * *}")
+    public void prune() {
+        int deleted = inboundBookingRepository.deleteProcessedBefore(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Pruned {} processed channel bookings", deleted);
+        }
+    }
+
+    private static String truncate(String reason) {
+        return reason.length() <= 512 ? reason : reason.substring(0, 512);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.channel;
+
+import com.example.demo.model.InboundBooking;
+import com.example.demo.repository.InboundBookingRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The bounded staging queue in front of ChannelBookingPipeline. A delivery is acknowledged once its rows
+// are committed; when the queue is full it is refused instead, and the channel manager retries later.
+@Service
+public class ChannelInbox {
+    private final InboundBookingRepository inboundBookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int partitions;
+    private final long capacity;
+    // Staged and not yet applied, across all nodes as of the last refresh plus what this node did since
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+
+    public ChannelInbox(InboundBookingRepository inboundBookingRepository, PlatformTransactionManager transactionManager,
+                        @Value("${channel.partitions:16}") int partitions,
+                        @Value("${channel.queue.capacity:20000}") long capacity) {
+        this.inboundBookingRepository = inboundBookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitions = partitions;
+        this.capacity = capacity;
+    }
+
+    // Stages all bookings of one delivery or none of them; false means the queue has no room for them.
+    // Invalid bookings fail the whole delivery with an IllegalArgumentException before anything is staged.
+    public boolean stage(List<JsonNode> nodes) {
+        List<InboundBooking> rows = new ArrayList<>(nodes.size());
+        Instant now = Instant.now();
+        for (int i = 0; i < nodes.size(); i++) {
+            ChannelBooking booking;
+            try {
+                booking = ChannelBooking.parse(nodes.get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(nodes.size() == 1 ? e.getMessage() : "Booking " + i + ": " + e.getMessage());
+            }
+            InboundBooking row = new InboundBooking();
+            row.setPartitionNo(partition(booking.roomNumber()));
+            row.setExternalRef(booking.ref());
+            row.setPayload(nodes.get(i).toString());
+            row.setStatus(InboundBooking.PENDING);
+            row.setReceivedAt(now);
+            rows.add(row);
+        }
+        if (pending.addAndGet(rows.size()) > capacity) {
+            release(rows.size());
+            refused.incrementAndGet();
+            return false;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> inboundBookingRepository.saveAll(rows));
+        } catch (RuntimeException e) {
+            release(rows.size());
+            throw e;
+        }
+        return true;
+    }
+
+    // Every event for a room lands in the same partition, whichever channel it came from
+    public int partition(String roomNumber) {
+        return Math.floorMod(roomNumber.hashCode(), partitions);
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getPending() {
+        return pending.get();
+    }
+
+    public long getRefused() {
+        return refused.get();
+    }
+
+    // Gives back room in the queue. A refresh may already have left out the rows, so the count stops at zero
+    void release(int count) {
+        pending.accumulateAndGet(-count, (current, delta) -> Math.max(0, current + delta));
+    }
+
+    // Other nodes stage and apply too, so the local count is corrected from the table now and then
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${channel.depth-refresh-ms:1000}", initialDelayString = "${channel.depth-refresh-ms:1000}")
+    public void refreshDepth() {
+        pending.set(inboundBookingRepository.countByStatus(InboundBooking.PENDING));
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.demo.config;
 
+import com.example.demo.model.RateRule;
+import com.example.demo.model.Room;
 import com.example.demo.model.User;
 import com.example.demo.model.UserRole;
+import com.example.demo.repository.RateRuleRepository;
+import com.example.demo.repository.RoomRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.security.TenantContext;
 import com.example.demo.service.UserService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -14,7 +19,8 @@ import java.util.Set;
 @Configuration
 public class DatabaseSeeder {
     @Bean
-    public CommandLineRunner seedDatabase(UserRepository userRepository, UserService userService, UserRoleRepository userRoleRepository) {
+    public CommandLineRunner seedDatabase(UserRepository userRepository, UserService userService, UserRoleRepository userRoleRepository,
+                                          RoomRepository roomRepository, RateRuleRepository rateRuleRepository) {
         return args -> {
             // Seed roles
             String[] roles = {"ADMIN", "USER", "SUPERVISOR", "MANAGER", "GUEST"};
@@ -29,7 +35,7 @@ public class DatabaseSeeder {
             UserRole adminRole = userRoleRepository.findByName("ADMIN").get();
             UserRole userRole = userRoleRepository.findByName("USER").get();
             // Admin user
-            User admin = userRepository.findByUsername("admin").orElse(null);
+            User admin = userRepository.findByTenantIdAndUsername(TenantContext.DEFAULT, "admin").orElse(null);
             if (admin == null) {
                 admin = new User();
                 admin.setUsername("admin");
@@ -40,7 +46,7 @@ public class DatabaseSeeder {
             admin.setPassword("admin123"); // Always reset to plain text
             userService.registerUser(admin);
             // Regular user
-            User user = userRepository.findByUsername("user").orElse(null);
+            User user = userRepository.findByTenantIdAndUsername(TenantContext.DEFAULT, "user").orElse(null);
             if (user == null) {
                 user = new User();
                 user.setUsername("user");
@@ -50,6 +56,31 @@ public class DatabaseSeeder {
             user.setRoles(Set.of(userRole)); // User has only USER role
             user.setPassword("user123"); // Always reset to plain text
             userService.registerUser(user);
+            // Rooms: floors 1-2 standard, floor 3 deluxe, floor 4 suites
+            if (roomRepository.count() == 0) {
+                for (int floor = 1; floor <= 4; floor++) {
+                    String type = floor <= 2 ? "STANDARD" : floor == 3 ? "DELUXE" : "SUITE";
+                    int perFloor = floor == 4 ? 4 : 10;
+                    for (int i = 1; i <= perFloor; i++) {
+                        Room room = new Room();
+                        room.setNumber(String.format("%d%02d", floor, i));
+                        room.setType(type);
+                        roomRepository.save(room);
+                    }
+                }
+            }
+            // Base nightly rates for the seeded room types
+            if (rateRuleRepository.count() == 0) {
+                String[] types = {"STANDARD", "DELUXE", "SUITE"};
+                long[] amountCents = {120_00, 180_00, 320_00};
+                for (int i = 0; i < types.length; i++) {
+                    RateRule rule = new RateRule();
+                    rule.setKind(RateRule.BASE);
+                    rule.setRoomType(types[i]);
+                    rule.setAmountCents(amountCents[i]);
+                    rateRuleRepository.save(rule);
+                }
+            }
         };
     }
 } 
\ No newline at end of file
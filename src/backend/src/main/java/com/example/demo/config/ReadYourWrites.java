@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps a caller's reads on the primary right after they wrote, since a replica may not have the write yet.
+// A commit pins the rest of its request and, for the writing user, their requests for the next pin-ms.
+@Component
+public class ReadYourWrites {
+    private static final String USER = ReadYourWrites.class.getName() + ".user";
+    private static final String PINNED = ReadYourWrites.class.getName() + ".pinned";
+
+    private final Map<UUID, Long> pinnedUntil = new ConcurrentHashMap<>();
+    private final long pinMillis;
+
+    // Long enough for a healthy replica to catch up: replicas further behind than max-lag-ms are not used
+    public ReadYourWrites(@Value("${datasource.replica.pin-ms:3000}") long pinMillis) {
+        this.pinMillis = pinMillis;
+    }
+
+    // Has to run before the first read of the request, which is the JWT filter's user lookup
+    public void bindUser(UUID userId) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(USER, userId, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public void markWritten() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        attributes.setAttribute(PINNED, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        if (attributes.getAttribute(USER, RequestAttributes.SCOPE_REQUEST) instanceof UUID userId) {
+            pinnedUntil.put(userId, System.currentTimeMillis() + pinMillis);
+        }
+    }
+
+    public boolean isPinnedToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        if (attributes.getAttribute(PINNED, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        if (attributes.getAttribute(USER, RequestAttributes.SCOPE_REQUEST) instanceof UUID userId) {
+            Long until = pinnedUntil.get(userId);
+            return until != null && until > System.currentTimeMillis();
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void prune() {
+        long now = System.currentTimeMillis();
+        pinnedUntil.values().removeIf(until -> until <= now);
+    }
+}
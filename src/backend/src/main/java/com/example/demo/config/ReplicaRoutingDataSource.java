@@ -0,0 +1,194 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends read-only transactions to a healthy replica, round robin, and everything else to the primary. It is
+// wrapped in a LazyConnectionDataSourceProxy, so the target is chosen at the first statement, once the
+// transaction's read-only flag is known; Spring Data repository reads are read-only transactions already.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String PRIMARY = "primary";
+    // Bumped on the primary by every check, so a replica's copy tells how far it has replayed even when the
+    // only recent writes were to tables the change log does not cover, such as reservations or rates
+    private static final String BEAT_UPDATE = "update replica_heartbeat set beat = beat + 1 where id = 1";
+    private static final String BEAT_INSERT = "insert into replica_heartbeat (id, beat) values (1, 1)";
+    private static final String BEAT_QUERY = "select beat from replica_heartbeat where id = 1";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    // Heartbeats written to the primary by recent checks as {beat, time}, oldest first; guarded by itself
+    private final Deque<long[]> heartbeats = new ArrayDeque<>();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaDataSources,
+                                    ReadYourWrites readYourWrites, long maxLagMillis) {
+        this.primary = primary;
+        this.readYourWrites = readYourWrites;
+        this.maxLagMillis = maxLagMillis;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        List<Replica> replicas = new ArrayList<>(replicaDataSources.size());
+        for (HikariDataSource dataSource : replicaDataSources) {
+            Replica replica = new Replica(dataSource);
+            replicas.add(replica);
+            targets.put(replica.name, dataSource);
+        }
+        this.replicas = List.copyOf(replicas);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        // Replicas start out unhealthy, so check them before the first request instead of after one interval
+        checkReplicas();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWrites.markWritten();
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (readYourWrites.isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.check-interval-ms:1000}")
+    public void checkReplicas() {
+        long now = System.currentTimeMillis();
+        long beat;
+        try {
+            beat = writeHeartbeat(primary);
+        } catch (RuntimeException e) {
+            // Nothing to measure lag against; reads keep their replicas until the primary answers again
+            log.warn("Could not write the replica heartbeat on the primary: {}", e.getMessage());
+            return;
+        }
+        synchronized (heartbeats) {
+            heartbeats.addLast(new long[] { beat, now });
+            while (heartbeats.size() > 1 && heartbeats.peekFirst()[1] < now - 2 * maxLagMillis) {
+                heartbeats.removeFirst();
+            }
+        }
+        for (Replica replica : replicas) {
+            try {
+                long replicaBeat = queryBeat(replica.dataSource);
+                synchronized (heartbeats) {
+                    // The replica is at least as fresh as the newest heartbeat it has replayed
+                    for (long[] sample : heartbeats) {
+                        if (sample[0] <= replicaBeat) {
+                            replica.caughtUpAt = Math.max(replica.caughtUpAt, sample[1]);
+                        }
+                    }
+                }
+                replica.lagMillis = now - replica.caughtUpAt;
+                replica.error = null;
+            } catch (RuntimeException e) {
+                replica.lagMillis = -1;
+                replica.error = e.getMessage();
+            }
+            boolean healthy = replica.error == null && replica.lagMillis <= maxLagMillis;
+            if (healthy != replica.healthy) {
+                log.info("Replica {} is now {} (lag {} ms{})", replica.name, healthy ? "in use" : "skipped",
+                    replica.lagMillis, replica.error == null ? "" : ", " + replica.error);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", replica.name);
+            entry.put("url", replica.dataSource.getJdbcUrl());
+            entry.put("healthy", replica.healthy);
+            entry.put("lagMs", replica.lagMillis);
+            entry.put("error", replica.error);
+            stats.add(entry);
+        }
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("maxLagMs", maxLagMillis);
+        resp.put("replicas", stats);
+        return resp;
+    }
+
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        primary.close();
+    }
+
+    // Other nodes may bump the row between the update and the read; that only makes the sample newer
+    private static long writeHeartbeat(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (jdbcTemplate.update(BEAT_UPDATE) == 0) {
+            try {
+                jdbcTemplate.update(BEAT_INSERT);
+            } catch (DuplicateKeyException e) {
+                // Another node created the row first
+                jdbcTemplate.update(BEAT_UPDATE);
+            }
+        }
+        return queryBeat(dataSource);
+    }
+
+    // A replica without the row yet reads as 0, behind every heartbeat
+    private static long queryBeat(DataSource dataSource) {
+        List<Long> beats = new JdbcTemplate(dataSource).queryForList(BEAT_QUERY, Long.class);
+        return beats.isEmpty() ? 0 : beats.get(0);
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long caughtUpAt;
+        private volatile long lagMillis = -1;
+        private volatile String error;
+
+        private Replica(HikariDataSource dataSource) {
+            this.name = dataSource.getPoolName();
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.controller;
+
+import com.example.demo.channel.ChannelInbox;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Webhook for channel managers. Deliveries are signed with the shared secret instead of carrying a JWT,
+// and are only staged here; ChannelBookingPipeline applies them afterwards.
+@RestController
+@RequestMapping("/api/v1/channel")
+public class ChannelController {
+    public static final String SIGNATURE_HEADER = "X-Channel-Signature";
+
+    private final ChannelInbox channelInbox;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final byte[] secret;
+    private final int maxBookings;
+    private final int maxBodyBytes;
+    private final long retryAfterSeconds;
+
+    public ChannelController(ChannelInbox channelInbox,
+                             @Value("${channel.webhook-secret:}") String secret,
+                             @Value("${channel.max-bookings-per-request:100}") int maxBookings,
+                             @Value("${channel.max-body-bytes:262144}") int maxBodyBytes,
+                             @Value("${channel.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.channelInbox = channelInbox;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.maxBookings = maxBookings;
+        this.maxBodyBytes = maxBodyBytes;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @PostMapping("/bookings")
+    public ResponseEntity<?> receiveBookings(HttpServletRequest request,
+                                             @RequestHeader(value = SIGNATURE_HEADER, required = false) String signature) throws IOException {
+        // The endpoint is open to anyone, so the size is checked before anything is buffered; a chunked body
+        // without a length is cut off one byte past the limit
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            return fail(HttpStatus.PAYLOAD_TOO_LARGE, "Request body cannot exceed " + maxBodyBytes + " bytes");
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            return fail(HttpStatus.PAYLOAD_TOO_LARGE, "Request body cannot exceed " + maxBodyBytes + " bytes");
+        }
+        if (!signatureMatches(body, signature)) {
+            return fail(HttpStatus.UNAUTHORIZED, "Invalid signature");
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            return fail(HttpStatus.BAD_REQUEST, "Malformed JSON");
+        }
+        List<JsonNode> bookings = new ArrayList<>();
+        if (root != null && root.isArray()) {
+            root.forEach(bookings::add);
+        } else if (root != null) {
+            bookings.add(root);
+        }
+        if (bookings.isEmpty()) {
+            return fail(HttpStatus.BAD_REQUEST, "No bookings in the request");
+        }
+        if (bookings.size() > maxBookings) {
+            return fail(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + maxBookings + " bookings per request");
+        }
+        boolean staged;
+        try {
+            staged = channelInbox.stage(bookings);
+        } catch (IllegalArgumentException e) {
+            return fail(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (!staged) {
+            Map<String, Object> errorResponse = new LinkedHashMap<>();
+            errorResponse.put("status", "fail");
+            errorResponse.put("message", "Booking queue is full, retry later");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(retryAfterSeconds))
+                .body(errorResponse);
+        }
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("accepted", bookings.size());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(resp);
+    }
+
+    // sha256=<hex HMAC-SHA256 of the raw body>; without a configured secret nothing is accepted
+    private boolean signatureMatches(byte[] body, String signature) {
+        if (secret.length == 0 || signature == null || !signature.startsWith("sha256=")) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            byte[] expected = HexFormat.of().formatHex(mac.doFinal(body)).getBytes(StandardCharsets.US_ASCII);
+            return MessageDigest.isEqual(expected, signature.substring(7).toLowerCase().getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static ResponseEntity<?> fail(HttpStatus status, String message) {
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", message);
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+}
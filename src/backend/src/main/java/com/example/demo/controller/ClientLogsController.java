@@ -0,0 +1,136 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.service.ClientLogService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/client-logs")
+public class ClientLogsController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ClientLogService clientLogService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${client-logs.max-batch-bytes:1048576}")
+    private int maxBatchBytes;
+
+    @Value("${client-logs.max-batch-entries:500}")
+    private int maxBatchEntries;
+
+    @Autowired
+    public ClientLogsController(ClientLogService clientLogService, ObjectMapper objectMapper) {
+        this.clientLogService = clientLogService;
+        this.objectMapper = objectMapper;
+    }
+
+    // One JSON object per line, or a JSON array / single object as sent by the frontend logger
+    @PostMapping(consumes = { NDJSON, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<?> ingest(HttpServletRequest request) throws IOException {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!(principal instanceof User user)) {
+            return fail(HttpStatus.UNAUTHORIZED, "Unauthorized");
+        }
+        // A chunked body without a length is cut off one byte past the limit, before anything is parsed
+        if (request.getContentLengthLong() > maxBatchBytes) {
+            return fail(HttpStatus.PAYLOAD_TOO_LARGE, "Batch cannot exceed " + maxBatchBytes + " bytes");
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBatchBytes + 1);
+        if (body.length > maxBatchBytes) {
+            return fail(HttpStatus.PAYLOAD_TOO_LARGE, "Batch cannot exceed " + maxBatchBytes + " bytes");
+        }
+        List<JsonNode> entries = new ArrayList<>();
+        int overLimit = 0;
+        if (request.getContentType().startsWith(NDJSON)) {
+            for (int start = 0, end; start < body.length; start = end + 1) {
+                end = start;
+                while (end < body.length && body[end] != '\n') {
+                    end++;
+                }
+                if (isBlank(body, start, end)) {
+                    continue;
+                }
+                if (entries.size() >= maxBatchEntries) {
+                    overLimit++;
+                    continue;
+                }
+                try {
+                    entries.add(objectMapper.readTree(body, start, end - start));
+                } catch (JsonProcessingException e) {
+                    entries.add(null);
+                }
+            }
+        } else {
+            JsonNode root;
+            try {
+                root = objectMapper.readTree(body);
+            } catch (JsonProcessingException e) {
+                return fail(HttpStatus.BAD_REQUEST, "Body must be NDJSON, a JSON array or a JSON object");
+            }
+            if (root != null && root.isArray()) {
+                for (JsonNode entry : root) {
+                    if (entries.size() < maxBatchEntries) {
+                        entries.add(entry);
+                    } else {
+                        overLimit++;
+                    }
+                }
+            } else if (root != null) {
+                entries.add(root);
+            }
+        }
+        ClientLogService.IngestResult result = clientLogService.ingest(user.getId().toString(), entries, overLimit);
+        Map<String, Object> dropped = new LinkedHashMap<>();
+        dropped.put("rateLimited", result.rateLimited());
+        dropped.put("bufferFull", result.bufferFull());
+        dropped.put("malformed", result.malformed());
+        dropped.put("overBatchLimit", result.overBatchLimit());
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("accepted", result.accepted());
+        resp.put("dropped", dropped);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(resp);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("stats", clientLogService.getStats());
+        return ResponseEntity.ok(resp);
+    }
+
+    private static boolean isBlank(byte[] body, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (body[i] != ' ' && body[i] != '\t' && body[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ResponseEntity<?> fail(HttpStatus status, String message) {
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", message);
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.controller;
+
+import com.example.demo.security.TenantContext;
+import com.example.demo.service.EventHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/events")
+public class EventsController {
+    private final EventHub eventHub;
+
+    @Autowired
+    public EventsController(EventHub eventHub) {
+        this.eventHub = eventHub;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return eventHub.subscribe(TenantContext.current());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.SnapshotExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Exports span every tenant, so only admins of the default tenant, who run the group, may see them
+@RestController
+@RequestMapping("/api/v1/exports")
+@PreAuthorize("hasRole('ADMIN') and principal.tenantId == 'default'")
+public class ExportsController {
+    private final SnapshotExportService snapshotExportService;
+
+    @Autowired
+    public ExportsController(SnapshotExportService snapshotExportService) {
+        this.snapshotExportService = snapshotExportService;
+    }
+
+    @GetMapping("")
+    public ResponseEntity<?> listExports() throws IOException {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("datasets", snapshotExportService.getDatasets());
+        resp.put("exports", snapshotExportService.listExports());
+        return ResponseEntity.ok(resp);
+    }
+
+    // The export runs in the background; the file shows up in the listing once it is complete
+    @PostMapping("/{dataset}")
+    public ResponseEntity<?> requestExport(@PathVariable String dataset) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("name", snapshotExportService.requestExport(dataset));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(resp);
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<?> download(@PathVariable String name) {
+        Optional<Path> path = snapshotExportService.resolveExport(name);
+        if (path.isEmpty()) {
+            Map<String, Object> resp = new LinkedHashMap<>();
+            resp.put("status", "fail");
+            resp.put("message", "Export not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(resp);
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(name).build().toString())
+            .body(new FileSystemResource(path.get()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.GuestDTO;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.Guest;
+import com.example.demo.service.GuestService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/guests")
+public class GuestsController {
+    private static final int MAX_RESULTS = 100;
+
+    private final GuestService guestService;
+
+    @Autowired
+    public GuestsController(GuestService guestService) {
+        this.guestService = guestService;
+    }
+
+    @GetMapping("")
+    public ResponseEntity<?> searchGuests(@RequestParam(required = false) String q,
+                                          @RequestParam(defaultValue = "20") int limit) {
+        if (q == null || q.isBlank()) {
+            Map<String, Object> errorResponse = new LinkedHashMap<>();
+            errorResponse.put("status", "fail");
+            errorResponse.put("message", "Query parameter q is required");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        GuestService.SearchResult result = guestService.search(q, Math.min(Math.max(limit, 1), MAX_RESULTS));
+        List<Map<String, Object>> guests = result.guests().stream()
+            .map(GuestsController::toMap)
+            .toList();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("results", guests.size());
+        response.put("truncated", result.truncated());
+        response.put("guests", guests);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getGuest(@PathVariable Long id) {
+        Guest guest = guestService.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Guest not found: " + id));
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("guest", toMap(guest));
+        return ResponseEntity.ok(resp);
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createGuest(@Valid @RequestBody GuestDTO dto) {
+        if (dto.getFullName() == null || dto.getFullName().isBlank()) {
+            Map<String, Object> errorResponse = new LinkedHashMap<>();
+            errorResponse.put("status", "fail");
+            errorResponse.put("message", "Full name is required");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        Guest guest = new Guest();
+        apply(dto, guest);
+        Guest saved = guestService.create(guest);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("guest", toMap(saved));
+        return ResponseEntity.status(HttpStatus.CREATED).body(resp);
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> updateGuest(@PathVariable Long id, @Valid @RequestBody GuestDTO dto) {
+        Guest guest = guestService.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Guest not found: " + id));
+        apply(dto, guest);
+        Guest saved = guestService.update(guest);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("guest", toMap(saved));
+        return ResponseEntity.ok(resp);
+    }
+
+    private static void apply(GuestDTO dto, Guest guest) {
+        if (dto.getFullName() != null) guest.setFullName(dto.getFullName());
+        if (dto.getEmail() != null) guest.setEmail(dto.getEmail());
+        if (dto.getPhone() != null) guest.setPhone(dto.getPhone());
+        if (dto.getNationality() != null) guest.setNationality(dto.getNationality());
+        if (dto.getNotes() != null) guest.setNotes(dto.getNotes());
+    }
+
+    static Map<String, Object> toMap(Guest guest) {
+        Map<String, Object> guestMap = new LinkedHashMap<>();
+        guestMap.put("id", guest.getId());
+        guestMap.put("fullName", guest.getFullName());
+        guestMap.put("email", guest.getEmail());
+        guestMap.put("phone", guest.getPhone());
+        guestMap.put("nationality", guest.getNationality());
+        guestMap.put("notes", guest.getNotes());
+        return guestMap;
+    }
+}
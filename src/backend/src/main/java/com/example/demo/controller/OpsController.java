@@ -0,0 +1,82 @@
+package com.example.demo.controller;
+
+import com.example.demo.channel.ChannelBookingPipeline;
+import com.example.demo.config.ReplicaRoutingDataSource;
+import com.example.demo.notification.NotificationOutbox;
+import com.example.demo.security.AdaptiveConcurrencyLimiter;
+import com.example.demo.service.ChangeLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/ops")
+@PreAuthorize("hasRole('ADMIN')")
+public class OpsController {
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ChangeLog changeLog;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
+    private final NotificationOutbox notificationOutbox;
+    private final ChannelBookingPipeline channelBookingPipeline;
+
+    @Autowired
+    public OpsController(AdaptiveConcurrencyLimiter concurrencyLimiter, ChangeLog changeLog,
+                         ObjectProvider<ReplicaRoutingDataSource> replicaRouting, NotificationOutbox notificationOutbox,
+                         ChannelBookingPipeline channelBookingPipeline) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.changeLog = changeLog;
+        this.replicaRouting = replicaRouting;
+        this.notificationOutbox = notificationOutbox;
+        this.channelBookingPipeline = channelBookingPipeline;
+    }
+
+    @GetMapping("/concurrency")
+    public ResponseEntity<?> getConcurrency() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("concurrency", concurrencyLimiter.getStats());
+        return ResponseEntity.ok(resp);
+    }
+
+    @GetMapping("/change-log")
+    public ResponseEntity<?> getChangeLog() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("changeLog", changeLog.getStats());
+        return ResponseEntity.ok(resp);
+    }
+
+    @GetMapping("/replicas")
+    public ResponseEntity<?> getReplicas() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        // Without configured replicas every query goes to the one datasource
+        resp.put("replication", routing == null ? Map.of("replicas", List.of()) : routing.getStats());
+        return ResponseEntity.ok(resp);
+    }
+
+    @GetMapping("/notifications")
+    public ResponseEntity<?> getNotifications() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("notifications", notificationOutbox.getStats());
+        return ResponseEntity.ok(resp);
+    }
+
+    @GetMapping("/channel")
+    public ResponseEntity<?> getChannel() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("channel", channelBookingPipeline.getStats());
+        return ResponseEntity.ok(resp);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.RateRuleDTO;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.RateRule;
+import com.example.demo.service.PricingEngine;
+import com.example.demo.service.PricingService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/rates")
+public class RatesController {
+    private final PricingService pricingService;
+
+    @Autowired
+    public RatesController(PricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    @GetMapping("/quote")
+    public ResponseEntity<?> getQuote(@RequestParam String type,
+                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+                                      @RequestParam(required = false) String promo) {
+        if (!checkOut.isAfter(checkIn)) {
+            return fail(HttpStatus.BAD_REQUEST, "Check-out must be after check-in");
+        }
+        // A stay outside the published window is answered 400 through StayOutsideRatesException
+        PricingEngine.Quote quote = pricingService.quote(type, checkIn, checkOut, promo);
+        List<Map<String, Object>> nights = new ArrayList<>(quote.nightlyCents().length);
+        for (int i = 0; i < quote.nightlyCents().length; i++) {
+            Map<String, Object> night = new LinkedHashMap<>();
+            night.put("date", checkIn.plusDays(i));
+            night.put("amount", BigDecimal.valueOf(quote.nightlyCents()[i], 2));
+            nights.add(night);
+        }
+        Map<String, Object> quoteMap = new LinkedHashMap<>();
+        quoteMap.put("roomType", quote.roomType());
+        quoteMap.put("checkIn", quote.checkIn());
+        quoteMap.put("checkOut", quote.checkOut());
+        quoteMap.put("promoCode", quote.promoCode());
+        quoteMap.put("nights", nights);
+        quoteMap.put("total", BigDecimal.valueOf(quote.totalCents(), 2));
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("quote", quoteMap);
+        return ResponseEntity.ok(resp);
+    }
+
+    @GetMapping("/rules")
+    public ResponseEntity<?> getRules() {
+        List<Map<String, Object>> rules = pricingService.getAllRules().stream().map(RatesController::toMap).toList();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("results", rules.size());
+        response.put("rules", rules);
+        return ResponseEntity.ok(response);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/rules")
+    public ResponseEntity<?> createRule(@Valid @RequestBody RateRuleDTO dto) {
+        String ruleError = validateRule(dto);
+        if (ruleError != null) {
+            return fail(HttpStatus.BAD_REQUEST, ruleError);
+        }
+        RateRule rule = new RateRule();
+        apply(dto, rule);
+        RateRule saved = pricingService.createRule(rule);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("rule", toMap(saved));
+        return ResponseEntity.status(HttpStatus.CREATED).body(resp);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/rules/{id}")
+    public ResponseEntity<?> updateRule(@PathVariable Long id, @Valid @RequestBody RateRuleDTO dto) {
+        RateRule rule = pricingService.findRule(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Rate rule not found: " + id));
+        String ruleError = validateRule(dto);
+        if (ruleError != null) {
+            return fail(HttpStatus.BAD_REQUEST, ruleError);
+        }
+        apply(dto, rule);
+        RateRule saved = pricingService.updateRule(rule);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("rule", toMap(saved));
+        return ResponseEntity.ok(resp);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/rules/{id}")
+    public ResponseEntity<?> deleteRule(@PathVariable Long id) {
+        RateRule rule = pricingService.findRule(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Rate rule not found: " + id));
+        pricingService.deleteRule(rule);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("message", "Rate rule deleted");
+        return ResponseEntity.ok(resp);
+    }
+
+    private static String validateRule(RateRuleDTO dto) {
+        if (dto.getStartDate() != null && dto.getEndDate() != null && !dto.getEndDate().isAfter(dto.getStartDate())) {
+            return "End date must be after start date";
+        }
+        return switch (dto.getKind()) {
+            case RateRule.BASE -> dto.getAmount() == null ? "Amount is required for BASE rules" : null;
+            case RateRule.SEASON -> dto.getStartDate() == null || dto.getEndDate() == null
+                ? "Start and end dates are required for SEASON rules" : null;
+            case RateRule.WEEKDAY -> dto.getDaysOfWeek() == null || dto.getDaysOfWeek().isEmpty()
+                ? "Days of week are required for WEEKDAY rules" : null;
+            case RateRule.OCCUPANCY -> dto.getMinOccupancy() == null ? "Minimum occupancy is required for OCCUPANCY rules" : null;
+            case RateRule.PROMO -> dto.getPromoCode() == null || dto.getPromoCode().isBlank()
+                ? "Promo code is required for PROMO rules" : null;
+            default -> "Unknown rule kind";
+        };
+    }
+
+    private static void apply(RateRuleDTO dto, RateRule rule) {
+        rule.setKind(dto.getKind());
+        rule.setRoomType(dto.getRoomType());
+        rule.setStartDate(dto.getStartDate());
+        rule.setEndDate(dto.getEndDate());
+        int daysOfWeek = 0;
+        if (dto.getDaysOfWeek() != null) {
+            for (DayOfWeek day : dto.getDaysOfWeek()) {
+                daysOfWeek |= 1 << (day.getValue() - 1);
+            }
+        }
+        rule.setDaysOfWeek(daysOfWeek);
+        rule.setMinOccupancy(dto.getMinOccupancy());
+        rule.setPromoCode(dto.getPromoCode());
+        rule.setPercent(dto.getPercent());
+        rule.setAmountCents(dto.getAmount() == null ? null : dto.getAmount().movePointRight(2).longValue());
+    }
+
+    private static ResponseEntity<?> fail(HttpStatus status, String message) {
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", message);
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    static Map<String, Object> toMap(RateRule rule) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((rule.getDaysOfWeek() & (1 << (day.getValue() - 1))) != 0) {
+                days.add(day);
+            }
+        }
+        Map<String, Object> ruleMap = new LinkedHashMap<>();
+        ruleMap.put("id", rule.getId());
+        ruleMap.put("kind", rule.getKind());
+        ruleMap.put("roomType", rule.getRoomType());
+        ruleMap.put("startDate", rule.getStartDate());
+        ruleMap.put("endDate", rule.getEndDate());
+        ruleMap.put("daysOfWeek", days);
+        ruleMap.put("minOccupancy", rule.getMinOccupancy());
+        ruleMap.put("promoCode", rule.getPromoCode());
+        ruleMap.put("percent", rule.getPercent());
+        ruleMap.put("amount", rule.getAmountCents() == null ? null : BigDecimal.valueOf(rule.getAmountCents(), 2));
+        return ruleMap;
+    }
+}
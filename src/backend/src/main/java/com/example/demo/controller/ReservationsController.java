@@ -0,0 +1,160 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.CreateReservationDTO;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.Guest;
+import com.example.demo.model.Reservation;
+import com.example.demo.service.AvailabilityIndex;
+import com.example.demo.service.ReservationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/reservations")
+public class ReservationsController {
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final ReservationService reservationService;
+
+    @Autowired
+    public ReservationsController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    @GetMapping("/availability")
+    public ResponseEntity<?> getAvailability(@RequestParam String type,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String rangeError = validateStay(from, to);
+        if (rangeError != null) {
+            return fail(HttpStatus.BAD_REQUEST, rangeError);
+        }
+        List<Map<String, Object>> rooms = reservationService.findAvailableRooms(type, from, to).stream()
+            .map(RoomsController::toMap)
+            .toList();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("results", rooms.size());
+        response.put("rooms", rooms);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("")
+    public ResponseEntity<?> getReservations(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String rangeError = validateRange(from, to);
+        if (rangeError != null) {
+            return fail(HttpStatus.BAD_REQUEST, rangeError);
+        }
+        List<Map<String, Object>> reservations = reservationService.findOverlapping(from, to).stream()
+            .map(ReservationsController::toMap)
+            .toList();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("results", reservations.size());
+        response.put("reservations", reservations);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getReservation(@PathVariable Long id) {
+        Reservation reservation = reservationService.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Reservation not found: " + id));
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("reservation", toMap(reservation));
+        return ResponseEntity.ok(resp);
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createReservation(@Valid @RequestBody CreateReservationDTO dto) {
+        String rangeError = validateStay(dto.getCheckIn(), dto.getCheckOut());
+        if (rangeError != null) {
+            return fail(HttpStatus.BAD_REQUEST, rangeError);
+        }
+        if (dto.getRoomId() == null && (dto.getRoomType() == null || dto.getRoomType().isBlank())) {
+            return fail(HttpStatus.BAD_REQUEST, "Either roomId or roomType is required");
+        }
+        Guest guest;
+        if (dto.getGuestId() != null) {
+            guest = reservationService.findGuest(dto.getGuestId())
+                .orElseThrow(() -> new ResourceNotFoundException("Guest not found: " + dto.getGuestId()));
+        } else if (dto.getGuestName() != null && !dto.getGuestName().isBlank()) {
+            guest = new Guest();
+            guest.setFullName(dto.getGuestName());
+            guest.setEmail(dto.getGuestEmail());
+            guest.setPhone(dto.getGuestPhone());
+        } else {
+            return fail(HttpStatus.BAD_REQUEST, "Either guestId or guestName is required");
+        }
+        Reservation reservation = reservationService.book(dto.getRoomId(), dto.getRoomType(), guest, dto.getCheckIn(), dto.getCheckOut());
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("reservation", toMap(reservation));
+        return ResponseEntity.status(HttpStatus.CREATED).body(resp);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelReservation(@PathVariable Long id) {
+        Reservation reservation = reservationService.cancel(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Reservation not found: " + id));
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("reservation", toMap(reservation));
+        return ResponseEntity.ok(resp);
+    }
+
+    // Calendars only hold nights from yesterday on, so an earlier night would always look free
+    private static String validateStay(LocalDate checkIn, LocalDate checkOut) {
+        if (checkIn.isBefore(LocalDate.now())) {
+            return "Check-in cannot be in the past";
+        }
+        return validateRange(checkIn, checkOut);
+    }
+
+    private static String validateRange(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            return "Check-out must be after check-in";
+        }
+        if (from.isBefore(AvailabilityIndex.ORIGIN)) {
+            return "Dates before " + AvailabilityIndex.ORIGIN + " are not supported";
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            return "Date range cannot exceed " + MAX_RANGE_DAYS + " days";
+        }
+        return null;
+    }
+
+    private static ResponseEntity<?> fail(HttpStatus status, String message) {
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", message);
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    static Map<String, Object> toMap(Reservation reservation) {
+        Map<String, Object> guestMap = new LinkedHashMap<>();
+        guestMap.put("id", reservation.getGuest().getId());
+        guestMap.put("fullName", reservation.getGuest().getFullName());
+        Map<String, Object> reservationMap = new LinkedHashMap<>();
+        reservationMap.put("id", reservation.getId());
+        reservationMap.put("room", RoomsController.toMap(reservation.getRoom()));
+        reservationMap.put("guest", guestMap);
+        reservationMap.put("checkIn", reservation.getCheckIn());
+        reservationMap.put("checkOut", reservation.getCheckOut());
+        reservationMap.put("status", reservation.getStatus());
+        reservationMap.put("createdAt", reservation.getCreatedAt());
+        reservationMap.put("externalRef", reservation.getExternalRef());
+        return reservationMap;
+    }
+}
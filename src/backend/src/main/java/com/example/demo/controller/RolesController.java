@@ -0,0 +1,88 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.RoleMembershipService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/roles")
+@PreAuthorize("hasRole('ADMIN')")
+public class RolesController {
+    private final RoleMembershipService roleMembershipService;
+
+    @Value("${role-membership.max-ids:50000}")
+    private int maxIds;
+
+    @Autowired
+    public RolesController(RoleMembershipService roleMembershipService) {
+        this.roleMembershipService = roleMembershipService;
+    }
+
+    // Body: {"userIds": ["...", ...]}
+    @PostMapping("/{name}/members")
+    public ResponseEntity<?> addMembers(@PathVariable String name, @RequestBody Map<String, List<String>> body) {
+        List<UUID> ids = new ArrayList<>();
+        ResponseEntity<?> invalid = parseIds(body, ids);
+        if (invalid != null) {
+            return invalid;
+        }
+        return ResponseEntity.ok(toMap(roleMembershipService.addMembers(name, ids), "added"));
+    }
+
+    @DeleteMapping("/{name}/members")
+    public ResponseEntity<?> removeMembers(@PathVariable String name, @RequestBody Map<String, List<String>> body) {
+        List<UUID> ids = new ArrayList<>();
+        ResponseEntity<?> invalid = parseIds(body, ids);
+        if (invalid != null) {
+            return invalid;
+        }
+        return ResponseEntity.ok(toMap(roleMembershipService.removeMembers(name, ids), "removed"));
+    }
+
+    private ResponseEntity<?> parseIds(Map<String, List<String>> body, List<UUID> ids) {
+        List<String> userIds = body == null ? null : body.get("userIds");
+        if (userIds == null || userIds.isEmpty()) {
+            return fail(HttpStatus.BAD_REQUEST, "userIds is required");
+        }
+        if (userIds.size() > maxIds) {
+            return fail(HttpStatus.BAD_REQUEST, "At most " + maxIds + " userIds per request");
+        }
+        for (String id : userIds) {
+            try {
+                ids.add(UUID.fromString(id));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                return fail(HttpStatus.BAD_REQUEST, "Invalid user id: " + id);
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Object> toMap(RoleMembershipService.Result result, String changedKey) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("role", result.role());
+        resp.put("requested", result.requested());
+        resp.put(changedKey, result.changed());
+        resp.put("unchanged", result.requested() - result.unknown() - result.changed());
+        resp.put("unknown", result.unknown());
+        resp.put("elapsedMs", result.elapsedMillis());
+        return resp;
+    }
+
+    private static ResponseEntity<?> fail(HttpStatus status, String message) {
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", message);
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.CreateRoomDTO;
+import com.example.demo.dto.UpdateRoomStatusDTO;
+import com.example.demo.model.Room;
+import com.example.demo.model.RoomStatusUpdate;
+import com.example.demo.model.User;
+import com.example.demo.service.ReservationService;
+import com.example.demo.service.RoomStatusBoard;
+import com.example.demo.service.RoomStatusService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/rooms")
+public class RoomsController {
+    private final ReservationService reservationService;
+    private final RoomStatusService roomStatusService;
+
+    @Autowired
+    public RoomsController(ReservationService reservationService, RoomStatusService roomStatusService) {
+        this.reservationService = reservationService;
+        this.roomStatusService = roomStatusService;
+    }
+
+    @GetMapping("")
+    public ResponseEntity<?> getAllRooms() {
+        List<Map<String, Object>> rooms = reservationService.getAllRooms().stream().map(RoomsController::toMap).toList();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("results", rooms.size());
+        response.put("rooms", rooms);
+        return ResponseEntity.ok(response);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<?> createRoom(@Valid @RequestBody CreateRoomDTO dto) {
+        Room room = new Room();
+        room.setNumber(dto.getNumber());
+        room.setType(dto.getType());
+        Room saved = reservationService.createRoom(room);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("room", toMap(saved));
+        return ResponseEntity.status(HttpStatus.CREATED).body(resp);
+    }
+
+    // Without since, or with one from another node or run, the whole board; otherwise only the rooms that
+    // changed after it. Clients keep the returned version and send it back on the next poll.
+    @GetMapping("/status")
+    public ResponseEntity<?> getRoomStatus(@RequestParam(required = false) String since) {
+        RoomStatusBoard.View view = roomStatusService.getStatus(since);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("version", view.version());
+        response.put("full", view.full());
+        response.put("rooms", view.rooms());
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping("/{number}/status")
+    public ResponseEntity<?> updateRoomStatus(@PathVariable String number, @Valid @RequestBody UpdateRoomStatusDTO dto) {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        String changedBy = principal instanceof User user ? user.getUsername() : null;
+        RoomStatusUpdate update = roomStatusService.updateStatus(number, dto.getStatus(), changedBy);
+        Map<String, Object> updateMap = new LinkedHashMap<>();
+        updateMap.put("number", update.getRoomNumber());
+        updateMap.put("status", update.getStatus());
+        updateMap.put("changedBy", update.getChangedBy());
+        updateMap.put("changedAt", update.getChangedAt());
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("status", "success");
+        resp.put("room", updateMap);
+        return ResponseEntity.ok(resp);
+    }
+
+    static Map<String, Object> toMap(Room room) {
+        Map<String, Object> roomMap = new LinkedHashMap<>();
+        roomMap.put("id", room.getId());
+        roomMap.put("number", room.getNumber());
+        roomMap.put("type", room.getType());
+        return roomMap;
+    }
+}
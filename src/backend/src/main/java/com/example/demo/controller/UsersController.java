@@ -1,9 +1,13 @@
 package com.example.demo.controller;
 
+import com.example.demo.model.OutboxMessage;
 import com.example.demo.model.User;
+import com.example.demo.service.EventHub;
 import com.example.demo.service.UserService;
+import com.example.demo.service.UserVersionTracker;
 import com.example.demo.security.JwtUtil;
-import com.example.demo.dto.UserResponseDTO;
+import com.example.demo.security.TenantContext;
+import com.example.demo.dto.UserFields;
 import com.example.demo.dto.CreateUserDTO;
 import com.example.demo.model.UserRole;
 import com.example.demo.repository.UserRoleRepository;
@@ -11,14 +15,15 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.Cookie;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import java.util.LinkedHashMap;
 import java.util.HashSet;
 import java.util.Set;
@@ -31,6 +36,8 @@ public class UsersController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
     private final UserRoleRepository userRoleRepository;
+    private final UserVersionTracker userVersionTracker;
+    private final EventHub eventHub;
 
     @Value("${app.env:dev}")
     private String appEnv;
@@ -39,23 +46,38 @@ public class UsersController {
     private int refreshTokenExpirationSeconds;
 
     @Autowired
-    public UsersController(UserService userService, JwtUtil jwtUtil, UserRoleRepository userRoleRepository) {
+    public UsersController(UserService userService, JwtUtil jwtUtil, UserRoleRepository userRoleRepository,
+                           UserVersionTracker userVersionTracker, EventHub eventHub) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
         this.userRoleRepository = userRoleRepository;
+        this.userVersionTracker = userVersionTracker;
+        this.eventHub = eventHub;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
     public ResponseEntity<?> createUser(@Valid @RequestBody CreateUserDTO dto) {
-        if (userService.findByUsername(dto.getUsername()).isPresent() ||
-                userService.findByEmail(dto.getEmail()).isPresent()) {
+        // Admins of the default tenant run the group and may open accounts at any property; others only at their own
+        String tenantId = TenantContext.current();
+        if (dto.getTenant() != null && !dto.getTenant().equals(tenantId)) {
+            if (!TenantContext.DEFAULT.equals(tenantId)) {
+                Map<String, Object> errorResponse = new LinkedHashMap<>();
+                errorResponse.put("status", "fail");
+                errorResponse.put("message", "Users can only be created in your own tenant");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            }
+            tenantId = dto.getTenant();
+        }
+        if (userService.findByUsername(tenantId, dto.getUsername()).isPresent() ||
+                userService.findByEmail(tenantId, dto.getEmail()).isPresent()) {
             Map<String, Object> errorResponse = new LinkedHashMap<>();
             errorResponse.put("status", "fail");
             errorResponse.put("message", "Username or email already exists");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         }
         User user = new User();
+        user.setTenantId(tenantId);
         user.setUsername(dto.getUsername());
         user.setEmail(dto.getEmail());
         user.setPassword(dto.getPassword());
@@ -68,11 +90,13 @@ public class UsersController {
             }
         }
         user.setRoles(roles);
-        User savedUser = userService.registerUser(user);
+        User savedUser = userService.registerUser(user, OutboxMessage.WELCOME);
+        eventHub.publish(savedUser.getTenantId(), "user-created", Map.of("id", savedUser.getId(), "username", savedUser.getUsername()));
         Map<String, Object> userMap = new LinkedHashMap<>();
         userMap.put("id", savedUser.getId());
         userMap.put("username", savedUser.getUsername());
         userMap.put("email", savedUser.getEmail());
+        userMap.put("tenant", savedUser.getTenantId());
         userMap.put("roles", savedUser.getRoles().stream().map(r -> r.getName()).toList());
         Map<String, Object> resp = new LinkedHashMap<>();
         resp.put("status", "success");
@@ -82,37 +106,68 @@ public class UsersController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("")
-    public ResponseEntity<?> getAllUsers() {
-        List<UserResponseDTO> users = userService.getAllUsers().stream().map(user -> {
-            UserResponseDTO dto = new UserResponseDTO();
-            dto.setId(user.getId());
-            dto.setUsername(user.getUsername());
-            dto.setEmail(user.getEmail());
-            dto.setRoles(user.getRoles().stream().map(r -> r.getName()).collect(Collectors.toSet()));
-            dto.setLastSession(user.getLastSession());
-            return dto;
-        }).collect(Collectors.toList());
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String fields, WebRequest webRequest) {
+        UserFields userFields;
+        try {
+            userFields = UserFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return badFields(e);
+        }
+        // Read the version before the data: a write in between only makes the ETag older, never stale
+        String etag = userFields.tag(userVersionTracker.collectionEtag(TenantContext.current()));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        // Only the requested fields are queried: id,username reads two columns and never joins roles
+        List<Map<String, Object>> users = userService.getAllUsers(userFields);
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("status", "success");
         response.put("results", users.size());
         response.put("users", users);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .body(response);
     }
 
     @GetMapping("/me")
-    public ResponseEntity<?> getMe() {
+    public ResponseEntity<?> getMe(@RequestParam(required = false) String fields, WebRequest webRequest) {
+        UserFields userFields;
+        try {
+            userFields = UserFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return badFields(e);
+        }
         Object principal = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (principal instanceof com.example.demo.model.User user) {
+            String etag = userFields.tag(userVersionTracker.userEtag(user));
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            // The caller was already loaded by the JWT filter, so here the fieldset only trims the response
             Map<String, Object> userMap = new LinkedHashMap<>();
-            userMap.put("id", user.getId());
-            userMap.put("username", user.getUsername());
-            userMap.put("email", user.getEmail());
-            userMap.put("roles", user.getRoles().stream().map(r -> r.getName()).toList());
-            userMap.put("last_session", user.getLastSession());
+            if (userFields.has("id")) {
+                userMap.put("id", user.getId());
+            }
+            if (userFields.has("username")) {
+                userMap.put("username", user.getUsername());
+            }
+            if (userFields.has("email")) {
+                userMap.put("email", user.getEmail());
+            }
+            if (userFields.has("roles")) {
+                userMap.put("roles", user.getRoles().stream().map(r -> r.getName()).toList());
+            }
+            if (userFields.has("lastSession")) {
+                userMap.put("last_session", user.getLastSession());
+            }
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("status", "success");
             response.put("user", userMap);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(response);
         } else {
             Map<String, Object> errorResponse = new LinkedHashMap<>();
             errorResponse.put("status", "fail");
@@ -142,8 +197,9 @@ public class UsersController {
         if (changed) {
             user.setLastSession(Instant.now());
             userService.registerUser(user); // Save changes
-            String jwt = jwtUtil.generateToken(user.getUsername());
-            String refreshToken = jwtUtil.generateRefreshToken(user.getUsername());
+            eventHub.publish(user.getTenantId(), "user-updated", Map.of("id", user.getId(), "username", user.getUsername()));
+            String jwt = jwtUtil.generateToken(user.getUsername(), user.getTenantId());
+            String refreshToken = jwtUtil.generateRefreshToken(user.getUsername(), user.getTenantId());
             Cookie jwtCookie = new Cookie("jwt", jwt);
             jwtCookie.setHttpOnly(true);
             jwtCookie.setPath("/");
@@ -211,9 +267,10 @@ public class UsersController {
         }
         user.setPassword(newPassword);
         user.setLastSession(Instant.now());
-        userService.registerUser(user);
-        String jwt = jwtUtil.generateToken(user.getUsername());
-        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername());
+        userService.registerUser(user, OutboxMessage.PASSWORD_CHANGED);
+        eventHub.publish(user.getTenantId(), "user-updated", Map.of("id", user.getId(), "username", user.getUsername()));
+        String jwt = jwtUtil.generateToken(user.getUsername(), user.getTenantId());
+        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername(), user.getTenantId());
         Cookie jwtCookie = new Cookie("jwt", jwt);
         jwtCookie.setHttpOnly(true);
         jwtCookie.setPath("/");
@@ -238,4 +295,11 @@ public class UsersController {
         resp.put("refreshToken", refreshToken);
         return ResponseEntity.ok(resp);
     }
+
+    private static ResponseEntity<?> badFields(IllegalArgumentException e) {
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
 }
\ No newline at end of file
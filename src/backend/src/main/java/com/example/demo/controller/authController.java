@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.User;
+import com.example.demo.service.EventHub;
 import com.example.demo.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -29,6 +30,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 public class authController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final EventHub eventHub;
 
     @Value("${app.env:dev}")
     private String appEnv;
@@ -40,14 +42,15 @@ public class authController {
     private String frontendOrigin;
 
     @Autowired
-    public authController(UserService userService, JwtUtil jwtUtil) {
+    public authController(UserService userService, JwtUtil jwtUtil, EventHub eventHub) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.eventHub = eventHub;
     }
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
-        Optional<User> userOpt = userService.findByEmail(loginRequest.getEmail());
+        Optional<User> userOpt = userService.findByEmailForLogin(loginRequest.getTenant(), loginRequest.getEmail());
         if (userOpt.isEmpty() || !userService.checkPassword(userOpt.get(), loginRequest.getPassword())) {
             Map<String, Object> errorResponse = new LinkedHashMap<>();
             errorResponse.put("status", "fail");
@@ -55,8 +58,9 @@ public class authController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
         }
         User user = userOpt.get();
-        String jwt = jwtUtil.generateToken(user.getId().toString());
-        String refreshToken = jwtUtil.generateRefreshToken(user.getId().toString());
+        String jwt = jwtUtil.generateToken(user.getId().toString(), user.getTenantId());
+        String refreshToken = jwtUtil.generateRefreshToken(user.getId().toString(), user.getTenantId());
+        eventHub.publish(user.getTenantId(), "login", Map.of("id", user.getId(), "username", user.getUsername()));
         Map<String, Object> userMap = new LinkedHashMap<>();
         userMap.put("id", user.getId());
         userMap.put("username", user.getUsername());
@@ -78,13 +82,13 @@ public class authController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid refresh token");
         }
         String userId = jwtUtil.extractUserId(refreshToken);
-        Optional<User> userOpt = userService.findById(UUID.fromString(userId));
+        Optional<User> userOpt = userService.findById(jwtUtil.extractTenantId(refreshToken), UUID.fromString(userId));
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not found");
         }
         User user = userOpt.get();
-        String newJwt = jwtUtil.generateToken(user.getId().toString());
-        String newRefreshToken = jwtUtil.generateRefreshToken(user.getId().toString());
+        String newJwt = jwtUtil.generateToken(user.getId().toString(), user.getTenantId());
+        String newRefreshToken = jwtUtil.generateRefreshToken(user.getId().toString(), user.getTenantId());
         // Set new tokens as cookies
         Cookie jwtCookie = new Cookie("jwt", newJwt);
         jwtCookie.setHttpOnly(true);
@@ -115,6 +119,7 @@ public class authController {
         if (principal instanceof User user) {
             user.setLastSession(Instant.now());
             userService.registerUser(user);
+            eventHub.publish(user.getTenantId(), "logout", Map.of("id", user.getId(), "username", user.getUsername()));
         }
         Cookie jwtCookie = new Cookie("jwt", null);
         jwtCookie.setHttpOnly(true);
@@ -144,6 +149,7 @@ public class authController {
                 registry.addMapping("/**")
                         .allowedOrigins(frontendOrigin)
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH")
+                        .exposedHeaders("ETag")
                         .allowCredentials(true);
             }
         };
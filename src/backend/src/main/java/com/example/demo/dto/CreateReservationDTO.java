@@ -0,0 +1,39 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+public class CreateReservationDTO {
+    // Either a specific room or a room type to pick a free room from
+    private Long roomId;
+    private String roomType;
+
+    // Either an existing guest or the details of a new one
+    private Long guestId;
+    private String guestName;
+    private String guestEmail;
+    private String guestPhone;
+
+    @NotNull(message = "Check-in date is required")
+    private LocalDate checkIn;
+
+    @NotNull(message = "Check-out date is required")
+    private LocalDate checkOut;
+
+    public Long getRoomId() { return roomId; }
+    public void setRoomId(Long roomId) { this.roomId = roomId; }
+    public String getRoomType() { return roomType; }
+    public void setRoomType(String roomType) { this.roomType = roomType; }
+    public Long getGuestId() { return guestId; }
+    public void setGuestId(Long guestId) { this.guestId = guestId; }
+    public String getGuestName() { return guestName; }
+    public void setGuestName(String guestName) { this.guestName = guestName; }
+    public String getGuestEmail() { return guestEmail; }
+    public void setGuestEmail(String guestEmail) { this.guestEmail = guestEmail; }
+    public String getGuestPhone() { return guestPhone; }
+    public void setGuestPhone(String guestPhone) { this.guestPhone = guestPhone; }
+    public LocalDate getCheckIn() { return checkIn; }
+    public void setCheckIn(LocalDate checkIn) { this.checkIn = checkIn; }
+    public LocalDate getCheckOut() { return checkOut; }
+    public void setCheckOut(LocalDate checkOut) { this.checkOut = checkOut; }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class CreateRoomDTO {
+    @NotBlank(message = "Room number is required")
+    private String number;
+
+    @NotBlank(message = "Room type is required")
+    private String type;
+
+    public String getNumber() { return number; }
+    public void setNumber(String number) { this.number = number; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+}
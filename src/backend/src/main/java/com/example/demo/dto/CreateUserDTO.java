@@ -2,6 +2,7 @@ package com.example.demo.dto;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import java.util.Set;
 
@@ -19,6 +20,10 @@ public class CreateUserDTO {
 
     private Set<String> roles;
 
+    // Defaults to the creating admin's tenant
+    @Pattern(regexp = "[a-z0-9-]{1,32}", message = "Tenant must be 1 to 32 lowercase letters, digits or dashes")
+    private String tenant;
+
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
     public String getEmail() { return email; }
@@ -27,4 +32,6 @@ public class CreateUserDTO {
     public void setPassword(String password) { this.password = password; }
     public Set<String> getRoles() { return roles; }
     public void setRoles(Set<String> roles) { this.roles = roles; }
+    public String getTenant() { return tenant; }
+    public void setTenant(String tenant) { this.tenant = tenant; }
 } 
\ No newline at end of file
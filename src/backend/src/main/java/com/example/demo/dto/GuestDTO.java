@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Size;
+
+public class GuestDTO {
+    @Size(min = 1, max = 255, message = "Full name must be between 1 and 255 characters")
+    private String fullName;
+
+    @Email(message = "Email must be valid")
+    private String email;
+
+    private String phone;
+
+    private String nationality;
+
+    @Size(max = 2000, message = "Notes cannot exceed 2000 characters")
+    private String notes;
+
+    public String getFullName() { return fullName; }
+    public void setFullName(String fullName) { this.fullName = fullName; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+    public String getNationality() { return nationality; }
+    public void setNationality(String nationality) { this.nationality = nationality; }
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+}
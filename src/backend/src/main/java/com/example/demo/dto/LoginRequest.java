@@ -2,6 +2,8 @@ package com.example.demo.dto;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import com.example.demo.security.TenantContext;
 
 public class LoginRequest {
     @NotBlank(message = "Email is required")
@@ -11,8 +13,14 @@ public class LoginRequest {
     @NotBlank(message = "Password is required")
     private String password;
 
+    // The property to sign in to; the same email may exist in several
+    @Pattern(regexp = "[a-z0-9-]{1,32}", message = "Tenant must be 1 to 32 lowercase letters, digits or dashes")
+    private String tenant = TenantContext.DEFAULT;
+
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
+    public String getTenant() { return tenant; }
+    public void setTenant(String tenant) { this.tenant = tenant; }
 } 
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Set;
+
+public class RateRuleDTO {
+    @NotBlank(message = "Rule kind is required")
+    @Pattern(regexp = "BASE|SEASON|WEEKDAY|OCCUPANCY|PROMO", message = "Kind must be BASE, SEASON, WEEKDAY, OCCUPANCY or PROMO")
+    private String kind;
+
+    private String roomType;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Set<DayOfWeek> daysOfWeek;
+
+    @Min(value = 0, message = "Minimum occupancy must be between 0 and 100")
+    @Max(value = 100, message = "Minimum occupancy must be between 0 and 100")
+    private Integer minOccupancy;
+
+    private String promoCode;
+
+    @Min(value = -100, message = "Percent cannot be below -100")
+    @Max(value = 1000, message = "Percent cannot exceed 1000")
+    private int percent;
+
+    // Nightly rate for BASE rules
+    @DecimalMin(value = "0.01", message = "Amount must be positive")
+    private BigDecimal amount;
+
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    public String getRoomType() { return roomType; }
+    public void setRoomType(String roomType) { this.roomType = roomType; }
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    public Set<DayOfWeek> getDaysOfWeek() { return daysOfWeek; }
+    public void setDaysOfWeek(Set<DayOfWeek> daysOfWeek) { this.daysOfWeek = daysOfWeek; }
+    public Integer getMinOccupancy() { return minOccupancy; }
+    public void setMinOccupancy(Integer minOccupancy) { this.minOccupancy = minOccupancy; }
+    public String getPromoCode() { return promoCode; }
+    public void setPromoCode(String promoCode) { this.promoCode = promoCode; }
+    public int getPercent() { return percent; }
+    public void setPercent(int percent) { this.percent = percent; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+}
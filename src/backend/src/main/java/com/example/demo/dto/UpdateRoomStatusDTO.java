@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+public class UpdateRoomStatusDTO {
+    @NotBlank(message = "Status is required")
+    @Pattern(regexp = "CLEAN|DIRTY|OCCUPIED|OUT_OF_ORDER", message = "Status must be CLEAN, DIRTY, OCCUPIED or OUT_OF_ORDER")
+    private String status;
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.dto;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// The sparse fieldset a client asked for with ?fields=, e.g. fields=id,username. Responses list the
+// fields in the order of ALL, whatever order they were asked in; no parameter means all of them.
+public final class UserFields {
+    public static final List<String> ALL = List.of("id", "username", "email", "roles", "lastSession");
+    private static final UserFields EVERYTHING = new UserFields(new LinkedHashSet<>(ALL));
+
+    private final Set<String> names;
+
+    private UserFields(Set<String> names) {
+        this.names = names;
+    }
+
+    public static UserFields parse(String param) {
+        if (param == null || param.isBlank()) {
+            return EVERYTHING;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String name : param.split(",")) {
+            String trimmed = name.trim();
+            if (!ALL.contains(trimmed)) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed + "; expected any of " + String.join(",", ALL));
+            }
+            requested.add(trimmed);
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : ALL) {
+            if (requested.contains(name)) {
+                names.add(name);
+            }
+        }
+        return new UserFields(names);
+    }
+
+    public boolean has(String name) {
+        return names.contains(name);
+    }
+
+    public Set<String> names() {
+        return names;
+    }
+
+    // Each fieldset is its own representation, so it gets its own ETag
+    public String tag(String etag) {
+        if (names.size() == ALL.size()) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + ";" + String.join(",", names) + "\"";
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.exception;
+
+public class BookingConflictException extends RuntimeException {
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
@@ -24,6 +24,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(BookingConflictException.class)
+    public ResponseEntity<Object> handleBookingConflict(BookingConflictException ex, HttpServletRequest request) {
+        Map<String, Object> errorResponse = new java.util.LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(StayOutsideRatesException.class)
+    public ResponseEntity<Object> handleStayOutsideRates(StayOutsideRatesException ex, HttpServletRequest request) {
+        Map<String, Object> errorResponse = new java.util.LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<Object> handleResourceNotFound(ResourceNotFoundException ex, HttpServletRequest request) {
+        Map<String, Object> errorResponse = new java.util.LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiError> handleValidation(MethodArgumentNotValidException ex, HttpServletRequest request) {
         String message = ex.getBindingResult().getAllErrors().get(0).getDefaultMessage();
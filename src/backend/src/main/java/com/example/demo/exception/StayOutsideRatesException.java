@@ -0,0 +1,7 @@
+package com.example.demo.exception;
+
+public class StayOutsideRatesException extends RuntimeException {
+    public StayOutsideRatesException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.logging;
+
+// Counts the SQL statements a request runs and the time spent in them. The correlation filter opens a scope
+// per request; statements outside one, such as scheduled jobs, are not counted.
+public final class RequestSqlStats {
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    private RequestSqlStats() {
+    }
+
+    public static RequestSqlStats open() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    static void record(long elapsedNanos) {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsedNanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.logging;
+
+import org.hibernate.SessionEventListener;
+
+// Registered through hibernate.session.events.auto, so Hibernate creates one per session. It replaces
+// show-sql: statements are timed and added to the request's totals instead of printed one by one.
+public class SqlStatsListener implements SessionEventListener {
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestSqlStats.record(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestSqlStats.record(System.nanoTime() - batchStart);
+    }
+}
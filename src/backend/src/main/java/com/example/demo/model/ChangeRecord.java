@@ -0,0 +1,56 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import java.time.Instant;
+
+// One row per committed write that other nodes must hear about; ids only ever grow, so nodes tail the
+// table by id
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "idx_change_log_created_at", columnList = "created_at"))
+public class ChangeRecord {
+    public static final String USER = "user";
+    public static final String ROOM_STATUS = "room-status";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String entity;
+
+    // Tenant whose data changed, so subscribers only drop that tenant's cached state
+    @ColumnDefault("'default'")
+    @Column(name = "tenant_id", nullable = false, length = 32)
+    private String tenantId;
+
+    // Id of the changed row, or a description for bulk changes
+    @Column(name = "entity_key", nullable = false, length = 64)
+    private String entityKey;
+
+    // Node that made the change; it has already applied it locally
+    @Column(name = "origin_node", nullable = false, length = 64)
+    private String originNode;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEntity() { return entity; }
+    public void setEntity(String entity) { this.entity = entity; }
+
+    public String getTenantId() { return tenantId; }
+    public void setTenantId(String tenantId) { this.tenantId = tenantId; }
+
+    public String getEntityKey() { return entityKey; }
+    public void setEntityKey(String entityKey) { this.entityKey = entityKey; }
+
+    public String getOriginNode() { return originNode; }
+    public void setOriginNode(String originNode) { this.originNode = originNode; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// A booking event from a channel manager, staged as it arrived and acknowledged before it is applied.
+// Rows are spread over partitions by room number, and each partition is applied in id order, so the
+// events of one room are applied in the order they were received.
+@Entity
+@Table(name = "channel_booking_inbox", indexes = @Index(name = "idx_channel_inbox_status_partition", columnList = "status, partition_no, id"))
+public class InboundBooking {
+    public static final String PENDING = "PENDING";
+    public static final String APPLIED = "APPLIED";
+    // The event was already applied, usually a redelivery from the channel
+    public static final String DUPLICATE = "DUPLICATE";
+    // Valid, but it cannot be applied: unknown room or reservation, or the room is taken for those nights
+    public static final String REJECTED = "REJECTED";
+    // Applying it failed on its own, see last_error
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    // channel:reservationId
+    @Column(name = "external_ref", nullable = false, length = 160)
+    private String externalRef;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "last_error", length = 512)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private Instant receivedAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public int getPartitionNo() { return partitionNo; }
+    public void setPartitionNo(int partitionNo) { this.partitionNo = partitionNo; }
+
+    public String getExternalRef() { return externalRef; }
+    public void setExternalRef(String externalRef) { this.externalRef = externalRef; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public Instant getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(Instant receivedAt) { this.receivedAt = receivedAt; }
+
+    public Instant getProcessedAt() { return processedAt; }
+    public void setProcessedAt(Instant processedAt) { this.processedAt = processedAt; }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "rate_rules", indexes = @Index(name = "idx_rate_rules_kind", columnList = "kind"))
+public class RateRule {
+    // Nightly rate of a room type, in cents
+    public static final String BASE = "BASE";
+    // Percent adjustments; they multiply on top of each other
+    public static final String SEASON = "SEASON";
+    public static final String WEEKDAY = "WEEKDAY";
+    public static final String OCCUPANCY = "OCCUPANCY";
+    public static final String PROMO = "PROMO";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String kind;
+
+    // Null applies the rule to every room type
+    @Column(name = "room_type")
+    private String roomType;
+
+    // Nights from startDate up to, but not including, endDate; either end may be open
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    // Bit 0 is Monday; zero means every day
+    @Column(name = "days_of_week", nullable = false)
+    private int daysOfWeek;
+
+    // Occupancy rules apply from this percentage of the room type booked, up to the next band
+    @Column(name = "min_occupancy")
+    private Integer minOccupancy;
+
+    @Column(name = "promo_code")
+    private String promoCode;
+
+    @Column(nullable = false)
+    private int percent;
+
+    @Column(name = "amount_cents")
+    private Long amountCents;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+
+    public String getRoomType() { return roomType; }
+    public void setRoomType(String roomType) { this.roomType = roomType; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public int getDaysOfWeek() { return daysOfWeek; }
+    public void setDaysOfWeek(int daysOfWeek) { this.daysOfWeek = daysOfWeek; }
+
+    public Integer getMinOccupancy() { return minOccupancy; }
+    public void setMinOccupancy(Integer minOccupancy) { this.minOccupancy = minOccupancy; }
+
+    public String getPromoCode() { return promoCode; }
+    public void setPromoCode(String promoCode) { this.promoCode = promoCode; }
+
+    public int getPercent() { return percent; }
+    public void setPercent(int percent) { this.percent = percent; }
+
+    public Long getAmountCents() { return amountCents; }
+    public void setAmountCents(Long amountCents) { this.amountCents = amountCents; }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+// A single row the replica checker bumps on the primary every interval; how far a replica's copy has got
+// tells its lag whatever tables the recent writes went to. Only mapped so the table is created with the rest.
+@Entity
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat {
+    @Id
+    private Integer id;
+
+    // Only ever grows; every node running the checker increments it
+    @Column(nullable = false)
+    private long beat;
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public long getBeat() { return beat; }
+    public void setBeat(long beat) { this.beat = beat; }
+}
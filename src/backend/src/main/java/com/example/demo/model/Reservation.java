@@ -0,0 +1,69 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "reservations", indexes = {
+    @Index(name = "idx_reservations_room_check_in", columnList = "room_id, check_in"),
+    @Index(name = "idx_reservations_status_check_out", columnList = "status, check_out")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_reservations_external_ref", columnNames = "external_ref"))
+public class Reservation {
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String CANCELLED = "CANCELLED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "room_id")
+    private Room room;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "guest_id")
+    private Guest guest;
+
+    // Nights run from checkIn up to, but not including, checkOut
+    @Column(name = "check_in", nullable = false)
+    private LocalDate checkIn;
+
+    @Column(name = "check_out", nullable = false)
+    private LocalDate checkOut;
+
+    @Column(nullable = false)
+    private String status = CONFIRMED;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // channel:reservationId for bookings that came in from a channel manager, null for the others
+    @Column(name = "external_ref", length = 160)
+    private String externalRef;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Room getRoom() { return room; }
+    public void setRoom(Room room) { this.room = room; }
+
+    public Guest getGuest() { return guest; }
+    public void setGuest(Guest guest) { this.guest = guest; }
+
+    public LocalDate getCheckIn() { return checkIn; }
+    public void setCheckIn(LocalDate checkIn) { this.checkIn = checkIn; }
+
+    public LocalDate getCheckOut() { return checkOut; }
+    public void setCheckOut(LocalDate checkOut) { this.checkOut = checkOut; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public String getExternalRef() { return externalRef; }
+    public void setExternalRef(String externalRef) { this.externalRef = externalRef; }
+}
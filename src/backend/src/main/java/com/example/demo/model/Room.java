@@ -0,0 +1,35 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "rooms", indexes = @Index(name = "idx_rooms_type", columnList = "type"))
+public class Room {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String number;
+
+    @Column(nullable = false)
+    private String type;
+
+    // Force-incremented by every booking change so concurrent writers on other nodes conflict
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getNumber() { return number; }
+    public void setNumber(String number) { this.number = number; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
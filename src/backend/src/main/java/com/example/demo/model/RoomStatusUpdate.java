@@ -0,0 +1,54 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Write-ahead log of housekeeping status changes: a change is written here first and only applied to the
+// in-memory board once it commits. The latest row of each room is its current status.
+@Entity
+@Table(name = "room_status_log", indexes = @Index(name = "idx_room_status_log_room", columnList = "room_id"))
+public class RoomStatusUpdate {
+    public static final String CLEAN = "CLEAN";
+    public static final String DIRTY = "DIRTY";
+    public static final String OCCUPIED = "OCCUPIED";
+    public static final String OUT_OF_ORDER = "OUT_OF_ORDER";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    // Copied from the room so other nodes can place the update without loading the room
+    @Column(name = "room_number", nullable = false)
+    private String roomNumber;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "changed_by")
+    private String changedBy;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getRoomId() { return roomId; }
+    public void setRoomId(Long roomId) { this.roomId = roomId; }
+
+    public String getRoomNumber() { return roomNumber; }
+    public void setRoomNumber(String roomNumber) { this.roomNumber = roomNumber; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getChangedBy() { return changedBy; }
+    public void setChangedBy(String changedBy) { this.changedBy = changedBy; }
+
+    public Instant getChangedAt() { return changedAt; }
+    public void setChangedAt(Instant changedAt) { this.changedAt = changedAt; }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.HashSet;
 import java.util.Set;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,16 +13,27 @@ import java.util.UUID;
 import java.time.Instant;
 
 @Entity
-@Table(name = "users")
+// Usernames and emails are unique within a tenant. Every lookup names its tenant, so both unique indexes
+// lead with it and also serve listing one tenant's users.
+@Table(name = "users",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_users_tenant_username", columnNames = {"tenant_id", "username"}),
+        @UniqueConstraint(name = "uk_users_tenant_email", columnNames = {"tenant_id", "email"})
+    })
 public class User implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(nullable = false, unique = true)
+    // Rows from before tenancy belong to the default tenant
+    @ColumnDefault("'default'")
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 32)
+    private String tenantId;
+
+    @Column(nullable = false)
     private String username;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
     @Column(nullable = false)
@@ -30,6 +42,10 @@ public class User implements UserDetails {
     @Column(name = "last_session")
     private Instant lastSession;
 
+    // Bumped on every write, used to derive the ETag of the user resource
+    @Column(name = "version", nullable = false)
+    private long version;
+
     // Replace single role with multiple roles
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
@@ -46,6 +62,9 @@ public class User implements UserDetails {
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
 
+    public String getTenantId() { return tenantId; }
+    public void setTenantId(String tenantId) { this.tenantId = tenantId; }
+
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
 
@@ -58,6 +77,9 @@ public class User implements UserDetails {
     public Instant getLastSession() { return lastSession; }
     public void setLastSession(Instant lastSession) { this.lastSession = lastSession; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return roles.stream()
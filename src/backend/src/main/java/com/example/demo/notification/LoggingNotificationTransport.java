@@ -0,0 +1,21 @@
+package com.example.demo.notification;
+
+import com.example.demo.model.OutboxMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+// Used when no SMTP server is configured, so development setups still see what would have been sent
+public class LoggingNotificationTransport implements NotificationTransport {
+    private static final Logger log = LoggerFactory.getLogger(LoggingNotificationTransport.class);
+
+    @Override
+    public Map<Long, Failure> send(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            log.info("Notification {} to {}: {}", message.getKind(), message.getRecipient(), message.getSubject());
+        }
+        return Map.of();
+    }
+}
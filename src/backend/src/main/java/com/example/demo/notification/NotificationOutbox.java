@@ -0,0 +1,175 @@
+package com.example.demo.notification;
+
+import com.example.demo.model.OutboxMessage;
+import com.example.demo.model.User;
+import com.example.demo.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Transactional outbox for user notifications. Requests only insert a row next to the write it announces;
+// the dispatcher claims due rows in batches, sends them through the NotificationTransport outside any
+// transaction and records the outcome. Delivery is at least once: a node that dies mid-send leaves its
+// batch claimed until the lease runs out, and another node sends it again.
+@Service
+public class NotificationOutbox {
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutbox.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final NotificationTransport transport;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final Duration retention;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public NotificationOutbox(OutboxMessageRepository outboxMessageRepository, NotificationTransport transport,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${notifications.batch-size:50}") int batchSize,
+                              @Value("${notifications.max-attempts:8}") int maxAttempts,
+                              @Value("${notifications.lease-seconds:300}") long leaseSeconds,
+                              @Value("${notifications.backoff-ms:1000}") long backoffMillis,
+                              @Value("${notifications.max-backoff-ms:900000}") long maxBackoffMillis,
+                              @Value("${notifications.retention-days:7}") long retentionDays) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.transport = transport;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    // Has to run inside the transaction of the write it announces, so both commit or neither does
+    public void enqueue(String kind, User user) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Notifications must be enqueued inside the writing transaction");
+        }
+        OutboxMessage message = new OutboxMessage();
+        message.setKind(kind);
+        message.setRecipient(user.getEmail());
+        switch (kind) {
+            case OutboxMessage.WELCOME -> {
+                message.setSubject("Welcome to ADPMX CRM");
+                message.setBody("Hello " + user.getUsername() + ",\n\nAn account has been created for you. "
+                    + "Sign in with " + user.getEmail() + " and the password your administrator gave you.\n");
+            }
+            case OutboxMessage.PASSWORD_CHANGED -> {
+                message.setSubject("Your password was changed");
+                message.setBody("Hello " + user.getUsername() + ",\n\nThe password of your account was just changed "
+                    + "and every other session was signed out. If this was not you, contact your administrator.\n");
+            }
+            default -> throw new IllegalArgumentException("Unknown notification: " + kind);
+        }
+        Instant now = Instant.now();
+        message.setStatus(OutboxMessage.PENDING);
+        message.setNextAttemptAt(now);
+        message.setCreatedAt(now);
+        outboxMessageRepository.save(message);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.poll-interval-ms:500}")
+    public void dispatch() {
+        try {
+            while (dispatchBatch() == batchSize) {
+                // A full batch means more may be due right away
+            }
+        } catch (RuntimeException e) {
+            log.warn("Notification dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    // Claims up to a batch of due messages, sends them and records the outcome; returns how many it claimed
+    public int dispatchBatch() {
+        // Claiming is its own short transaction: the row locks are gone before the transport is called,
+        // and the lease keeps other dispatchers away while it runs
+        List<OutboxMessage> batch = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxMessage> due = outboxMessageRepository.lockDueBatch(now, batchSize);
+            for (OutboxMessage message : due) {
+                message.setAttempts(message.getAttempts() + 1);
+                message.setNextAttemptAt(now.plus(lease));
+            }
+            return due;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, NotificationTransport.Failure> failures = transport.send(batch);
+        transactionTemplate.executeWithoutResult(status -> {
+            Instant now = Instant.now();
+            List<Long> delivered = new ArrayList<>(batch.size());
+            for (OutboxMessage message : batch) {
+                NotificationTransport.Failure failure = failures.get(message.getId());
+                if (failure == null) {
+                    delivered.add(message.getId());
+                } else if (failure.permanent() || message.getAttempts() >= maxAttempts) {
+                    outboxMessageRepository.markFailed(message.getId(), truncate(failure.reason()));
+                    failed.incrementAndGet();
+                    log.warn("Giving up on notification {} to {} after {} attempts: {}", message.getId(),
+                        message.getRecipient(), message.getAttempts(), failure.reason());
+                } else {
+                    outboxMessageRepository.scheduleRetry(message.getId(), now.plusMillis(backoff(message.getAttempts())),
+                        truncate(failure.reason()));
+                    retried.incrementAndGet();
+                }
+            }
+            if (!delivered.isEmpty()) {
+                outboxMessageRepository.markSent(delivered, now);
+                sent.addAndGet(delivered.size());
+            }
+        });
+        return batch.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Instant oldestPending = outboxMessageRepository.findOldestPendingCreatedAt();
+        stats.put("pending", outboxMessageRepository.countByStatus(OutboxMessage.PENDING));
+        stats.put("failed", outboxMessageRepository.countByStatus(OutboxMessage.FAILED));
+        stats.put("oldestPendingMs", oldestPending == null ? 0 : Duration.between(oldestPending, Instant.now()).toMillis());
+        stats.put("sentByThisNode", sent.get());
+        stats.put("retriedByThisNode", retried.get());
+        stats.put("failedByThisNode", failed.get());
+        return stats;
+    }
+
+    @Scheduled(cron = "${notifications.prune-cron:0 23 * * * *}")
+    public void prune() {
+        int deleted = outboxMessageRepository.deleteSentBefore(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Pruned {} sent notifications", deleted);
+        }
+    }
+
+    // Exponential, with jitter so messages that failed together do not all come back together
+    private long backoff(int attempts) {
+        long delay = Math.min(maxBackoffMillis, backoffMillis * (1L << Math.min(attempts - 1, 20)));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private static String truncate(String reason) {
+        return reason.length() <= 512 ? reason : reason.substring(0, 512);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.notification;
+
+import com.example.demo.model.OutboxMessage;
+
+import java.util.List;
+import java.util.Map;
+
+// How the outbox dispatcher hands notifications over. A transport is given a whole batch at a time so it
+// can reuse one connection for all of it.
+public interface NotificationTransport {
+    // Permanent failures are given up on; the rest are retried with backoff
+    record Failure(String reason, boolean permanent) {}
+
+    // Returns the messages that were not accepted, by id. Everything not in the result was handed over.
+    Map<Long, Failure> send(List<OutboxMessage> messages);
+}
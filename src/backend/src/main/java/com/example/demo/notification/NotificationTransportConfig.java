@@ -0,0 +1,20 @@
+package com.example.demo.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NotificationTransportConfig {
+    // Without an SMTP host, notifications are only logged
+    @Bean
+    public NotificationTransport notificationTransport(@Value("${notifications.smtp.host:}") String host,
+                                                       @Value("${notifications.smtp.port:25}") int port,
+                                                       @Value("${notifications.from:no-reply@adpmx.example}") String from,
+                                                       @Value("${notifications.smtp.timeout-ms:10000}") int timeoutMillis) {
+        if (host.isBlank()) {
+            return new LoggingNotificationTransport();
+        }
+        return new SmtpNotificationTransport(host, port, from, timeoutMillis);
+    }
+}
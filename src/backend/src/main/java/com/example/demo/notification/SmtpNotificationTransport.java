@@ -0,0 +1,142 @@
+package com.example.demo.notification;
+
+import com.example.demo.model.OutboxMessage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Plain SMTP, one connection per batch: each message is its own MAIL/RCPT/DATA transaction, and a refused
+// one is reset without dropping the connection. Every message carries a Message-ID derived from its outbox
+// id, so a resend after a lost acknowledgement can be recognised by the receiving side.
+public class SmtpNotificationTransport implements NotificationTransport {
+    private final String host;
+    private final int port;
+    private final String from;
+    private final int timeoutMillis;
+
+    private record Reply(int code, String text) {
+        boolean positive() {
+            return code >= 200 && code < 400;
+        }
+    }
+
+    public SmtpNotificationTransport(String host, int port, String from, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.from = from;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Map<Long, Failure> send(List<OutboxMessage> messages) {
+        Map<Long, Failure> failures = new HashMap<>();
+        int next = 0;
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            Reply greeting = read(in);
+            if (greeting.code() != 220) {
+                throw new IOException("Server greeted with " + greeting.code() + " " + greeting.text());
+            }
+            Reply helo = command(in, out, "EHLO " + domain(from));
+            if (!helo.positive()) {
+                throw new IOException("EHLO refused: " + helo.code() + " " + helo.text());
+            }
+            for (; next < messages.size(); next++) {
+                OutboxMessage message = messages.get(next);
+                Reply refused = transaction(in, out, message);
+                if (refused != null) {
+                    failures.put(message.getId(), new Failure(refused.code() + " " + refused.text(), refused.code() >= 500));
+                    command(in, out, "RSET");
+                }
+            }
+            command(in, out, "QUIT");
+        } catch (IOException e) {
+            // Whatever was not acknowledged yet is retried; the message in flight may arrive twice
+            for (int i = next; i < messages.size(); i++) {
+                failures.putIfAbsent(messages.get(i).getId(), new Failure(String.valueOf(e.getMessage()), false));
+            }
+        }
+        return failures;
+    }
+
+    // Returns the refusing reply, or null once the server has accepted the message
+    private Reply transaction(BufferedReader in, Writer out, OutboxMessage message) throws IOException {
+        String recipient = message.getRecipient();
+        // Addresses come from user input; anything that could end the command line is never sent
+        if (recipient.chars().anyMatch(c -> c == '\r' || c == '\n' || c == '<' || c == '>')) {
+            return new Reply(553, "Invalid recipient address");
+        }
+        Reply reply = command(in, out, "MAIL FROM:<" + from + ">");
+        if (!reply.positive()) {
+            return reply;
+        }
+        reply = command(in, out, "RCPT TO:<" + recipient + ">");
+        if (!reply.positive()) {
+            return reply;
+        }
+        reply = command(in, out, "DATA");
+        if (reply.code() != 354) {
+            return reply;
+        }
+        StringBuilder data = new StringBuilder();
+        data.append("Message-ID: <outbox-").append(message.getId()).append('@').append(domain(from)).append(">\r\n");
+        data.append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now())).append("\r\n");
+        data.append("From: ").append(from).append("\r\n");
+        data.append("To: ").append(recipient).append("\r\n");
+        data.append("Subject: ").append(message.getSubject().replaceAll("[\r\n]", " ")).append("\r\n");
+        data.append("MIME-Version: 1.0\r\n");
+        data.append("Content-Type: text/plain; charset=UTF-8\r\n");
+        data.append("Content-Transfer-Encoding: 8bit\r\n\r\n");
+        for (String line : message.getBody().split("\r?\n", -1)) {
+            // Dot-stuffing, so a line holding a single dot does not end the message early
+            data.append(line.startsWith(".") ? "." : "").append(line).append("\r\n");
+        }
+        data.append(".");
+        reply = command(in, out, data.toString());
+        return reply.positive() ? null : reply;
+    }
+
+    private static Reply command(BufferedReader in, Writer out, String line) throws IOException {
+        out.write(line);
+        out.write("\r\n");
+        out.flush();
+        return read(in);
+    }
+
+    // Multi-line replies repeat the code with a dash until the last line
+    private static Reply read(BufferedReader in) throws IOException {
+        while (true) {
+            String line = in.readLine();
+            if (line == null || line.length() < 3) {
+                throw new IOException("Connection closed by server");
+            }
+            if (line.length() == 3 || line.charAt(3) != '-') {
+                try {
+                    return new Reply(Integer.parseInt(line.substring(0, 3)), line.length() > 4 ? line.substring(4) : "");
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed reply: " + line);
+                }
+            }
+        }
+    }
+
+    private static String domain(String address) {
+        int at = address.indexOf('@');
+        return at < 0 ? "localhost" : address.substring(at + 1);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ChangeRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ChangeRecordRepository extends JpaRepository<ChangeRecord, Long> {
+    @Query("select max(c.id) from ChangeRecord c")
+    Long findMaxId();
+
+    @Query("select c from ChangeRecord c where c.id > :afterId order by c.id")
+    List<ChangeRecord> findBatchAfter(@Param("afterId") long afterId, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ChangeRecord c where c.createdAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
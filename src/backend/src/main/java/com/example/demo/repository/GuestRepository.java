@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Guest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.List;
+
+public interface GuestRepository extends JpaRepository<Guest, Long> {
+    @Query("select max(g.id) from Guest g")
+    Long findMaxId();
+
+    List<Guest> findAllByIdBetween(Long fromId, Long toId);
+}
@@ -0,0 +1,41 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.InboundBooking;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface InboundBookingRepository extends JpaRepository<InboundBooking, Long> {
+    @Query("select i from InboundBooking i where i.status = 'PENDING' and i.partitionNo = :partition order by i.id")
+    List<InboundBooking> findPending(@Param("partition") int partition, Limit limit);
+
+    // Waits for, rather than skips, rows another node is applying: skipping would let a later event for
+    // the same room overtake an earlier one
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from InboundBooking i where i.id in :ids and i.status = 'PENDING' order by i.id")
+    List<InboundBooking> lockPending(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update InboundBooking i set i.status = :status, i.lastError = :error, i.processedAt = :now where i.id in :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("status") String status, @Param("error") String error,
+                      @Param("now") Instant now);
+
+    long countByStatus(String status);
+
+    @Query("select min(i.receivedAt) from InboundBooking i where i.status = 'PENDING'")
+    Instant findOldestPendingReceivedAt();
+
+    @Transactional
+    @Modifying
+    @Query("delete from InboundBooking i where i.status <> 'PENDING' and i.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,42 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    // Rows another dispatcher has locked are skipped rather than waited on, so nodes polling at the same
+    // time each get a different batch
+    @Query(value = "select * from notification_outbox where status = 'PENDING' and next_attempt_at <= :now "
+        + "order by next_attempt_at, id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxMessage> lockDueBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update OutboxMessage o set o.status = 'SENT', o.sentAt = :now, o.lastError = null where o.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update OutboxMessage o set o.nextAttemptAt = :nextAttemptAt, o.lastError = :error where o.id = :id")
+    int scheduleRetry(@Param("id") long id, @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+
+    @Modifying
+    @Query("update OutboxMessage o set o.status = 'FAILED', o.lastError = :error where o.id = :id")
+    int markFailed(@Param("id") long id, @Param("error") String error);
+
+    long countByStatus(String status);
+
+    @Query("select min(o.createdAt) from OutboxMessage o where o.status = 'PENDING'")
+    Instant findOldestPendingCreatedAt();
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMessage o where o.status = 'SENT' and o.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+}
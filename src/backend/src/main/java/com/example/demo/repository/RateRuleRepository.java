@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.RateRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RateRuleRepository extends JpaRepository<RateRule, Long> {
+}
@@ -0,0 +1,35 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Reservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    @Query("select r from Reservation r where r.checkIn < :to and r.checkOut > :from order by r.checkIn")
+    List<Reservation> findOverlapping(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Only the columns the availability index needs, without loading rooms and guests
+    @Query("select r.room.id as roomId, r.checkIn as checkIn, r.checkOut as checkOut from Reservation r "
+        + "where r.status = 'CONFIRMED' and r.checkOut > :from")
+    List<BookingSpan> findConfirmedSpansEndingAfter(@Param("from") LocalDate from);
+
+    @Query("select r.room.id as roomId, r.checkIn as checkIn, r.checkOut as checkOut from Reservation r "
+        + "where r.room.id = :roomId and r.status = 'CONFIRMED' and r.checkOut > :from")
+    List<BookingSpan> findConfirmedSpansForRoom(@Param("roomId") Long roomId, @Param("from") LocalDate from);
+
+    @Query("select r.room.id as roomId, r.checkIn as checkIn, r.checkOut as checkOut from Reservation r "
+        + "where r.room.id in :roomIds and r.status = 'CONFIRMED' and r.checkOut > :from")
+    List<BookingSpan> findConfirmedSpansForRooms(@Param("roomIds") Collection<Long> roomIds, @Param("from") LocalDate from);
+
+    List<Reservation> findAllByExternalRefIn(Collection<String> externalRefs);
+
+    interface BookingSpan {
+        Long getRoomId();
+        LocalDate getCheckIn();
+        LocalDate getCheckOut();
+    }
+}
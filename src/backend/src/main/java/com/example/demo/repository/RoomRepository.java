@@ -0,0 +1,33 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Room;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface RoomRepository extends JpaRepository<Room, Long> {
+    Optional<Room> findByNumber(String number);
+
+    long countByType(String type);
+
+    List<Room> findAllByType(String type);
+
+    @Query("select distinct r.type from Room r")
+    List<String> findDistinctTypes();
+
+    // No row or table lock: the version is bumped at commit and a concurrent bump fails the transaction
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select r from Room r where r.id = :id")
+    Optional<Room> findForBookingChange(@Param("id") Long id);
+
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select r from Room r where r.id in :ids")
+    List<Room> findAllForBookingChange(@Param("ids") Collection<Long> ids);
+
+    List<Room> findAllByNumberIn(Collection<String> numbers);
+}
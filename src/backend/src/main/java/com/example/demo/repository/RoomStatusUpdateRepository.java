@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.RoomStatusUpdate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface RoomStatusUpdateRepository extends JpaRepository<RoomStatusUpdate, Long> {
+    @Query("select u from RoomStatusUpdate u where u.id in (select max(x.id) from RoomStatusUpdate x group by x.roomId)")
+    List<RoomStatusUpdate> findLatestPerRoom();
+}
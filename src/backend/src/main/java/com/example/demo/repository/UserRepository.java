@@ -2,13 +2,53 @@ package com.example.demo.repository;
 
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface UserRepository extends JpaRepository<User, UUID> {
-    Optional<User> findByUsername(String username);
-    Optional<User> findByEmail(String email);
+// Every query names its tenant: users of one property are never visible to, or changed by, another
+public interface UserRepository extends JpaRepository<User, UUID>, UserRepositoryCustom {
+    // Read-only like the findById it replaced, so the per-request user lookup can be served by a replica
+    @Transactional(readOnly = true)
+    Optional<User> findByTenantIdAndId(String tenantId, UUID id);
+    Optional<User> findByTenantIdAndUsername(String tenantId, String username);
+    Optional<User> findByTenantIdAndEmail(String tenantId, String email);
+
+    List<User> findAllByTenantId(String tenantId);
+    List<User> findAllByTenantIdAndRoles_Name(String tenantId, String roleName);
+
+    long countByTenantIdAndIdIn(String tenantId, Collection<UUID> ids);
+
+    // Set-based role membership: each statement touches one chunk of ids and only the rows that change.
+    // The version bumps run before the membership change they describe, while the NOT EXISTS / EXISTS
+    // still tells which users are affected.
+    @Modifying
+    @Query(value = "update users set version = version + 1 where tenant_id = :tenantId and id in (:ids) and not exists "
+        + "(select 1 from user_roles_map m where m.user_id = users.id and m.role_id = :roleId)", nativeQuery = true)
+    int bumpVersionOfNonMembers(@Param("tenantId") String tenantId, @Param("roleId") long roleId, @Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query(value = "insert into user_roles_map (user_id, role_id) select u.id, :roleId from users u where u.tenant_id = :tenantId "
+        + "and u.id in (:ids) and not exists (select 1 from user_roles_map m where m.user_id = u.id and m.role_id = :roleId)",
+        nativeQuery = true)
+    int addRoleToUsers(@Param("tenantId") String tenantId, @Param("roleId") long roleId, @Param("ids") Collection<UUID> ids);
+
+    // Also ends the members' sessions, like a password change does
+    @Modifying
+    @Query(value = "update users set version = version + 1, last_session = :now where tenant_id = :tenantId and id in (:ids) "
+        + "and exists (select 1 from user_roles_map m where m.user_id = users.id and m.role_id = :roleId)", nativeQuery = true)
+    int bumpVersionOfMembers(@Param("tenantId") String tenantId, @Param("roleId") long roleId, @Param("ids") Collection<UUID> ids,
+                             @Param("now") Instant now);
 
-    List<User> findAllByRoles_Name(String roleName);
-} 
\ No newline at end of file
+    @Modifying
+    @Query(value = "delete from user_roles_map where role_id = :roleId and user_id in "
+        + "(select u.id from users u where u.tenant_id = :tenantId and u.id in (:ids))", nativeQuery = true)
+    int removeRoleFromUsers(@Param("tenantId") String tenantId, @Param("roleId") long roleId, @Param("ids") Collection<UUID> ids);
+}
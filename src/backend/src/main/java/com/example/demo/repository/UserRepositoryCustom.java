@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UserFields;
+
+import java.util.List;
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+    List<Map<String, Object>> findFieldsByTenantId(String tenantId, UserFields fields);
+}
@@ -0,0 +1,69 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UserFields;
+import com.example.demo.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+// Reads only the columns a fieldset needs, as tuples rather than entities, so the eager roles mapping never
+// kicks in. Roles, when asked for, come from one join over the whole tenant instead of a select per user.
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Read-only like the inherited finders, so it may go to a replica
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findFieldsByTenantId(String tenantId, UserFields fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        // The id is always read, to attach roles to, even when it is not returned
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(user.get("id").alias("id"));
+        for (String name : fields.names()) {
+            if (!name.equals("id") && !name.equals("roles")) {
+                selections.add(user.get(name).alias(name));
+            }
+        }
+        query.multiselect(selections).where(cb.equal(user.get("tenantId"), tenantId));
+
+        Map<UUID, Map<String, Object>> rows = new LinkedHashMap<>();
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String name : fields.names()) {
+                row.put(name, name.equals("roles") ? new TreeSet<String>() : tuple.get(name));
+            }
+            rows.put(tuple.get("id", UUID.class), row);
+        }
+        if (fields.has("roles") && !rows.isEmpty()) {
+            List<Object[]> memberships = entityManager.createQuery(
+                    "select u.id, r.name from User u join u.roles r where u.tenantId = :tenantId", Object[].class)
+                .setParameter("tenantId", tenantId)
+                .getResultList();
+            for (Object[] membership : memberships) {
+                Map<String, Object> row = rows.get((UUID) membership[0]);
+                if (row != null) {
+                    @SuppressWarnings("unchecked")
+                    Set<String> roles = (Set<String>) row.get("roles");
+                    roles.add((String) membership[1]);
+                }
+            }
+        }
+        return new ArrayList<>(rows.values());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.demo.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Caps requests in flight with a limit that follows latency (a gradient limiter): every sampling window
+// compares the window's average latency with a baseline of the fastest recent windows. While latency stays
+// within the tolerance the limit grows by about its square root; beyond it the limit shrinks in proportion,
+// so requests are turned away before threads pile up behind a slow database.
+// Lanes share the in-flight count but may only fill part of the limit, so low priority work sheds first.
+@Component
+public class AdaptiveConcurrencyLimiter {
+    public enum Lane {
+        // Login, token refresh and the current user's profile
+        HIGH(1.0),
+        NORMAL(0.9),
+        // Whole-table admin reads and exports
+        LOW(0.5);
+
+        private final double share;
+
+        Lane(double share) {
+            this.share = share;
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final long windowNanos;
+    private final int windowMinSamples;
+    private final int longWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong[] accepted = new AtomicLong[Lane.values().length];
+    private final AtomicLong[] rejected = new AtomicLong[Lane.values().length];
+    private volatile double limit;
+
+    // Guarded by this
+    private double longRttNanos;
+    private long longSamples;
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private double lastShortRttNanos;
+
+    public AdaptiveConcurrencyLimiter(@Value("${concurrency-limit.initial:50}") int initialLimit,
+                                      @Value("${concurrency-limit.min:8}") int minLimit,
+                                      @Value("${concurrency-limit.max:400}") int maxLimit,
+                                      @Value("${concurrency-limit.smoothing:0.2}") double smoothing,
+                                      @Value("${concurrency-limit.tolerance:1.5}") double tolerance,
+                                      @Value("${concurrency-limit.window-ms:250}") long windowMillis,
+                                      @Value("${concurrency-limit.window-min-samples:10}") int windowMinSamples,
+                                      @Value("${concurrency-limit.baseline-windows:600}") int longWindow) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.windowNanos = windowMillis * 1_000_000;
+        this.windowMinSamples = windowMinSamples;
+        this.longWindow = longWindow;
+        for (int i = 0; i < accepted.length; i++) {
+            accepted[i] = new AtomicLong();
+            rejected[i] = new AtomicLong();
+        }
+    }
+
+    // Never waits: the caller either gets a slot, which it must release, or is told to shed the request
+    public boolean tryAcquire(Lane lane) {
+        int cap = Math.max(1, (int) (limit * lane.share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= cap) {
+                rejected[lane.ordinal()].incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted[lane.ordinal()].incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    // rttNanos is negative for requests that should not feed the latency estimate
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (rttNanos >= 0) {
+            onSample(rttNanos, inFlightBefore);
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightBefore) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos || windowSamples < windowMinSamples) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        lastShortRttNanos = shortRtt;
+
+        // The baseline follows the fastest window seen. It only drifts up (over about longWindow windows)
+        // while the limit sits at its floor: with so little in flight the extra latency is not queueing
+        // we cause, so a database that stays slow eventually becomes the new normal
+        double current = limit;
+        if (longSamples++ == 0 || shortRtt < longRttNanos) {
+            longRttNanos = shortRtt;
+        } else if (current < minLimit + 1) {
+            longRttNanos += (shortRtt - longRttNanos) / longWindow;
+        }
+        // Only grow while the limit is actually being used, otherwise idle periods would inflate it
+        if (maxInFlight < current / 2 && shortRtt <= longRttNanos * tolerance) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", (int) limit);
+        stats.put("inFlight", inFlight.get());
+        stats.put("baselineLatencyMs", longRttNanos / 1e6);
+        stats.put("recentLatencyMs", lastShortRttNanos / 1e6);
+        Map<String, Object> lanes = new LinkedHashMap<>();
+        for (Lane lane : Lane.values()) {
+            Map<String, Object> laneStats = new LinkedHashMap<>();
+            laneStats.put("limit", Math.max(1, (int) (limit * lane.share)));
+            laneStats.put("accepted", accepted[lane.ordinal()].get());
+            laneStats.put("rejected", rejected[lane.ordinal()].get());
+            lanes.put(lane.name().toLowerCase(), laneStats);
+        }
+        stats.put("lanes", lanes);
+        return stats;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.security;
+
+import com.example.demo.security.AdaptiveConcurrencyLimiter.Lane;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Sheds requests with 503 once the adaptive limit is reached, before authentication touches the database
+@Component
+public class ConcurrencyLimitFilter implements Filter {
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String path = httpRequest.getRequestURI();
+        // Event streams stay open for minutes and would hold a slot the whole time
+        if (!enabled || path.startsWith("/api/v1/events")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Lane lane = laneOf(httpRequest.getMethod(), path);
+        if (!limiter.tryAcquire(lane)) {
+            HttpServletResponse httpResp = (HttpServletResponse) response;
+            httpResp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            httpResp.setHeader("Retry-After", "1");
+            httpResp.setContentType("application/json");
+            Map<String, Object> errorResponse = new LinkedHashMap<>();
+            errorResponse.put("status", "fail");
+            errorResponse.put("message", "Server is busy, please retry shortly");
+            httpResp.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Long admin reads would drag the latency baseline up, so only the other lanes are sampled
+            limiter.release(lane == Lane.LOW ? -1 : System.nanoTime() - start);
+        }
+    }
+
+    static Lane laneOf(String method, String path) {
+        if (path.startsWith("/api/v1/auth/") || path.startsWith("/api/v1/users/me")) {
+            return Lane.HIGH;
+        }
+        if (("GET".equals(method) && path.equals("/api/v1/users")) || path.contains("/export")) {
+            return Lane.LOW;
+        }
+        return Lane.NORMAL;
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.demo.security;
+
+import com.example.demo.service.IdempotencyStore;
+import com.example.demo.service.IdempotencyStore.RecordedResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Runs a mutating request at most once per token subject and Idempotency-Key: retries replay the recorded
+// response without reaching the controller, and a retry that arrives while the first attempt is
+// still running waits for its result. Responses are replayed verbatim: the access and refresh tokens a
+// profile or password change returns, in the body and the cookies, are kept in memory and served to
+// retries for as long as the key is (idempotency.ttl-seconds, 24 hours), by which time the access token
+// may have expired.
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    private static final Set<String> IDEMPOTENT_ENDPOINTS = Set.of(
+        "POST /api/v1/users",
+        "PATCH /api/v1/users/me",
+        "PATCH /api/v1/users/me/password"
+    );
+    private static final Set<String> UNRECORDED_HEADERS = Set.of("content-length", "transfer-encoding", "date", "connection");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${idempotency.max-body-bytes:65536}")
+    private int maxBodyBytes;
+
+    @Value("${idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, JwtUtil jwtUtil) {
+        this.idempotencyStore = idempotencyStore;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getHeader(HEADER) == null
+            || !IDEMPOTENT_ENDPOINTS.contains(request.getMethod() + " " + request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(
+        @NonNull HttpServletRequest request,
+        @NonNull HttpServletResponse response,
+        @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        // Keys are scoped to the token's subject rather than the authenticated user: a password change
+        // retires the token it was sent with, and its retry must still find the recorded response
+        String authHeader = request.getHeader("Authorization");
+        String jwt = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        if (jwt == null || !jwtUtil.validateToken(jwt)) {
+            // Unauthenticated requests are rejected further down the chain
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String idempotencyKey = request.getHeader(HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeFail(response, HttpServletResponse.SC_BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            writeFail(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body is too large");
+            return;
+        }
+        String tenantId = jwtUtil.extractTenantId(jwt);
+        String key = jwtUtil.extractUserId(jwt) + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request, body);
+        while (true) {
+            IdempotencyStore.Claim claim = idempotencyStore.claim(tenantId, key, fingerprint);
+            IdempotencyStore.Entry entry = claim.entry();
+            if (!entry.getFingerprint().equals(fingerprint)) {
+                writeFail(response, 422, HEADER + " was already used for a different request");
+                return;
+            }
+            if (claim.owner()) {
+                execute(new CachedBodyRequest(request, body), response, filterChain, tenantId, key, entry);
+                return;
+            }
+            RecordedResponse recorded;
+            try {
+                recorded = entry.getResponse().get(waitSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                writeFail(response, HttpServletResponse.SC_CONFLICT, "A request with this " + HEADER + " is still being processed");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            } catch (ExecutionException e) {
+                throw new ServletException(e.getCause());
+            }
+            if (recorded != null) {
+                replay(recorded, response);
+                return;
+            }
+            // The first attempt failed without a response worth keeping; claim the key again
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String tenantId, String key, IdempotencyStore.Entry entry) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean recorded = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            int status = wrapper.getStatus();
+            byte[] content = wrapper.getContentAsByteArray();
+            // Server errors are not replayed, the client is expected to retry them
+            if (status < 500 && content.length <= maxBodyBytes) {
+                Map<String, List<String>> headers = new LinkedHashMap<>();
+                for (String name : wrapper.getHeaderNames()) {
+                    if (!UNRECORDED_HEADERS.contains(name.toLowerCase())) {
+                        headers.put(name, new ArrayList<>(wrapper.getHeaders(name)));
+                    }
+                }
+                if (wrapper.getContentType() != null) {
+                    headers.put("Content-Type", List.of(wrapper.getContentType()));
+                }
+                idempotencyStore.complete(entry, new RecordedResponse(status, headers, content));
+                recorded = true;
+            }
+            wrapper.copyBodyToResponse();
+        } finally {
+            if (!recorded) {
+                idempotencyStore.abandon(tenantId, key, entry);
+            }
+        }
+    }
+
+    private static void replay(RecordedResponse recorded, HttpServletResponse response) throws IOException {
+        response.setStatus(recorded.status());
+        for (Map.Entry<String, List<String>> header : recorded.headers().entrySet()) {
+            boolean first = true;
+            for (String value : header.getValue()) {
+                if (first) {
+                    response.setHeader(header.getKey(), value);
+                    first = false;
+                } else {
+                    response.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        response.setHeader("Idempotent-Replayed", "true");
+        response.setContentLength(recorded.body().length);
+        response.getOutputStream().write(recorded.body());
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "?" + request.getQueryString() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeFail(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", message);
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+
+    // Lets the fingerprinted body be read again by the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.security;
 
+import com.example.demo.config.ReadYourWrites;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +27,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ReadYourWrites readYourWrites;
 
     @Override
     protected void doFilterInternal(
@@ -46,7 +49,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
                 UUID uuid = UUID.fromString(userId);
-                Optional<User> userOpt = userRepository.findById(uuid);
+                // Someone who just wrote reads their own user from the primary, not a lagging replica
+                readYourWrites.bindUser(uuid);
+                // A token only signs its holder in to the tenant it was issued for
+                Optional<User> userOpt = userRepository.findByTenantIdAndId(jwtUtil.extractTenantId(jwt), uuid);
                 if (userOpt.isPresent() && jwtUtil.validateToken(jwt)) {
                     User user = userOpt.get();
                     // Check JWT iat vs user.lastSession
@@ -11,6 +11,8 @@ import java.util.function.Function;
 
 @Component
 public class JwtUtil {
+    public static final String TENANT_CLAIM = "tid";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
     @Value("${jwt.expiration.seconds:900}")
@@ -31,18 +33,20 @@ public class JwtUtil {
         return new Date(System.currentTimeMillis() + refreshTokenExpirationSeconds * 1000L); // 7 days
     }
 
-    public String generateToken(String userId) {
+    public String generateToken(String userId, String tenantId) {
         return Jwts.builder()
                 .subject(userId)
+                .claim(TENANT_CLAIM, tenantId)
                 .issuedAt(new Date())
                 .expiration(calculateAccessTokenExpirationDate())
                 .signWith(getSigningKey())
                 .compact();
     }
 
-    public String generateRefreshToken(String userId) {
+    public String generateRefreshToken(String userId, String tenantId) {
         return Jwts.builder()
                 .subject(userId)
+                .claim(TENANT_CLAIM, tenantId)
                 .issuedAt(new Date())
                 .expiration(calculateRefreshTokenExpirationDate())
                 .signWith(getSigningKey())
@@ -62,6 +66,12 @@ public class JwtUtil {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // Tokens issued before tenancy carry no tenant and belong to the default one
+    public String extractTenantId(String token) {
+        String tenantId = extractClaim(token, claims -> claims.get(TENANT_CLAIM, String.class));
+        return tenantId != null ? tenantId : TenantContext.DEFAULT;
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
         return claimsResolver.apply(claims);
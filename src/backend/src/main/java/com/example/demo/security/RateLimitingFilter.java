@@ -11,6 +11,7 @@ import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -24,30 +25,50 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class RateLimitingFilter implements Filter {
     private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
 
+    @Value("${rate.limit.requests-per-minute:20}")
+    private int requestsPerMinute;
+
     @SuppressWarnings("deprecation")
     private Bucket resolveBucket(String key) {
         return buckets.computeIfAbsent(key, k -> Bucket4j.builder()
-                .addLimit(Bandwidth.classic(20, Refill.greedy(20, Duration.ofMinutes(1))))
+                .addLimit(Bandwidth.classic(requestsPerMinute, Refill.greedy(requestsPerMinute, Duration.ofMinutes(1))))
                 .build());
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
-        String ip = ((HttpServletRequest) request).getRemoteAddr();
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String ip = httpRequest.getRemoteAddr();
         Bucket bucket = resolveBucket(ip);
-
+        // A channel manager sends whole flash sales from a handful of addresses, so signed deliveries are bounded
+        // by the booking queue's capacity instead. Only the ones that fail the signature check use up the
+        // address's bucket, and an address that has used it up is refused before its body is read.
+        if (httpRequest.getRequestURI().startsWith("/api/v1/channel/")) {
+            if (bucket.getAvailableTokens() < 1) {
+                reject((HttpServletResponse) response);
+                return;
+            }
+            chain.doFilter(request, response);
+            if (((HttpServletResponse) response).getStatus() == HttpServletResponse.SC_UNAUTHORIZED) {
+                bucket.tryConsume(1);
+            }
+            return;
+        }
         if (bucket.tryConsume(1)) {
             chain.doFilter(request, response);
         } else {
-            HttpServletResponse httpResp = (HttpServletResponse) response;
-            httpResp.setStatus(429);
-            httpResp.setContentType("application/json");
-            Map<String, Object> errorResponse = new LinkedHashMap<>();
-            errorResponse.put("status", "fail");
-            errorResponse.put("message", "Too Many Requests");
-            ObjectMapper mapper = new ObjectMapper();
-            httpResp.getWriter().write(mapper.writeValueAsString(errorResponse));
+            reject((HttpServletResponse) response);
         }
     }
-} 
\ No newline at end of file
+
+    private void reject(HttpServletResponse httpResp) throws IOException {
+        httpResp.setStatus(429);
+        httpResp.setContentType("application/json");
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", "Too Many Requests");
+        ObjectMapper mapper = new ObjectMapper();
+        httpResp.getWriter().write(mapper.writeValueAsString(errorResponse));
+    }
+}
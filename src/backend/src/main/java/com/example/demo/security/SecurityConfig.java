@@ -10,7 +10,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.core.Ordered;
+import jakarta.servlet.DispatcherType;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -18,6 +21,10 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     @Autowired
+    private TenantQuotaFilter tenantQuotaFilter;
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+    @Autowired
     private CustomAccessDeniedHandler customAccessDeniedHandler;
     @Autowired
     private CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
@@ -32,17 +39,35 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // The request was already authorized; async dispatches only finish streaming responses
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/v1/auth/**").permitAll()
+                // Channel manager deliveries are authenticated by their signature, see ChannelController
+                .requestMatchers("/api/v1/channel/**").permitAll()
                 .anyRequest().authenticated()
             )
             .exceptionHandling(exception -> exception
                 .accessDeniedHandler(customAccessDeniedHandler)
                 .authenticationEntryPoint(customAuthenticationEntryPoint)
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Needs the tenant the JWT filter established
+            .addFilterAfter(tenantQuotaFilter, JwtAuthenticationFilter.class)
+            // Runs right after that so retries are replayed before reaching any controller
+            .addFilterAfter(idempotencyFilter, TenantQuotaFilter.class);
         return http.build();
     }
 
+    @Bean
+    public FilterRegistrationBean<CorrelationIdFilter> correlationIdFilterRegistration(CorrelationIdFilter filter) {
+        FilterRegistrationBean<CorrelationIdFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(filter);
+        registrationBean.addUrlPatterns("/*");
+        // Ahead of everything, rate limiting included, so even rejected requests are logged with an id
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registrationBean;
+    }
+
     @Bean
     public FilterRegistrationBean<RateLimitingFilter> rateLimitingFilterRegistration(RateLimitingFilter filter) {
         FilterRegistrationBean<RateLimitingFilter> registrationBean = new FilterRegistrationBean<>();
@@ -51,4 +76,14 @@ public class SecurityConfig {
         registrationBean.setOrder(0); // Run before other filters
         return registrationBean;
     }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ConcurrencyLimitFilter filter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(filter);
+        registrationBean.addUrlPatterns("/*");
+        // Ahead of the Spring Security chain, whose JWT filter loads the user from the database
+        registrationBean.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registrationBean;
+    }
 } 
\ No newline at end of file
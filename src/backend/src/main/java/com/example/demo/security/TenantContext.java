@@ -0,0 +1,29 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.regex.Pattern;
+
+// Every property on the deployment is a tenant. A request's tenant is the one in its token's claims, which
+// JwtAuthenticationFilter only accepts when it matches the user the token was issued to.
+public final class TenantContext {
+    // Tenant of everything that existed before tenancy, and of work done outside a request
+    public static final String DEFAULT = "default";
+    public static final Pattern ID = Pattern.compile("[a-z0-9-]{1,32}");
+
+    private TenantContext() {}
+
+    public static String current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user.getTenantId();
+        }
+        return DEFAULT;
+    }
+
+    public static boolean isValid(String tenantId) {
+        return tenantId != null && ID.matcher(tenantId).matches();
+    }
+}
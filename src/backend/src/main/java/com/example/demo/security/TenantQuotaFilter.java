@@ -0,0 +1,63 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Bucket4j;
+import io.github.bucket4j.Refill;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A request quota per tenant on top of the per-address one in RateLimitingFilter, so one busy property
+// cannot use up the capacity the others share. Runs once the JWT filter has established the tenant;
+// unauthenticated requests are rejected further down the chain and are not counted.
+@Component
+public class TenantQuotaFilter extends OncePerRequestFilter {
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${rate.limit.tenant-requests-per-minute:6000}")
+    private int requestsPerMinute;
+
+    @SuppressWarnings("deprecation")
+    private Bucket resolveBucket(String tenantId) {
+        return buckets.computeIfAbsent(tenantId, k -> Bucket4j.builder()
+                .addLimit(Bandwidth.classic(requestsPerMinute, Refill.greedy(requestsPerMinute, Duration.ofMinutes(1))))
+                .build());
+    }
+
+    @Override
+    protected void doFilterInternal(
+        @NonNull HttpServletRequest request,
+        @NonNull HttpServletResponse response,
+        @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)
+                || resolveBucket(user.getTenantId()).tryConsume(1)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(429);
+        response.setContentType("application/json");
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("status", "fail");
+        errorResponse.put("message", "Too Many Requests for this tenant");
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+}
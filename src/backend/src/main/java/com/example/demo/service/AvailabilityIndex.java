@@ -0,0 +1,176 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ReservationRepository.BookingSpan;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Component
+public class AvailabilityIndex {
+    // Day 0 of every room calendar; one bit per night, set when the night is booked
+    public static final LocalDate ORIGIN = LocalDate.of(2020, 1, 1);
+
+    private final Map<Long, RoomCalendar> rooms = new ConcurrentHashMap<>();
+    private final Map<String, List<RoomCalendar>> roomsByType = new ConcurrentHashMap<>();
+    private final Map<String, Occupancy> occupancyByType = new ConcurrentHashMap<>();
+
+    public void addRoom(long roomId, String type) {
+        rooms.computeIfAbsent(roomId, id -> {
+            RoomCalendar calendar = new RoomCalendar(id, occupancyByType.computeIfAbsent(type, t -> new Occupancy()));
+            roomsByType.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(calendar);
+            return calendar;
+        });
+    }
+
+    public boolean hasRoom(long roomId) {
+        return rooms.containsKey(roomId);
+    }
+
+    public void clear() {
+        rooms.clear();
+        roomsByType.clear();
+        occupancyByType.clear();
+    }
+
+    public void book(long roomId, LocalDate checkIn, LocalDate checkOut) {
+        RoomCalendar calendar = calendar(roomId);
+        synchronized (calendar) {
+            calendar.set(day(checkIn), day(checkOut));
+        }
+    }
+
+    public void release(long roomId, LocalDate checkIn, LocalDate checkOut) {
+        RoomCalendar calendar = calendar(roomId);
+        synchronized (calendar) {
+            calendar.clear(day(checkIn), day(checkOut));
+        }
+    }
+
+    // The room version the calendar reflects; a different version in the database means another node changed it
+    public long syncedVersion(long roomId) {
+        RoomCalendar calendar = calendar(roomId);
+        synchronized (calendar) {
+            return calendar.syncedVersion;
+        }
+    }
+
+    public void markSynced(long roomId, long version) {
+        RoomCalendar calendar = calendar(roomId);
+        synchronized (calendar) {
+            calendar.syncedVersion = version;
+        }
+    }
+
+    public void resync(long roomId, List<BookingSpan> spans, long version) {
+        RoomCalendar calendar = calendar(roomId);
+        synchronized (calendar) {
+            calendar.clear(0, calendar.nights.length());
+            for (BookingSpan span : spans) {
+                calendar.set(day(span.getCheckIn()), day(span.getCheckOut()));
+            }
+            calendar.syncedVersion = version;
+        }
+    }
+
+    public boolean isFree(long roomId, LocalDate checkIn, LocalDate checkOut) {
+        return calendar(roomId).isFree(day(checkIn), day(checkOut));
+    }
+
+    public List<Long> freeRooms(String type, LocalDate checkIn, LocalDate checkOut) {
+        int from = day(checkIn);
+        int to = day(checkOut);
+        List<Long> free = new ArrayList<>();
+        for (RoomCalendar calendar : roomsByType.getOrDefault(type, List.of())) {
+            if (calendar.isFree(from, to)) {
+                free.add(calendar.roomId);
+            }
+        }
+        return free;
+    }
+
+    public int roomCount(String type) {
+        return roomsByType.getOrDefault(type, List.of()).size();
+    }
+
+    // Booked rooms of the type for each night of the range, read from running counters rather than the calendars
+    public int[] bookedRooms(String type, LocalDate checkIn, LocalDate checkOut) {
+        int from = day(checkIn);
+        int to = day(checkOut);
+        Occupancy occupancy = occupancyByType.get(type);
+        return occupancy == null ? new int[to - from] : occupancy.read(from, to);
+    }
+
+    private RoomCalendar calendar(long roomId) {
+        RoomCalendar calendar = rooms.get(roomId);
+        if (calendar == null) {
+            throw new IllegalArgumentException("Unknown room: " + roomId);
+        }
+        return calendar;
+    }
+
+    static int day(LocalDate date) {
+        long day = date.toEpochDay() - ORIGIN.toEpochDay();
+        if (day < 0 || day > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Date out of range: " + date);
+        }
+        return (int) day;
+    }
+
+    private static final class RoomCalendar {
+        private final long roomId;
+        private final Occupancy occupancy;
+        private final BitSet nights = new BitSet();
+        private long syncedVersion = -1;
+
+        private RoomCalendar(long roomId, Occupancy occupancy) {
+            this.roomId = roomId;
+            this.occupancy = occupancy;
+        }
+
+        // Callers hold the calendar's monitor; only nights that actually flip are counted
+        private void set(int from, int to) {
+            for (int night = nights.nextClearBit(from); night < to; night = nights.nextClearBit(night + 1)) {
+                occupancy.add(night, 1);
+            }
+            nights.set(from, to);
+        }
+
+        private void clear(int from, int to) {
+            for (int night = nights.nextSetBit(from); night >= 0 && night < to; night = nights.nextSetBit(night + 1)) {
+                occupancy.add(night, -1);
+            }
+            nights.clear(from, to);
+        }
+
+        private synchronized boolean isFree(int from, int to) {
+            int next = nights.nextSetBit(from);
+            return next < 0 || next >= to;
+        }
+    }
+
+    private static final class Occupancy {
+        private int[] booked = new int[4096];
+
+        private synchronized void add(int night, int delta) {
+            if (night >= booked.length) {
+                booked = Arrays.copyOf(booked, Math.max(night + 1, booked.length * 2));
+            }
+            booked[night] += delta;
+        }
+
+        private synchronized int[] read(int from, int to) {
+            int[] counts = new int[to - from];
+            if (from < booked.length) {
+                System.arraycopy(booked, from, counts, 0, Math.min(to, booked.length) - from);
+            }
+            return counts;
+        }
+    }
+}
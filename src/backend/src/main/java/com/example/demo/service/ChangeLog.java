@@ -0,0 +1,244 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ChangeRecord;
+import com.example.demo.repository.ChangeRecordRepository;
+import com.example.demo.security.TenantContext;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Invalidation bus between nodes without a broker: writers append a record in their own transaction and
+// every node tails the change_log table by id, handing new records to the local subscribers.
+// The writing node applies its records right after commit instead of waiting for its own poll.
+@Service
+public class ChangeLog {
+    private static final Logger log = LoggerFactory.getLogger(ChangeLog.class);
+
+    private final ChangeRecordRepository changeRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<List<ChangeRecord>>>> subscribers = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long maxLagMillis;
+    private final long gapTimeoutMillis;
+    private final Duration retention;
+
+    // Keeps polls from overlapping without making getStats wait for the database
+    private final ReentrantLock polling = new ReentrantLock();
+    // Written only by the poll holding polling, and under this so getStats sees them together. Every id up
+    // to cursor has been handled; above it, up to highWater, only the ids in handledAboveCursor have. Ids are
+    // taken at insert but become visible at commit, so a slow transaction leaves a gap that is watched until
+    // it fills or times out (ids of rolled back inserts never fill).
+    private long cursor;
+    private long highWater;
+    private final Set<Long> handledAboveCursor = new HashSet<>();
+    private long gapSince;
+
+    private volatile long caughtUpAt = System.currentTimeMillis();
+
+    public ChangeLog(ChangeRecordRepository changeRecordRepository, PlatformTransactionManager transactionManager,
+                     @Value("${change-log.batch-size:500}") int batchSize,
+                     @Value("${change-log.max-lag-ms:2000}") long maxLagMillis,
+                     @Value("${change-log.gap-timeout-ms:30000}") long gapTimeoutMillis,
+                     @Value("${change-log.retention-hours:24}") long retentionHours) {
+        this.changeRecordRepository = changeRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxLagMillis = maxLagMillis;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    // A starting node has nothing cached yet, so it only needs the changes from here on
+    @PostConstruct
+    public synchronized void start() {
+        Long maxId = changeRecordRepository.findMaxId();
+        cursor = maxId == null ? 0 : maxId;
+        highWater = cursor;
+    }
+
+    public void subscribe(String entity, Consumer<List<ChangeRecord>> subscriber) {
+        subscribers.computeIfAbsent(entity, e -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    public void append(String entity, String key) {
+        append(entity, TenantContext.DEFAULT, key);
+    }
+
+    // Has to run inside the transaction of the write it describes, so both commit or neither does
+    public void append(String entity, String tenantId, String key) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Change records must be appended inside the writing transaction");
+        }
+        ChangeRecord record = new ChangeRecord();
+        record.setEntity(entity);
+        record.setTenantId(tenantId);
+        record.setEntityKey(key);
+        record.setOriginNode(nodeId);
+        record.setCreatedAt(Instant.now());
+        changeRecordRepository.save(record);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(List.of(record));
+            }
+        });
+    }
+
+    // Each read is its own short transaction and the subscribers run after it, outside any transaction, so
+    // a failing read or subscriber only costs this round
+    @Scheduled(fixedDelayString = "${change-log.poll-interval-ms:250}")
+    public void poll() {
+        if (!polling.tryLock()) {
+            // The previous poll is still going and will pick up whatever this one would have
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        try {
+            if (highWater > cursor) {
+                // Only the open gaps are read again, everything past them is already handled
+                List<ChangeRecord> late = new ArrayList<>();
+                List<ChangeRecord> batch = readBatchAfter(cursor);
+                synchronized (this) {
+                    for (ChangeRecord record : batch) {
+                        if (record.getId() <= highWater && handledAboveCursor.add(record.getId())) {
+                            late.add(record);
+                        }
+                    }
+                    advanceCursor(startedAt);
+                }
+                dispatchRemote(late);
+            }
+            while (true) {
+                List<ChangeRecord> batch = readBatchAfter(highWater);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                synchronized (this) {
+                    for (ChangeRecord record : batch) {
+                        handledAboveCursor.add(record.getId());
+                    }
+                    highWater = batch.get(batch.size() - 1).getId();
+                    advanceCursor(startedAt);
+                }
+                dispatchRemote(batch);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            caughtUpAt = startedAt;
+        } catch (RuntimeException e) {
+            log.warn("Could not read the change log, {} ms behind: {}", lagMillis(), e.getMessage());
+        } finally {
+            polling.unlock();
+        }
+    }
+
+    // Seen by other nodes within roughly the poll interval; past the bound, callers should stop trusting
+    // anything they cached from the database
+    public boolean isWithinLagBound() {
+        return lagMillis() <= maxLagMillis;
+    }
+
+    public long lagMillis() {
+        return System.currentTimeMillis() - caughtUpAt;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("node", nodeId);
+        stats.put("cursor", cursor);
+        stats.put("highWater", highWater);
+        stats.put("openGaps", highWater - cursor - handledAboveCursor.size());
+        stats.put("lagMs", lagMillis());
+        stats.put("maxLagMs", maxLagMillis);
+        return stats;
+    }
+
+    @Scheduled(cron = "${change-log.prune-cron:0 17 * * * *}")
+    public void prune() {
+        int deleted = changeRecordRepository.deleteOlderThan(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Pruned {} change log records", deleted);
+        }
+    }
+
+    // Read-write so it tails the primary; a read replica's copy of the log can be behind
+    private List<ChangeRecord> readBatchAfter(long afterId) {
+        return transactionTemplate.execute(status -> changeRecordRepository.findBatchAfter(afterId, PageRequest.of(0, batchSize)));
+    }
+
+    private void advanceCursor(long now) {
+        while (handledAboveCursor.remove(cursor + 1)) {
+            cursor++;
+        }
+        if (handledAboveCursor.isEmpty()) {
+            gapSince = 0;
+        } else if (gapSince == 0) {
+            gapSince = now;
+        } else if (now - gapSince > gapTimeoutMillis) {
+            // Open longer than any transaction should take: the insert was rolled back and the id is lost.
+            // Only the oldest gap is given up; the ones after it get their own timeout.
+            cursor = handledAboveCursor.stream().min(Long::compare).orElseThrow() - 1;
+            while (handledAboveCursor.remove(cursor + 1)) {
+                cursor++;
+            }
+            gapSince = handledAboveCursor.isEmpty() ? 0 : now;
+        }
+    }
+
+    private void dispatchRemote(List<ChangeRecord> records) {
+        List<ChangeRecord> remote = new ArrayList<>(records.size());
+        for (ChangeRecord record : records) {
+            if (!nodeId.equals(record.getOriginNode())) {
+                remote.add(record);
+            }
+        }
+        dispatch(remote);
+    }
+
+    private void dispatch(List<ChangeRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Map<String, List<ChangeRecord>> byEntity = new LinkedHashMap<>();
+        for (ChangeRecord record : records) {
+            byEntity.computeIfAbsent(record.getEntity(), e -> new ArrayList<>()).add(record);
+        }
+        byEntity.forEach((entity, entityRecords) -> {
+            for (Consumer<List<ChangeRecord>> subscriber : subscribers.getOrDefault(entity, List.of())) {
+                try {
+                    subscriber.accept(entityRecords);
+                } catch (RuntimeException e) {
+                    log.warn("Change subscriber for {} failed: {}", entity, e.getMessage());
+                }
+            }
+        });
+    }
+}
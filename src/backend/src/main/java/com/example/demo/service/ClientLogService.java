@@ -0,0 +1,266 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Bucket4j;
+import io.github.bucket4j.Refill;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Request threads only parse, stamp and offer entries to a ring buffer; a single background writer
+// drains it into gzip-compressed NDJSON files that roll by size and by day
+@Service
+public class ClientLogService {
+    private static final Logger log = LoggerFactory.getLogger(ClientLogService.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper;
+    private final RingBuffer<byte[]> buffer;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong bufferFull = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final AtomicLong overBatchLimit = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final int maxEntryBytes;
+    private final int entriesPerMinute;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public record IngestResult(int accepted, int rateLimited, int bufferFull, int malformed, int overBatchLimit) {}
+
+    public ClientLogService(ObjectMapper objectMapper,
+                            @Value("${client-logs.buffer-size:65536}") int bufferSize,
+                            @Value("${client-logs.directory:logs/client}") String directory,
+                            @Value("${client-logs.max-file-bytes:67108864}") long maxFileBytes,
+                            @Value("${client-logs.max-files:30}") int maxFiles,
+                            @Value("${client-logs.max-entry-bytes:16384}") int maxEntryBytes,
+                            @Value("${client-logs.entries-per-minute:600}") int entriesPerMinute) {
+        this.objectMapper = objectMapper;
+        this.buffer = new RingBuffer<>(Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1);
+        this.directory = Paths.get(directory);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.maxEntryBytes = maxEntryBytes;
+        this.entriesPerMinute = entriesPerMinute;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = Thread.ofPlatform().name("client-log-writer").daemon().start(this::drain);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // Entries over the user's quota or past a full buffer are counted and dropped, never waited for.
+    // Null entries stand for lines that did not parse.
+    public IngestResult ingest(String userKey, List<JsonNode> entries, int overLimit) {
+        int allowed = (int) resolveBucket(userKey).tryConsumeAsMuchAsPossible(entries.size());
+        String receivedAt = Instant.now().toString();
+        int acceptedCount = 0;
+        int fullCount = 0;
+        int malformedCount = 0;
+        for (int i = 0; i < allowed; i++) {
+            byte[] line = toLine(entries.get(i), userKey, receivedAt);
+            if (line == null) {
+                malformedCount++;
+            } else if (buffer.offer(line)) {
+                acceptedCount++;
+            } else {
+                fullCount++;
+            }
+        }
+        int limitedCount = entries.size() - allowed;
+        accepted.addAndGet(acceptedCount);
+        rateLimited.addAndGet(limitedCount);
+        bufferFull.addAndGet(fullCount);
+        malformed.addAndGet(malformedCount);
+        overBatchLimit.addAndGet(overLimit);
+        if (acceptedCount > 0) {
+            LockSupport.unpark(writerThread);
+        }
+        return new IngestResult(acceptedCount, limitedCount, fullCount, malformedCount, overLimit);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("accepted", accepted.get());
+        stats.put("written", written.get());
+        stats.put("droppedRateLimited", rateLimited.get());
+        stats.put("droppedBufferFull", bufferFull.get());
+        stats.put("droppedMalformed", malformed.get());
+        stats.put("droppedOverBatchLimit", overBatchLimit.get());
+        stats.put("droppedWriteFailures", writeFailures.get());
+        stats.put("buffered", buffer.size());
+        stats.put("bufferCapacity", buffer.capacity());
+        return stats;
+    }
+
+    // Encoded once here, so the entry limit and the file size are both counted in UTF-8 bytes
+    private byte[] toLine(JsonNode entry, String userKey, String receivedAt) {
+        if (!(entry instanceof ObjectNode object)) {
+            return null;
+        }
+        ObjectNode server = object.putObject("server");
+        server.put("receivedAt", receivedAt);
+        server.put("user", userKey);
+        try {
+            byte[] line = objectMapper.writeValueAsBytes(object);
+            return line.length > maxEntryBytes ? null : line;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private Bucket resolveBucket(String key) {
+        return buckets.computeIfAbsent(key, k -> Bucket4j.builder()
+                .addLimit(Bandwidth.classic(entriesPerMinute, Refill.greedy(entriesPerMinute, Duration.ofMinutes(1))))
+                .build());
+    }
+
+    private void drain() {
+        RollingFile file = new RollingFile();
+        try {
+            while (true) {
+                byte[] line = buffer.poll();
+                if (line == null) {
+                    file.flush();
+                    if (!running && buffer.size() == 0) {
+                        break;
+                    }
+                    // Producers unpark the writer after offering; the timeout only bounds a missed wakeup
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                    continue;
+                }
+                file.write(line);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    private final class RollingFile {
+        private OutputStream out;
+        private LocalDate day;
+        private long bytes;
+        private String lastStamp;
+        private int sequence;
+
+        private void write(byte[] line) {
+            try {
+                LocalDate today = LocalDate.now(ZoneOffset.UTC);
+                if (out == null || bytes >= maxFileBytes || !today.equals(day)) {
+                    roll(today);
+                }
+                out.write(line);
+                out.write('\n');
+                bytes += line.length + 1;
+                written.incrementAndGet();
+            } catch (IOException e) {
+                writeFailures.incrementAndGet();
+                log.warn("Could not write client log entry: {}", e.getMessage());
+                close();
+            }
+        }
+
+        private void flush() {
+            if (out != null) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    log.warn("Could not flush client log file: {}", e.getMessage());
+                    close();
+                }
+            }
+        }
+
+        private void roll(LocalDate today) throws IOException {
+            close();
+            Files.createDirectories(directory);
+            out = new BufferedOutputStream(new GZIPOutputStream(createFile(), 64 * 1024, true), 64 * 1024);
+            day = today;
+            bytes = 0;
+            deleteOldFiles();
+        }
+
+        // Files written within the same millisecond get increasing sequence numbers; CREATE_NEW makes sure
+        // an existing file, say one left by an earlier run, is never truncated
+        private OutputStream createFile() throws IOException {
+            String stamp = FILE_TIMESTAMP.format(Instant.now());
+            sequence = stamp.equals(lastStamp) ? sequence + 1 : 0;
+            lastStamp = stamp;
+            while (true) {
+                Path path = directory.resolve("client-" + stamp + "-" + String.format("%03d", sequence) + ".ndjson.gz");
+                try {
+                    return Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                } catch (FileAlreadyExistsException e) {
+                    sequence++;
+                }
+            }
+        }
+
+        private void deleteOldFiles() throws IOException {
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> listing = Files.list(directory)) {
+                listing.filter(p -> p.getFileName().toString().endsWith(".ndjson.gz")).sorted().forEach(files::add);
+            }
+            for (int i = 0; i < files.size() - maxFiles; i++) {
+                Files.deleteIfExists(files.get(i));
+            }
+        }
+
+        private void close() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    log.warn("Could not close client log file: {}", e.getMessage());
+                }
+                out = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.example.demo.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Compact snapshot file for offline reporting. Rows are buffered into groups of a fixed size and every
+// column of a group is deflated on its own, so similar values sit next to each other and memory stays
+// bounded by one group however many rows the file holds.
+//
+//   file   := "ADPXCOL1" name columnCount (columnName kind)* group* 0x00 totalRows:long
+//   group  := 0x01 rows:int (rawLength:int compressedLength:int deflated)*   one chunk per column
+//
+// Lengths and counts inside chunks are unsigned varints. Dictionary columns start each chunk with the
+// entries first used in that group, so a reader builds the dictionary as it goes and never seeks.
+public final class ColumnarSnapshot {
+    private static final byte[] MAGIC = "ADPXCOL1".getBytes(StandardCharsets.US_ASCII);
+
+    public enum Kind {
+        // 16 raw bytes, never null
+        UUID,
+        // Length + 1 then UTF-8 bytes, 0 for null
+        STRING,
+        // Zig-zag delta from the previous row, never null
+        LONG,
+        // Epoch millis as zig-zag delta from the previous non-null value, plus 1; 0 for null
+        TIMESTAMP,
+        // Dictionary id + 1, 0 for null
+        DICT,
+        // Count, then that many dictionary ids
+        DICT_SET
+    }
+
+    public record Column(String name, Kind kind) {}
+
+    private ColumnarSnapshot() {
+    }
+
+    public static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final int groupSize;
+        private final ColumnState[] states;
+        private final ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private byte[] deflated = new byte[64 * 1024];
+        private int rowsInGroup;
+        private long totalRows;
+
+        public Writer(Path path, String name, List<Column> columns, int groupSize) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+            this.groupSize = groupSize;
+            this.states = new ColumnState[columns.size()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = new ColumnState(columns.get(i).kind());
+            }
+            put(MAGIC);
+            putString(name);
+            putVarint(columns.size());
+            for (Column column : columns) {
+                putString(column.name());
+                putByte((byte) column.kind().ordinal());
+            }
+        }
+
+        // Values in column order: UUID, String, Long (or any Number), Instant, String, Collection<String>
+        public void write(Object... row) throws IOException {
+            for (int i = 0; i < states.length; i++) {
+                states[i].append(row[i]);
+            }
+            totalRows++;
+            if (++rowsInGroup == groupSize) {
+                flushGroup();
+            }
+        }
+
+        public long getRowCount() {
+            return totalRows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (rowsInGroup > 0) {
+                    flushGroup();
+                }
+                putByte((byte) 0);
+                ensure(Long.BYTES);
+                out.putLong(totalRows);
+                drain();
+                channel.force(false);
+            } finally {
+                deflater.end();
+                channel.close();
+            }
+        }
+
+        private void flushGroup() throws IOException {
+            putByte((byte) 1);
+            ensure(Integer.BYTES);
+            out.putInt(rowsInGroup);
+            for (ColumnState state : states) {
+                Bytes chunk = state.finishGroup();
+                deflater.reset();
+                deflater.setInput(chunk.data, 0, chunk.length);
+                deflater.finish();
+                int compressed = 0;
+                while (!deflater.finished()) {
+                    if (compressed == deflated.length) {
+                        deflated = Arrays.copyOf(deflated, deflated.length * 2);
+                    }
+                    compressed += deflater.deflate(deflated, compressed, deflated.length - compressed);
+                }
+                ensure(2 * Integer.BYTES);
+                out.putInt(chunk.length);
+                out.putInt(compressed);
+                put(deflated, compressed);
+            }
+            rowsInGroup = 0;
+        }
+
+        private void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length);
+            put(bytes);
+        }
+
+        private void putVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                putByte((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            putByte((byte) value);
+        }
+
+        private void putByte(byte value) throws IOException {
+            ensure(1);
+            out.put(value);
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            put(bytes, bytes.length);
+        }
+
+        private void put(byte[] bytes, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                if (!out.hasRemaining()) {
+                    drain();
+                }
+                int n = Math.min(out.remaining(), length - offset);
+                out.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (out.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+    }
+
+    // Reads a snapshot back row by row; rows arrive as Object[] with the same value types the writer takes
+    public static final class Reader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        private final Inflater inflater = new Inflater();
+        private final String name;
+        private final List<Column> columns;
+
+        public Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            in.flip();
+            byte[] magic = new byte[MAGIC.length];
+            get(magic, magic.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a columnar snapshot: " + path);
+            }
+            this.name = getString();
+            int count = (int) getVarint();
+            List<Column> columns = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String columnName = getString();
+                columns.add(new Column(columnName, Kind.values()[getByte()]));
+            }
+            this.columns = List.copyOf(columns);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Column> getColumns() {
+            return columns;
+        }
+
+        public long forEach(Consumer<Object[]> consumer) throws IOException {
+            ColumnState[] states = new ColumnState[columns.size()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = new ColumnState(columns.get(i).kind());
+            }
+            long rows = 0;
+            while (getByte() == 1) {
+                ensure(Integer.BYTES);
+                int groupRows = in.getInt();
+                for (ColumnState state : states) {
+                    ensure(2 * Integer.BYTES);
+                    int rawLength = in.getInt();
+                    byte[] compressed = new byte[in.getInt()];
+                    get(compressed, compressed.length);
+                    byte[] raw = new byte[rawLength];
+                    inflater.reset();
+                    inflater.setInput(compressed);
+                    try {
+                        int inflated = 0;
+                        while (inflated < rawLength) {
+                            inflated += inflater.inflate(raw, inflated, rawLength - inflated);
+                        }
+                    } catch (DataFormatException e) {
+                        throw new IOException("Corrupt column chunk", e);
+                    }
+                    state.startGroup(raw);
+                }
+                for (int r = 0; r < groupRows; r++) {
+                    Object[] row = new Object[states.length];
+                    for (int i = 0; i < states.length; i++) {
+                        row[i] = states[i].next();
+                    }
+                    consumer.accept(row);
+                }
+                rows += groupRows;
+            }
+            ensure(Long.BYTES);
+            long expected = in.getLong();
+            if (expected != rows) {
+                throw new IOException("Snapshot declares " + expected + " rows but holds " + rows);
+            }
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            channel.close();
+        }
+
+        private String getString() throws IOException {
+            byte[] bytes = new byte[(int) getVarint()];
+            get(bytes, bytes.length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private long getVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = getByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        private byte getByte() throws IOException {
+            ensure(1);
+            return in.get();
+        }
+
+        private void get(byte[] bytes, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                if (!in.hasRemaining()) {
+                    fill();
+                }
+                int n = Math.min(in.remaining(), length - offset);
+                in.get(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            while (in.remaining() < bytes) {
+                fill();
+            }
+        }
+
+        private void fill() throws IOException {
+            in.compact();
+            int read = channel.read(in);
+            in.flip();
+            if (read < 0) {
+                throw new EOFException("Snapshot ends early");
+            }
+        }
+    }
+
+    private static final class Bytes {
+        private byte[] data = new byte[4096];
+        private int length;
+        private int position;
+
+        private void put(int b) {
+            if (length == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[length++] = (byte) b;
+        }
+
+        private void put(byte[] bytes, int count) {
+            if (length + count > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + count));
+            }
+            System.arraycopy(bytes, 0, data, length, count);
+            length += count;
+        }
+
+        private void putVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                put((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            put((int) value);
+        }
+
+        private void putLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                put((int) (value >>> shift));
+            }
+        }
+
+        private void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length);
+            put(bytes, bytes.length);
+        }
+
+        private long getVarint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        private long getLong() {
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (data[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private String getString() {
+            int length = (int) getVarint();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+
+    // Encoding state of one column: the open group's bytes plus what deltas and dictionaries carry over
+    private static final class ColumnState {
+        private final Kind kind;
+        private final Bytes values = new Bytes();
+        private final Bytes chunk = new Bytes();
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> entries = new ArrayList<>();
+        private int entriesFlushed;
+        private long previous;
+
+        private ColumnState(Kind kind) {
+            this.kind = kind;
+        }
+
+        private void append(Object value) {
+            switch (kind) {
+                case UUID -> {
+                    UUID uuid = (UUID) value;
+                    values.putLong(uuid.getMostSignificantBits());
+                    values.putLong(uuid.getLeastSignificantBits());
+                }
+                case STRING -> {
+                    if (value == null) {
+                        values.putVarint(0);
+                    } else {
+                        byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                        values.putVarint(bytes.length + 1L);
+                        values.put(bytes, bytes.length);
+                    }
+                }
+                case LONG -> {
+                    long current = ((Number) value).longValue();
+                    values.putVarint(zigZag(current - previous));
+                    previous = current;
+                }
+                case TIMESTAMP -> {
+                    if (value == null) {
+                        values.putVarint(0);
+                    } else {
+                        long current = ((Instant) value).toEpochMilli();
+                        values.putVarint(zigZag(current - previous) + 1);
+                        previous = current;
+                    }
+                }
+                case DICT -> values.putVarint(value == null ? 0 : idOf((String) value) + 1L);
+                case DICT_SET -> {
+                    Collection<?> set = value == null ? List.of() : (Collection<?>) value;
+                    values.putVarint(set.size());
+                    for (Object entry : set) {
+                        values.putVarint(idOf((String) entry));
+                    }
+                }
+            }
+        }
+
+        private int idOf(String value) {
+            return dictionary.computeIfAbsent(value, v -> {
+                entries.add(v);
+                return entries.size() - 1;
+            });
+        }
+
+        // Dictionary entries new in this group go first, so the reader knows them before the ids that use them
+        private Bytes finishGroup() {
+            chunk.length = 0;
+            if (kind == Kind.DICT || kind == Kind.DICT_SET) {
+                chunk.putVarint(entries.size() - entriesFlushed);
+                for (int i = entriesFlushed; i < entries.size(); i++) {
+                    chunk.putString(entries.get(i));
+                }
+                entriesFlushed = entries.size();
+            }
+            chunk.put(values.data, values.length);
+            values.length = 0;
+            return chunk;
+        }
+
+        private void startGroup(byte[] raw) {
+            values.data = raw;
+            values.length = raw.length;
+            values.position = 0;
+            if (kind == Kind.DICT || kind == Kind.DICT_SET) {
+                long added = values.getVarint();
+                for (long i = 0; i < added; i++) {
+                    entries.add(values.getString());
+                }
+            }
+        }
+
+        private Object next() {
+            return switch (kind) {
+                case UUID -> new UUID(values.getLong(), values.getLong());
+                case STRING -> {
+                    long length = values.getVarint();
+                    if (length == 0) {
+                        yield null;
+                    }
+                    String value = new String(values.data, values.position, (int) length - 1, StandardCharsets.UTF_8);
+                    values.position += (int) length - 1;
+                    yield value;
+                }
+                case LONG -> previous += unZigZag(values.getVarint());
+                case TIMESTAMP -> {
+                    long encoded = values.getVarint();
+                    if (encoded == 0) {
+                        yield null;
+                    }
+                    previous += unZigZag(encoded - 1);
+                    yield Instant.ofEpochMilli(previous);
+                }
+                case DICT -> {
+                    long id = values.getVarint();
+                    yield id == 0 ? null : entries.get((int) id - 1);
+                }
+                case DICT_SET -> {
+                    int count = (int) values.getVarint();
+                    List<String> set = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        set.add(entries.get((int) values.getVarint()));
+                    }
+                    yield set;
+                }
+            };
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
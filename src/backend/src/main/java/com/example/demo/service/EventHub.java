@@ -0,0 +1,200 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class EventHub {
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong nextSubscriberId = new AtomicLong();
+    private final AtomicLong nextEventId = new AtomicLong();
+    private final AtomicLong droppedSubscribers = new AtomicLong();
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService sweeper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+    private final long writeDeadlineMillis;
+
+    public EventHub(@Value("${events.sse.buffer-size:256}") int bufferSize,
+                    @Value("${events.sse.timeout-ms:1800000}") long timeoutMillis,
+                    @Value("${events.sse.heartbeat-seconds:25}") long heartbeatSeconds,
+                    @Value("${events.sse.dispatch-threads:8}") int dispatchThreads,
+                    @Value("${events.sse.write-deadline-ms:10000}") long writeDeadlineMillis) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.heartbeatMillis = TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        this.writeDeadlineMillis = writeDeadlineMillis;
+        // SseEmitter.send blocks while the client's socket buffer is full, until the connector's write timeout
+        // (server.tomcat.connection-timeout, kept at the write deadline). A fixed pool caps the threads however
+        // many clients stall; a client past the deadline is cut loose, so it costs one thread for that long.
+        // Platform threads, because send holds the emitter's monitor and would pin a virtual thread's carrier.
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, Thread.ofPlatform().name("sse-dispatch-", 0).daemon().factory());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("sse-sweep").daemon().factory());
+        this.sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.SECONDS);
+    }
+
+    // Idle subscribers hold no thread: each owns a bounded buffer that a dispatch thread drains while it
+    // has events. A subscriber only hears about users of its own tenant.
+    public SseEmitter subscribe(String tenantId) {
+        SseEmitter emitter = createEmitter(timeoutMillis);
+        long id = nextSubscriberId.incrementAndGet();
+        Subscriber subscriber = new Subscriber(id, tenantId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscriber.lastSentAt = System.currentTimeMillis();
+        subscribers.put(id, subscriber);
+        emitter.onCompletion(() -> subscribers.remove(id));
+        emitter.onTimeout(() -> subscribers.remove(id));
+        emitter.onError(e -> subscribers.remove(id));
+        try {
+            // Flushes the response headers right away instead of on the first real event
+            emitter.send(SseEmitter.event().comment("connected").reconnectTime(3000));
+        } catch (IOException e) {
+            subscribers.remove(id);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    public void publish(String tenantId, String type, Map<String, Object> data) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>(data);
+        payload.put("at", Instant.now());
+        Event event = new Event(nextEventId.incrementAndGet(), type, payload);
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.tenantId.equals(tenantId)) {
+                offer(subscriber, event);
+            }
+        }
+    }
+
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getDroppedSubscriberCount() {
+        return droppedSubscribers.get();
+    }
+
+    // Keepalives only go to subscribers that have sent nothing for a whole interval, so a subscriber that is
+    // busy anyway is left alone and the idle ones come due at the times they last sent, not all at once
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        Event keepalive = new Event(0, null, null);
+        for (Subscriber subscriber : subscribers.values()) {
+            long sendingSince = subscriber.sendingSince;
+            if (sendingSince != 0 && now - sendingSince > writeDeadlineMillis) {
+                cutLoose(subscriber);
+            } else if (sendingSince == 0 && !subscriber.scheduled.get() && now - subscriber.lastSentAt >= heartbeatMillis) {
+                offer(subscriber, keepalive);
+            }
+        }
+    }
+
+    private void offer(Subscriber subscriber, Event event) {
+        if (!subscriber.buffer.offer(event)) {
+            // Slow consumer: cut it loose, the client reconnects and refetches
+            cutLoose(subscriber);
+            return;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Completing waits for a send in progress, so it is left to the subscriber's drain, which completes the
+    // emitter once its current send returns instead of holding up the publishing request or another thread
+    private void cutLoose(Subscriber subscriber) {
+        if (subscribers.remove(subscriber.id) == null) {
+            return;
+        }
+        droppedSubscribers.incrementAndGet();
+        subscriber.dropped = true;
+        subscriber.buffer.clear();
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            Event event;
+            while (!subscriber.dropped && (event = subscriber.buffer.poll()) != null) {
+                subscriber.sendingSince = System.currentTimeMillis();
+                try {
+                    if (event.type() == null) {
+                        subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        subscriber.emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.id()))
+                            .name(event.type())
+                            .data(event.data()));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(subscriber.id);
+                    subscriber.buffer.clear();
+                    return;
+                } finally {
+                    subscriber.sendingSince = 0;
+                }
+                subscriber.lastSentAt = System.currentTimeMillis();
+            }
+            if (subscriber.dropped) {
+                // Left scheduled, so nothing is queued for it again
+                subscriber.emitter.complete();
+                return;
+            }
+            subscriber.scheduled.set(false);
+            // An event, or the cut, may have arrived between the last poll and the flag reset
+        } while ((subscriber.dropped || !subscriber.buffer.isEmpty()) && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        dispatcher.shutdown();
+    }
+
+    private record Event(long id, String type, Map<String, Object> data) {}
+
+    private static final class Subscriber {
+        private final long id;
+        private final String tenantId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Event> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean dropped;
+        // When the send in progress started, 0 between sends
+        private volatile long sendingSince;
+        private volatile long lastSentAt;
+
+        private Subscriber(long id, String tenantId, SseEmitter emitter, ArrayBlockingQueue<Event> buffer) {
+            this.id = id;
+            this.tenantId = tenantId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Guest;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Component
+public class GuestSearchIndex {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+    // Shorter query terms only match whole tokens, otherwise "a" would expand to half the dictionary
+    private static final int MIN_PREFIX_LENGTH = 2;
+    // A term that is the prefix of more dictionary words than this only searches the first ones, alphabetically
+    private static final int MAX_PREFIX_EXPANSIONS = 512;
+    private static final int OVERLAY_MERGE_THRESHOLD = 50_000;
+    // Updates and deletes leave tombstones; once they outnumber the live documents the index is compacted
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private Set<Long> touchedDuringRebuild;
+
+    public record Document(long guestId, String[] tokens) {}
+
+    // Truncated when some query term had more prefix expansions than were searched, so matches may be missing
+    public record Hits(List<Long> guestIds, boolean truncated) {}
+
+    // Lower-cases and strips accents, so "José Núñez" and "jose nunez" produce the same tokens
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public static Document prepare(Guest guest) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokens.addAll(tokenize(guest.getFullName()));
+        tokens.addAll(tokenize(guest.getEmail()));
+        tokens.addAll(tokenize(guest.getNationality()));
+        tokens.addAll(tokenize(guest.getNotes()));
+        if (guest.getPhone() != null) {
+            tokens.addAll(tokenize(guest.getPhone()));
+            // The national number lets "998 123 4567" match "+52 (998) 123-4567" however it was typed
+            String digits = guest.getPhone().replaceAll("\\D", "");
+            if (digits.length() >= 7) {
+                tokens.add(digits.substring(Math.max(0, digits.length() - 10)));
+            }
+        }
+        return new Document(guest.getId(), tokens.toArray(String[]::new));
+    }
+
+    public void put(Guest guest) {
+        Document document = prepare(guest);
+        lock.writeLock().lock();
+        try {
+            state.add(document);
+            if (touchedDuringRebuild != null) {
+                touchedDuringRebuild.add(document.guestId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long guestId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(guestId);
+            if (touchedDuringRebuild != null) {
+                touchedDuringRebuild.add(guestId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every query term must match (as a prefix) some token of the guest; newest entries come first
+    public Hits search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return new Hits(List.of(), false);
+        }
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            boolean truncated = false;
+            for (String term : terms) {
+                BitSet matches = new BitSet(state.nextDoc);
+                truncated |= state.collect(term, matches);
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.and(matches);
+                }
+                if (result.isEmpty()) {
+                    return new Hits(List.of(), truncated);
+                }
+            }
+            result.andNot(state.deleted);
+            List<Long> guestIds = new ArrayList<>(Math.min(limit, result.cardinality()));
+            for (int doc = result.previousSetBit(state.nextDoc - 1); doc >= 0 && guestIds.size() < limit; doc = result.previousSetBit(doc - 1)) {
+                guestIds.add(state.guestIds[doc]);
+            }
+            return new Hits(guestIds, truncated);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int tombstones() {
+        lock.readLock().lock();
+        try {
+            return state.dead;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Builds a fresh index off to the side while the current one keeps serving. Writes that land in
+    // the meantime are remembered so the caller can replay them once the new index is swapped in.
+    public Rebuild startRebuild() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Rebuild();
+    }
+
+    public final class Rebuild {
+        private final State building = new State();
+
+        public synchronized void addAll(List<Document> documents) {
+            for (Document document : documents) {
+                building.add(document);
+            }
+        }
+
+        public Set<Long> commit() {
+            synchronized (this) {
+                // Chunks are added in whatever order they loaded, so documents are numbered again by guest id
+                // to keep newer guests first
+                building.renumber(true);
+            }
+            lock.writeLock().lock();
+            try {
+                state = building;
+                Set<Long> touched = touchedDuringRebuild;
+                touchedDuringRebuild = null;
+                return touched;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static final class State {
+        private Segment sealed = Segment.EMPTY;
+        private TreeMap<String, Postings> overlay = new TreeMap<>();
+        private long[] guestIds = new long[1024];
+        // Current document of each guest id, stored as doc + 1 so that zero means not indexed
+        private int[] docByGuestId = new int[1024];
+        private final BitSet deleted = new BitSet();
+        private int nextDoc;
+        private int live;
+        private int dead;
+
+        private void add(Document document) {
+            remove(document.guestId());
+            int doc = nextDoc++;
+            if (doc == guestIds.length) {
+                guestIds = Arrays.copyOf(guestIds, doc * 2);
+            }
+            guestIds[doc] = document.guestId();
+            int slot = slot(document.guestId());
+            if (slot >= docByGuestId.length) {
+                docByGuestId = Arrays.copyOf(docByGuestId, Math.max(slot + 1, docByGuestId.length * 2));
+            }
+            docByGuestId[slot] = doc + 1;
+            live++;
+            for (String token : document.tokens()) {
+                overlay.computeIfAbsent(token, t -> new Postings()).add(doc);
+            }
+            // Growing the threshold with the segment keeps the total merge work proportional to the index size
+            if (overlay.size() > Math.max(OVERLAY_MERGE_THRESHOLD, sealed.terms.length / 4)) {
+                seal();
+            }
+        }
+
+        // Leaves a tombstone. Compacting once tombstones outnumber live documents keeps the work per
+        // update constant on average while the index never grows past twice its live size.
+        private void remove(long guestId) {
+            int slot = slot(guestId);
+            if (slot < docByGuestId.length && docByGuestId[slot] != 0) {
+                deleted.set(docByGuestId[slot] - 1);
+                docByGuestId[slot] = 0;
+                live--;
+                dead++;
+                if (dead >= MIN_TOMBSTONES_TO_COMPACT && dead > live) {
+                    renumber(false);
+                }
+            }
+        }
+
+        // Returns whether the prefix expansions ran out before every match was collected
+        private boolean collect(String term, BitSet into) {
+            boolean prefix = term.length() >= MIN_PREFIX_LENGTH;
+            int budget = sealed.collect(term, prefix, into, MAX_PREFIX_EXPANSIONS);
+            if (budget < 0) {
+                return true;
+            }
+            Map<String, Postings> matches = prefix
+                ? overlay.subMap(term, true, term + Character.MAX_VALUE, false)
+                : overlay.containsKey(term) ? Map.of(term, overlay.get(term)) : Map.of();
+            for (Postings postings : matches.values()) {
+                if (budget-- <= 0) {
+                    return true;
+                }
+                Postings.decodeInto(postings.bytes, 0, postings.length, into);
+            }
+            return false;
+        }
+
+        private void seal() {
+            sealed = Segment.merge(sealed, overlay);
+            overlay = new TreeMap<>();
+        }
+
+        // Drops tombstoned documents and numbers the live ones again from zero, either in their current
+        // order or by guest id
+        private void renumber(boolean byGuestId) {
+            seal();
+            int[] newDoc = new int[nextDoc];
+            Arrays.fill(newDoc, -1);
+            long[] ids = new long[Math.max(1024, live)];
+            int n = 0;
+            if (byGuestId) {
+                for (int slot = 0; slot < docByGuestId.length; slot++) {
+                    if (docByGuestId[slot] != 0) {
+                        newDoc[docByGuestId[slot] - 1] = n;
+                        ids[n] = slot;
+                        docByGuestId[slot] = ++n;
+                    }
+                }
+            } else {
+                for (int doc = deleted.nextClearBit(0); doc < nextDoc; doc = deleted.nextClearBit(doc + 1)) {
+                    newDoc[doc] = n;
+                    ids[n] = guestIds[doc];
+                    docByGuestId[slot(guestIds[doc])] = ++n;
+                }
+            }
+            sealed = sealed.remap(newDoc);
+            guestIds = ids;
+            nextDoc = n;
+            deleted.clear();
+            dead = 0;
+        }
+
+        private static int slot(long guestId) {
+            if (guestId < 0 || guestId >= Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Guest id out of range: " + guestId);
+            }
+            return (int) guestId;
+        }
+    }
+
+    // Immutable sorted dictionary whose postings are packed back to back in one delta-varint byte array
+    private static final class Segment {
+        private static final Segment EMPTY = new Segment(new String[0], new int[1], new byte[0]);
+
+        private final String[] terms;
+        private final int[] offsets;
+        private final byte[] data;
+
+        private Segment(String[] terms, int[] offsets, byte[] data) {
+            this.terms = terms;
+            this.offsets = offsets;
+            this.data = data;
+        }
+
+        // Returns the expansion budget left over, or -1 when it ran out with matching terms left
+        private int collect(String term, boolean prefix, BitSet into, int budget) {
+            int i = Arrays.binarySearch(terms, term);
+            if (!prefix) {
+                if (i >= 0) {
+                    Postings.decodeInto(data, offsets[i], offsets[i + 1], into);
+                    budget--;
+                }
+                return budget;
+            }
+            for (i = i >= 0 ? i : -i - 1; i < terms.length && terms[i].startsWith(term); i++, budget--) {
+                if (budget == 0) {
+                    return -1;
+                }
+                Postings.decodeInto(data, offsets[i], offsets[i + 1], into);
+            }
+            return budget;
+        }
+
+        // Rewrites every posting list through newDoc, where -1 drops the document; terms left without
+        // documents are dropped too
+        private Segment remap(int[] newDoc) {
+            List<String> kept = new ArrayList<>(terms.length);
+            List<Integer> keptOffsets = new ArrayList<>(terms.length + 1);
+            Postings arena = new Postings();
+            for (int i = 0; i < terms.length; i++) {
+                int[] docs = Postings.decode(data, offsets[i], offsets[i + 1]);
+                int n = 0;
+                for (int doc : docs) {
+                    if (newDoc[doc] >= 0) {
+                        docs[n++] = newDoc[doc];
+                    }
+                }
+                if (n == 0) {
+                    continue;
+                }
+                Arrays.sort(docs, 0, n);
+                Postings postings = new Postings();
+                for (int j = 0; j < n; j++) {
+                    postings.add(docs[j]);
+                }
+                kept.add(terms[i]);
+                keptOffsets.add(arena.length);
+                arena.appendRaw(postings.bytes, 0, postings.length);
+            }
+            keptOffsets.add(arena.length);
+            return new Segment(kept.toArray(String[]::new), keptOffsets.stream().mapToInt(Integer::intValue).toArray(),
+                Arrays.copyOf(arena.bytes, arena.length));
+        }
+
+        private static Segment merge(Segment base, TreeMap<String, Postings> overlay) {
+            List<String> terms = new ArrayList<>(base.terms.length + overlay.size());
+            List<Integer> offsets = new ArrayList<>(base.terms.length + overlay.size() + 1);
+            Postings arena = new Postings();
+            int b = 0;
+            for (Map.Entry<String, Postings> entry : overlay.entrySet()) {
+                while (b < base.terms.length && base.terms[b].compareTo(entry.getKey()) < 0) {
+                    terms.add(base.terms[b]);
+                    offsets.add(arena.length);
+                    arena.appendRaw(base.data, base.offsets[b], base.offsets[b + 1]);
+                    b++;
+                }
+                terms.add(entry.getKey());
+                offsets.add(arena.length);
+                Postings merged = new Postings();
+                if (b < base.terms.length && base.terms[b].equals(entry.getKey())) {
+                    Postings.decodeInto(base.data, base.offsets[b], base.offsets[b + 1], merged);
+                    b++;
+                }
+                // Overlay documents were all added after the base was sealed, so appending keeps them sorted
+                Postings.decodeInto(entry.getValue().bytes, 0, entry.getValue().length, merged);
+                arena.appendRaw(merged.bytes, 0, merged.length);
+            }
+            while (b < base.terms.length) {
+                terms.add(base.terms[b]);
+                offsets.add(arena.length);
+                arena.appendRaw(base.data, base.offsets[b], base.offsets[b + 1]);
+                b++;
+            }
+            offsets.add(arena.length);
+            return new Segment(terms.toArray(String[]::new), offsets.stream().mapToInt(Integer::intValue).toArray(),
+                Arrays.copyOf(arena.bytes, arena.length));
+        }
+    }
+
+    // Sorted document ids stored as varint-encoded gaps: most gaps fit in one or two bytes
+    private static final class Postings {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int last = -1;
+
+        private void add(int doc) {
+            if (doc <= last) {
+                return;
+            }
+            int gap = doc - last;
+            last = doc;
+            ensureCapacity(5);
+            while ((gap & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            bytes[length++] = (byte) gap;
+        }
+
+        private void appendRaw(byte[] source, int from, int to) {
+            ensureCapacity(to - from);
+            System.arraycopy(source, from, bytes, length, to - from);
+            length += to - from;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + extra, bytes.length * 2));
+            }
+        }
+
+        private static void decodeInto(byte[] data, int from, int to, BitSet into) {
+            int doc = -1;
+            int pos = from;
+            while (pos < to) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += gap;
+                into.set(doc);
+            }
+        }
+
+        private static int[] decode(byte[] data, int from, int to) {
+            int[] docs = new int[Math.max(4, to - from)];
+            int count = 0;
+            int doc = -1;
+            int pos = from;
+            while (pos < to) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += gap;
+                docs[count++] = doc;
+            }
+            return Arrays.copyOf(docs, count);
+        }
+
+        private static void decodeInto(byte[] data, int from, int to, Postings into) {
+            int doc = -1;
+            int pos = from;
+            while (pos < to) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += gap;
+                into.add(doc);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Guest;
+import com.example.demo.repository.GuestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@Service
+public class GuestService {
+    private final GuestRepository guestRepository;
+    private final GuestSearchIndex guestSearchIndex;
+
+    @Value("${guests.index.rebuild-threads:0}")
+    private int rebuildThreads;
+
+    @Value("${guests.index.rebuild-chunk-size:5000}")
+    private int rebuildChunkSize;
+
+    @Autowired
+    public GuestService(GuestRepository guestRepository, GuestSearchIndex guestSearchIndex) {
+        this.guestRepository = guestRepository;
+        this.guestSearchIndex = guestSearchIndex;
+    }
+
+    // Loads guests in id ranges on a dedicated pool and tokenizes them in parallel; the swap and the
+    // replay of writes made during the rebuild keep the index consistent with the table
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        GuestSearchIndex.Rebuild rebuild = guestSearchIndex.startRebuild();
+        Long maxId = guestRepository.findMaxId();
+        if (maxId != null) {
+            int threads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+            long chunks = maxId / rebuildChunkSize + 1;
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.submit(() -> LongStream.range(0, chunks).parallel().forEach(chunk -> {
+                    long from = chunk * rebuildChunkSize + 1;
+                    List<GuestSearchIndex.Document> documents = guestRepository.findAllByIdBetween(from, from + rebuildChunkSize - 1)
+                        .stream()
+                        .map(GuestSearchIndex::prepare)
+                        .toList();
+                    rebuild.addAll(documents);
+                })).join();
+            } finally {
+                pool.shutdown();
+            }
+        }
+        Set<Long> touched = rebuild.commit();
+        for (Long guestId : touched) {
+            guestRepository.findById(guestId).ifPresentOrElse(guestSearchIndex::put, () -> guestSearchIndex.remove(guestId));
+        }
+    }
+
+    public Guest create(Guest guest) {
+        Guest saved = guestRepository.save(guest);
+        guestSearchIndex.put(saved);
+        return saved;
+    }
+
+    public Guest update(Guest guest) {
+        Guest saved = guestRepository.save(guest);
+        guestSearchIndex.put(saved);
+        return saved;
+    }
+
+    public Optional<Guest> findById(Long id) {
+        return guestRepository.findById(id);
+    }
+
+    public record SearchResult(List<Guest> guests, boolean truncated) {}
+
+    public SearchResult search(String query, int limit) {
+        GuestSearchIndex.Hits hits = guestSearchIndex.search(query, limit);
+        List<Long> ids = hits.guestIds();
+        if (ids.isEmpty()) {
+            return new SearchResult(List.of(), hits.truncated());
+        }
+        // Keep the index order (most recently written first) after the primary-key lookup
+        Map<Long, Guest> byId = guestRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Guest::getId, Function.identity()));
+        List<Guest> guests = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Guest guest = byId.get(id);
+            if (guest != null) {
+                guests.add(guest);
+            }
+        }
+        return new SearchResult(guests, hits.truncated());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Remembers, per user and Idempotency-Key, a fingerprint of the request and the response it produced.
+// Partitioned by tenant, each partition bounded by entry count (least recently used go first) and by age,
+// so one property's burst of retries cannot evict another's recorded responses.
+@Component
+public class IdempotencyStore {
+    private final int maxEntriesPerTenant;
+    private final long ttlMillis;
+    private final Map<String, Map<String, Entry>> partitions = new HashMap<>();
+
+    public record RecordedResponse(int status, Map<String, List<String>> headers, byte[] body) {}
+
+    public static final class Entry {
+        private final String fingerprint;
+        private final long createdAt;
+        private final CompletableFuture<RecordedResponse> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+
+        public String getFingerprint() { return fingerprint; }
+
+        // Completes with null when the first attempt failed and the request should run again
+        public CompletableFuture<RecordedResponse> getResponse() { return response; }
+    }
+
+    // The caller owns the entry when it is new and must complete or abandon it
+    public record Claim(Entry entry, boolean owner) {}
+
+    public IdempotencyStore(@Value("${idempotency.max-entries-per-tenant:10000}") int maxEntriesPerTenant,
+                            @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.maxEntriesPerTenant = maxEntriesPerTenant;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public synchronized Claim claim(String tenantId, String key, String fingerprint) {
+        Map<String, Entry> entries = partition(tenantId);
+        long now = System.currentTimeMillis();
+        Entry existing = entries.get(key);
+        if (existing != null && now - existing.createdAt < ttlMillis) {
+            return new Claim(existing, false);
+        }
+        Entry entry = new Entry(fingerprint, now);
+        entries.put(key, entry);
+        return new Claim(entry, true);
+    }
+
+    public void complete(Entry entry, RecordedResponse response) {
+        entry.response.complete(response);
+    }
+
+    // Forgets a failed attempt; requests waiting on it are released to try again themselves
+    public void abandon(String tenantId, String key, Entry entry) {
+        synchronized (this) {
+            Map<String, Entry> entries = partitions.get(tenantId);
+            if (entries != null) {
+                entries.remove(key, entry);
+            }
+        }
+        entry.response.complete(null);
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (Map<String, Entry> entries : partitions.values()) {
+            size += entries.size();
+        }
+        return size;
+    }
+
+    public synchronized int size(String tenantId) {
+        Map<String, Entry> entries = partitions.get(tenantId);
+        return entries == null ? 0 : entries.size();
+    }
+
+    private Map<String, Entry> partition(String tenantId) {
+        return partitions.computeIfAbsent(tenantId, t -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntriesPerTenant;
+            }
+        });
+    }
+}
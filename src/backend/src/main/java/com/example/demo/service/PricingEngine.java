@@ -0,0 +1,318 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.StayOutsideRatesException;
+import com.example.demo.model.RateRule;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Compiles the rate rules into one dense table per room type: cents[band * days + night] holds the nightly
+// rate for every published night and occupancy band, so a quote only walks the nights of the stay
+@Component
+public class PricingEngine {
+    private final AvailabilityIndex availabilityIndex;
+    private final ForkJoinPool pool;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public record Quote(String roomType, LocalDate checkIn, LocalDate checkOut, long[] nightlyCents,
+                        long totalCents, String promoCode) {}
+
+    @Autowired
+    public PricingEngine(AvailabilityIndex availabilityIndex, @Value("${pricing.compile-threads:0}") int compileThreads) {
+        this.availabilityIndex = availabilityIndex;
+        this.pool = new ForkJoinPool(compileThreads > 0 ? compileThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Recompiles every table for the window starting at firstNight
+    public synchronized void rebuild(List<RateRule> rules, Collection<String> roomTypes, LocalDate firstNight, int days) {
+        Map<Long, Rule> compiled = compileRules(rules);
+        List<Job> jobs = new ArrayList<>();
+        for (String type : allTypes(compiled, roomTypes)) {
+            jobs.add(new Job(type, null, 0, days));
+        }
+        publish(new Snapshot(AvailabilityIndex.day(firstNight), days, Map.of(), compiled, Map.of()), jobs, Set.of());
+    }
+
+    // Diffs the rules against the ones currently compiled and recomputes only the nights and room types
+    // that a changed rule touches; untouched tables are shared with the previous snapshot
+    public synchronized void refresh(List<RateRule> rules, Collection<String> roomTypes) {
+        Snapshot current = snapshot;
+        Map<Long, Rule> compiled = compileRules(rules);
+        Set<Rule> changed = new HashSet<>();
+        for (Rule rule : compiled.values()) {
+            if (!rule.equals(current.rules.get(rule.id))) {
+                changed.add(rule);
+            }
+        }
+        for (Rule rule : current.rules.values()) {
+            if (!rule.equals(compiled.get(rule.id))) {
+                changed.add(rule);
+            }
+        }
+        Set<String> types = allTypes(compiled, roomTypes);
+        Map<String, int[]> ranges = new HashMap<>();
+        for (Rule rule : changed) {
+            if (RateRule.PROMO.equals(rule.kind)) {
+                continue;
+            }
+            // Base rates and occupancy bands shape the whole table, other rules only their own nights
+            boolean wholeWindow = RateRule.BASE.equals(rule.kind) || RateRule.OCCUPANCY.equals(rule.kind);
+            int from = wholeWindow ? 0 : Math.max(0, rule.firstDay - current.firstDay);
+            int to = wholeWindow ? current.days : Math.min(current.days, rule.endDay - current.firstDay);
+            if (from >= to) {
+                continue;
+            }
+            for (String type : types) {
+                if (rule.appliesTo(type)) {
+                    ranges.merge(type, new int[] { from, to }, (a, b) -> new int[] { Math.min(a[0], b[0]), Math.max(a[1], b[1]) });
+                }
+            }
+        }
+        List<Job> jobs = new ArrayList<>();
+        Set<String> kept = new HashSet<>();
+        for (String type : types) {
+            RateTable table = current.tables.get(type);
+            int[] range = ranges.get(type);
+            if (table == null) {
+                jobs.add(new Job(type, null, 0, current.days));
+            } else if (range != null) {
+                jobs.add(new Job(type, table, range[0], range[1]));
+            } else {
+                kept.add(type);
+            }
+        }
+        publish(new Snapshot(current.firstDay, current.days, current.tables, compiled, Map.of()), jobs, kept);
+    }
+
+    public Quote quote(String roomType, LocalDate checkIn, LocalDate checkOut, String promoCode) {
+        Snapshot current = snapshot;
+        RateTable table = current.tables.get(roomType);
+        if (table == null) {
+            throw new ResourceNotFoundException("No rates published for room type " + roomType);
+        }
+        // Checked against this snapshot, as the window moves forward when the tables are rebuilt each night
+        LocalDate publishedFrom = AvailabilityIndex.ORIGIN.plusDays(current.firstDay);
+        LocalDate publishedUntil = publishedFrom.plusDays(current.days);
+        if (checkIn.isBefore(publishedFrom) || !checkOut.isAfter(checkIn) || checkOut.isAfter(publishedUntil)) {
+            throw new StayOutsideRatesException("Rates are published for stays between " + publishedFrom + " and " + publishedUntil);
+        }
+        int from = AvailabilityIndex.day(checkIn) - current.firstDay;
+        int nights = AvailabilityIndex.day(checkOut) - current.firstDay - from;
+        List<Rule> promos = promoCode == null ? List.of() : current.promos.getOrDefault(promoCode.toUpperCase(Locale.ROOT), List.of());
+        int rooms = availabilityIndex.roomCount(roomType);
+        int[] booked = availabilityIndex.bookedRooms(roomType, checkIn, checkOut);
+        long[] nightlyCents = new long[nights];
+        long total = 0;
+        boolean promoApplied = false;
+        for (int i = 0; i < nights; i++) {
+            int night = from + i;
+            int occupancy = rooms == 0 ? 0 : booked[i] * 100 / rooms;
+            int band = table.floors.length - 1;
+            while (table.floors[band] > occupancy) {
+                band--;
+            }
+            long cents = table.cents[band * current.days + night];
+            for (Rule promo : promos) {
+                if (promo.appliesTo(roomType) && promo.covers(current.firstDay + night)) {
+                    cents = Math.round(cents * (1 + promo.percent / 100.0));
+                    promoApplied = true;
+                }
+            }
+            nightlyCents[i] = cents;
+            total += cents;
+        }
+        return new Quote(roomType, checkIn, checkOut, nightlyCents, total, promoApplied ? promoCode.toUpperCase(Locale.ROOT) : null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void publish(Snapshot base, List<Job> jobs, Set<String> kept) {
+        Map<String, RateTable> tables = new ConcurrentHashMap<>();
+        for (String type : kept) {
+            tables.put(type, base.tables.get(type));
+        }
+        pool.invoke(new CompileTask(base, jobs, 0, jobs.size(), tables));
+        Map<String, List<Rule>> promos = new HashMap<>();
+        for (Rule rule : base.rules.values()) {
+            if (RateRule.PROMO.equals(rule.kind) && rule.promoCode != null) {
+                promos.computeIfAbsent(rule.promoCode, c -> new ArrayList<>()).add(rule);
+            }
+        }
+        snapshot = new Snapshot(base.firstDay, base.days, Map.copyOf(tables), base.rules, Map.copyOf(promos));
+    }
+
+    private static Map<Long, Rule> compileRules(List<RateRule> rules) {
+        Map<Long, Rule> compiled = new HashMap<>();
+        for (RateRule rule : rules) {
+            compiled.put(rule.getId(), Rule.of(rule));
+        }
+        return compiled;
+    }
+
+    private static Set<String> allTypes(Map<Long, Rule> rules, Collection<String> roomTypes) {
+        Set<String> types = new TreeSet<>(roomTypes);
+        for (Rule rule : rules.values()) {
+            if (rule.roomType != null) {
+                types.add(rule.roomType);
+            }
+        }
+        return types;
+    }
+
+    // Fills the nights [from, to) of one room type's table, starting from a copy of the previous table
+    private static RateTable compile(Snapshot base, Job job) {
+        List<Rule> rules = new ArrayList<>();
+        Rule baseRate = null;
+        TreeSet<Integer> floors = new TreeSet<>(Set.of(0));
+        for (Rule rule : base.rules.values()) {
+            if (!rule.appliesTo(job.type)) {
+                continue;
+            }
+            switch (rule.kind) {
+                // A rate for the specific type wins over one for every type, then the newest rule wins
+                case RateRule.BASE -> {
+                    if (baseRate == null || rule.moreSpecificThan(baseRate)) {
+                        baseRate = rule;
+                    }
+                }
+                case RateRule.OCCUPANCY -> {
+                    floors.add(rule.minOccupancy);
+                    rules.add(rule);
+                }
+                case RateRule.SEASON, RateRule.WEEKDAY -> rules.add(rule);
+                default -> { }
+            }
+        }
+        if (baseRate == null) {
+            return null;
+        }
+        int[] bandFloors = floors.stream().mapToInt(Integer::intValue).toArray();
+        int days = base.days;
+        int from = job.from;
+        int to = job.to;
+        int[] cents;
+        if (job.previous != null && Arrays.equals(job.previous.floors, bandFloors)) {
+            cents = job.previous.cents.clone();
+        } else {
+            cents = new int[bandFloors.length * days];
+            from = 0;
+            to = days;
+        }
+        double[] bandFactors = new double[bandFloors.length];
+        for (int night = from; night < to; night++) {
+            int day = base.firstDay + night;
+            double dayFactor = 1;
+            Arrays.fill(bandFactors, 0);
+            for (Rule rule : rules) {
+                if (!rule.covers(day)) {
+                    continue;
+                }
+                double factor = 1 + rule.percent / 100.0;
+                if (RateRule.OCCUPANCY.equals(rule.kind)) {
+                    int band = Arrays.binarySearch(bandFloors, rule.minOccupancy);
+                    bandFactors[band] = (bandFactors[band] == 0 ? 1 : bandFactors[band]) * factor;
+                } else {
+                    dayFactor *= factor;
+                }
+            }
+            double bandFactor = 1;
+            for (int band = 0; band < bandFloors.length; band++) {
+                // A band without a rule for this night keeps the adjustment of the band below it
+                if (bandFactors[band] != 0) {
+                    bandFactor = bandFactors[band];
+                }
+                cents[band * days + night] = (int) Math.round(baseRate.amountCents * dayFactor * bandFactor);
+            }
+        }
+        return new RateTable(bandFloors, cents);
+    }
+
+    private static final class CompileTask extends RecursiveAction {
+        private final Snapshot base;
+        private final List<Job> jobs;
+        private final int from;
+        private final int to;
+        private final Map<String, RateTable> into;
+
+        private CompileTask(Snapshot base, List<Job> jobs, int from, int to, Map<String, RateTable> into) {
+            this.base = base;
+            this.jobs = jobs;
+            this.from = from;
+            this.to = to;
+            this.into = into;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    RateTable table = PricingEngine.compile(base, jobs.get(i));
+                    if (table != null) {
+                        into.put(jobs.get(i).type, table);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CompileTask(base, jobs, from, middle, into), new CompileTask(base, jobs, middle, to, into));
+        }
+    }
+
+    private record Job(String type, RateTable previous, int from, int to) {}
+
+    private record RateTable(int[] floors, int[] cents) {}
+
+    private record Snapshot(int firstDay, int days, Map<String, RateTable> tables, Map<Long, Rule> rules,
+                            Map<String, List<Rule>> promos) {
+        private static final Snapshot EMPTY = new Snapshot(0, 0, Map.of(), Map.of(), Map.of());
+    }
+
+    // Immutable copy of a rule with its dates turned into day numbers, safe to share across compile threads
+    private record Rule(long id, String kind, String roomType, int firstDay, int endDay, int daysOfWeek,
+                        Integer minOccupancy, String promoCode, int percent, Long amountCents) {
+        private static Rule of(RateRule rule) {
+            return new Rule(rule.getId(), rule.getKind(), rule.getRoomType(),
+                rule.getStartDate() == null ? 0 : AvailabilityIndex.day(rule.getStartDate()),
+                rule.getEndDate() == null ? Integer.MAX_VALUE : AvailabilityIndex.day(rule.getEndDate()),
+                rule.getDaysOfWeek(), rule.getMinOccupancy(),
+                rule.getPromoCode() == null ? null : rule.getPromoCode().toUpperCase(Locale.ROOT),
+                rule.getPercent(), rule.getAmountCents());
+        }
+
+        private boolean appliesTo(String type) {
+            return roomType == null || roomType.equals(type);
+        }
+
+        private boolean covers(int day) {
+            // ORIGIN was a Wednesday, bit 0 is Monday
+            return day >= firstDay && day < endDay && (daysOfWeek == 0 || (daysOfWeek & (1 << ((day + 2) % 7))) != 0);
+        }
+
+        private boolean moreSpecificThan(Rule other) {
+            if ((roomType != null) != (other.roomType != null)) {
+                return roomType != null;
+            }
+            return id > other.id;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.RateRule;
+import com.example.demo.repository.RateRuleRepository;
+import com.example.demo.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class PricingService {
+    private final RateRuleRepository rateRuleRepository;
+    private final RoomRepository roomRepository;
+    private final PricingEngine pricingEngine;
+    private final AvailabilityIndex availabilityIndex;
+
+    @Value("${pricing.horizon-days:730}")
+    private int horizonDays = 730;
+
+    @Autowired
+    public PricingService(RateRuleRepository rateRuleRepository, RoomRepository roomRepository,
+                          PricingEngine pricingEngine, AvailabilityIndex availabilityIndex) {
+        this.rateRuleRepository = rateRuleRepository;
+        this.roomRepository = roomRepository;
+        this.pricingEngine = pricingEngine;
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    // Compiles the full window at startup and rolls it forward every night
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${pricing.roll-cron:0 5 0 * * *}")
+    public synchronized void rebuildTables() {
+        pricingEngine.rebuild(rateRuleRepository.findAll(), roomRepository.findDistinctTypes(), LocalDate.now(), horizonDays);
+    }
+
+    public List<RateRule> getAllRules() {
+        return rateRuleRepository.findAll();
+    }
+
+    public RateRule createRule(RateRule rule) {
+        RateRule saved = rateRuleRepository.save(rule);
+        refreshTables();
+        return saved;
+    }
+
+    public RateRule updateRule(RateRule rule) {
+        RateRule saved = rateRuleRepository.save(rule);
+        refreshTables();
+        return saved;
+    }
+
+    public Optional<RateRule> findRule(Long id) {
+        return rateRuleRepository.findById(id);
+    }
+
+    public void deleteRule(RateRule rule) {
+        rateRuleRepository.delete(rule);
+        refreshTables();
+    }
+
+    public PricingEngine.Quote quote(String roomType, LocalDate checkIn, LocalDate checkOut, String promoCode) {
+        try {
+            return pricingEngine.quote(roomType, checkIn, checkOut, promoCode);
+        } catch (ResourceNotFoundException e) {
+            // A room type added after the last compile only needs its own table
+            if (availabilityIndex.roomCount(roomType) == 0) {
+                throw e;
+            }
+            refreshTables();
+            return pricingEngine.quote(roomType, checkIn, checkOut, promoCode);
+        }
+    }
+
+    // Rules are read under the lock, so the last refresh to run has seen every committed change
+    private synchronized void refreshTables() {
+        pricingEngine.refresh(rateRuleRepository.findAll(), roomRepository.findDistinctTypes());
+    }
+}
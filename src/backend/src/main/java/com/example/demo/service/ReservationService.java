@@ -0,0 +1,291 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.BookingConflictException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.Guest;
+import com.example.demo.model.Reservation;
+import com.example.demo.model.Room;
+import com.example.demo.repository.GuestRepository;
+import com.example.demo.repository.ReservationRepository;
+import com.example.demo.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Service
+public class ReservationService {
+    private final ReservationRepository reservationRepository;
+    private final RoomRepository roomRepository;
+    private final GuestRepository guestRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final RoomStatusBoard roomStatusBoard;
+    private final GuestSearchIndex guestSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] roomLocks;
+
+    @Value("${booking.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${booking.backoff-ms:10}")
+    private long backoffMillis = 10;
+
+    @Autowired
+    public ReservationService(ReservationRepository reservationRepository, RoomRepository roomRepository,
+                              GuestRepository guestRepository, AvailabilityIndex availabilityIndex,
+                              RoomStatusBoard roomStatusBoard, GuestSearchIndex guestSearchIndex,
+                              PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.roomRepository = roomRepository;
+        this.guestRepository = guestRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.roomStatusBoard = roomStatusBoard;
+        this.guestSearchIndex = guestSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.roomLocks = new ReentrantLock[64];
+        for (int i = 0; i < roomLocks.length; i++) {
+            roomLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // Loads every room and the confirmed stays that have not ended yet; afterwards the index is kept
+    // current by book and cancel, so availability never needs a range scan on the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        availabilityIndex.clear();
+        for (Room room : roomRepository.findAll()) {
+            availabilityIndex.addRoom(room.getId(), room.getType());
+            // Recorded before the spans are read, so a booking landing in between only forces a resync later
+            availabilityIndex.markSynced(room.getId(), room.getVersion());
+        }
+        for (ReservationRepository.BookingSpan span : reservationRepository.findConfirmedSpansEndingAfter(LocalDate.now().minusDays(1))) {
+            availabilityIndex.book(span.getRoomId(), span.getCheckIn(), span.getCheckOut());
+        }
+    }
+
+    public Room createRoom(Room room) {
+        Room saved = roomRepository.save(room);
+        availabilityIndex.addRoom(saved.getId(), saved.getType());
+        availabilityIndex.markSynced(saved.getId(), saved.getVersion());
+        roomStatusBoard.addRoom(saved.getNumber());
+        return saved;
+    }
+
+    public List<Room> getAllRooms() {
+        return roomRepository.findAll();
+    }
+
+    public List<Room> findAvailableRooms(String type, LocalDate checkIn, LocalDate checkOut) {
+        // Rooms are never deleted, so fewer calendars than rooms means some were created on another node
+        if (roomRepository.countByType(type) != availabilityIndex.roomCount(type)) {
+            loadMissingRooms(type);
+        }
+        return roomRepository.findAllById(availabilityIndex.freeRooms(type, checkIn, checkOut));
+    }
+
+    // Under the room's stripe, so a booking on this node cannot land between adding the calendar and filling it
+    private void loadMissingRooms(String type) {
+        for (Room room : roomRepository.findAllByType(type)) {
+            ReentrantLock lock = roomLocks[stripe(room.getId())];
+            lock.lock();
+            try {
+                if (!availabilityIndex.hasRoom(room.getId())) {
+                    availabilityIndex.addRoom(room.getId(), room.getType());
+                    availabilityIndex.resync(room.getId(),
+                        reservationRepository.findConfirmedSpansForRoom(room.getId(), LocalDate.now().minusDays(1)),
+                        room.getVersion());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public Reservation book(Long roomId, String roomType, Guest guest, LocalDate checkIn, LocalDate checkOut) {
+        List<Long> candidates;
+        if (roomId != null) {
+            if (!roomRepository.existsById(roomId)) {
+                throw new ResourceNotFoundException("Room not found: " + roomId);
+            }
+            candidates = List.of(roomId);
+        } else {
+            candidates = availabilityIndex.freeRooms(roomType, checkIn, checkOut);
+        }
+        for (Long candidate : candidates) {
+            Reservation reservation = bookRoom(candidate, guest, checkIn, checkOut);
+            if (reservation != null) {
+                return reservation;
+            }
+        }
+        throw new BookingConflictException(roomId != null
+            ? "Room is not available for the selected dates"
+            : "No " + roomType + " rooms available for the selected dates");
+    }
+
+    public Optional<Reservation> cancel(Long id) {
+        Optional<Reservation> existing = reservationRepository.findById(id);
+        if (existing.isEmpty() || !Reservation.CONFIRMED.equals(existing.get().getStatus())) {
+            return existing;
+        }
+        long roomId = existing.get().getRoom().getId();
+        return Optional.of(withRoomChange(roomId, room -> {
+            Reservation reservation = reservationRepository.findById(id).orElseThrow();
+            if (Reservation.CONFIRMED.equals(reservation.getStatus())) {
+                reservation.setStatus(Reservation.CANCELLED);
+                reservationRepository.save(reservation);
+                long nextVersion = room.getVersion() + 1;
+                afterCommit(() -> {
+                    availabilityIndex.release(roomId, reservation.getCheckIn(), reservation.getCheckOut());
+                    availabilityIndex.markSynced(roomId, nextVersion);
+                });
+            }
+            return reservation;
+        }));
+    }
+
+    // Returns null when the room turns out to be taken for those nights
+    private Reservation bookRoom(long roomId, Guest guest, LocalDate checkIn, LocalDate checkOut) {
+        boolean newGuest = guest.getId() == null;
+        return withRoomChange(roomId, room -> {
+            if (!availabilityIndex.isFree(roomId, checkIn, checkOut)) {
+                return null;
+            }
+            if (newGuest) {
+                // A retried attempt must insert the guest again, the previous insert was rolled back
+                guest.setId(null);
+                guestRepository.save(guest);
+            }
+            Reservation reservation = new Reservation();
+            reservation.setRoom(room);
+            reservation.setGuest(guest);
+            reservation.setCheckIn(checkIn);
+            reservation.setCheckOut(checkOut);
+            reservation.setCreatedAt(Instant.now());
+            Reservation saved = reservationRepository.save(reservation);
+            long nextVersion = room.getVersion() + 1;
+            afterCommit(() -> {
+                availabilityIndex.book(roomId, checkIn, checkOut);
+                availabilityIndex.markSynced(roomId, nextVersion);
+                if (newGuest) {
+                    guestSearchIndex.put(guest);
+                }
+            });
+            return saved;
+        });
+    }
+
+    // Runs a booking change for one room. In-process writers queue on a striped lock; writers on other
+    // nodes are caught by the room's version, which is bumped at commit, and the change is retried with
+    // backoff after the room's calendar is reloaded. Neither path takes row or table locks.
+    private <T> T withRoomChange(long roomId, Function<Room, T> change) {
+        ReentrantLock lock = roomLocks[stripe(roomId)];
+        lock.lock();
+        try {
+            return executeWithRetry(() -> {
+                Room room = roomRepository.findForBookingChange(roomId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Room not found: " + roomId));
+                // A room added on another node has no calendar here yet; a new one is never synced, so it is loaded below
+                availabilityIndex.addRoom(roomId, room.getType());
+                if (availabilityIndex.syncedVersion(roomId) != room.getVersion()) {
+                    availabilityIndex.resync(roomId,
+                        reservationRepository.findConfirmedSpansForRoom(roomId, LocalDate.now().minusDays(1)),
+                        room.getVersion());
+                }
+                return change.apply(room);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The same for one transaction over several rooms, as a batch of channel bookings needs. Stripes are
+    // taken in index order so batches over overlapping rooms cannot deadlock. The calendars are not
+    // resynced first: callers read the rooms' spans from the database and resync after commit.
+    public <T> T withRoomsChange(Collection<Long> roomIds, Function<Map<Long, Room>, T> change) {
+        int[] stripes = roomIds.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            roomLocks[stripe].lock();
+        }
+        try {
+            return executeWithRetry(() -> {
+                Map<Long, Room> rooms = new HashMap<>();
+                if (!roomIds.isEmpty()) {
+                    for (Room room : roomRepository.findAllForBookingChange(roomIds)) {
+                        rooms.put(room.getId(), room);
+                    }
+                }
+                return change.apply(rooms);
+            });
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                roomLocks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    private int stripe(long roomId) {
+        return Math.floorMod(Long.hashCode(roomId), roomLocks.length);
+    }
+
+    private <T> T executeWithRetry(Supplier<T> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> change.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new BookingConflictException("The room is being booked by another agent, please retry");
+                }
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingConflictException("Booking interrupted, please retry");
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public Optional<Reservation> findById(Long id) {
+        return reservationRepository.findById(id);
+    }
+
+    public Optional<Guest> findGuest(Long id) {
+        return guestRepository.findById(id);
+    }
+
+    public List<Reservation> findOverlapping(LocalDate from, LocalDate to) {
+        return reservationRepository.findOverlapping(from, to);
+    }
+}
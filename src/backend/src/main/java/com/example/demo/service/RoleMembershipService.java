@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.ChangeRecord;
+import com.example.demo.model.UserRole;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.security.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Adds or removes one role for thousands of users without loading a single User: every chunk of ids is one
+// transaction of a few set-based statements on user_roles_map, and caches are invalidated once per chunk
+// through the change log
+@Service
+public class RoleMembershipService {
+    private final UserRepository userRepository;
+    private final UserRoleRepository userRoleRepository;
+    private final ChangeLog changeLog;
+    private final EventHub eventHub;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${role-membership.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    public record Result(String role, int requested, int unknown, int changed, long elapsedMillis) {}
+
+    @Autowired
+    public RoleMembershipService(UserRepository userRepository, UserRoleRepository userRoleRepository,
+                                 ChangeLog changeLog, EventHub eventHub,
+                                 PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userRoleRepository = userRoleRepository;
+        this.changeLog = changeLog;
+        this.eventHub = eventHub;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Result addMembers(String roleName, Collection<UUID> userIds) {
+        UserRole role = findRole(roleName);
+        String tenantId = TenantContext.current();
+        return apply(tenantId, role, userIds, "role-members-added", chunk -> {
+            userRepository.bumpVersionOfNonMembers(tenantId, role.getId(), chunk);
+            return userRepository.addRoleToUsers(tenantId, role.getId(), chunk);
+        });
+    }
+
+    // Removed members have to sign in again, so no client keeps acting on the roles it was given at login
+    public Result removeMembers(String roleName, Collection<UUID> userIds) {
+        UserRole role = findRole(roleName);
+        String tenantId = TenantContext.current();
+        return apply(tenantId, role, userIds, "role-members-removed", chunk -> {
+            userRepository.bumpVersionOfMembers(tenantId, role.getId(), chunk, Instant.now());
+            return userRepository.removeRoleFromUsers(tenantId, role.getId(), chunk);
+        });
+    }
+
+    private UserRole findRole(String roleName) {
+        return userRoleRepository.findByName(roleName)
+            .orElseThrow(() -> new ResourceNotFoundException("Role not found: " + roleName));
+    }
+
+    // Ids of another tenant's users count as unknown and are left alone
+    private Result apply(String tenantId, UserRole role, Collection<UUID> userIds, String event, ChunkStatement statement) {
+        long start = System.nanoTime();
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        int unknown = 0;
+        int changed = 0;
+        // Chunks commit one by one: a failure part way leaves earlier chunks applied, and retrying the
+        // whole request is safe because both statements only touch rows that still need the change
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+            int[] counts = transactionTemplate.execute(status -> {
+                int unknownInChunk = chunk.size() - (int) userRepository.countByTenantIdAndIdIn(tenantId, chunk);
+                int changedInChunk = statement.run(chunk);
+                if (changedInChunk > 0) {
+                    // One record per chunk, keyed by the role rather than by every user in it
+                    changeLog.append(ChangeRecord.USER, tenantId, "role:" + role.getName());
+                }
+                return new int[] { unknownInChunk, changedInChunk };
+            });
+            unknown += counts[0];
+            changed += counts[1];
+        }
+        if (changed > 0) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("role", role.getName());
+            payload.put("users", changed);
+            eventHub.publish(tenantId, event, payload);
+        }
+        return new Result(role.getName(), ids.size(), unknown, changed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @FunctionalInterface
+    private interface ChunkStatement {
+        int run(List<UUID> chunk);
+    }
+}
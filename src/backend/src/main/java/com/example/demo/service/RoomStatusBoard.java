@@ -0,0 +1,136 @@
+package com.example.demo.service;
+
+import com.example.demo.model.RoomStatusUpdate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Current housekeeping status of every room, one slot per room in parallel arrays. Each change bumps the
+// board version and stamps the slot with it, so a client holding version v needs only the slots stamped
+// after v, and one that is up to date is answered from a single volatile read.
+@Component
+public class RoomStatusBoard {
+    private static final String[] STATUSES = {
+        RoomStatusUpdate.CLEAN, RoomStatusUpdate.DIRTY, RoomStatusUpdate.OCCUPIED, RoomStatusUpdate.OUT_OF_ORDER
+    };
+
+    // Versions only mean something within one run of one node, so cursors carry the boot id; any other
+    // cursor gets a full snapshot
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Guarded by this
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] numbers = new String[64];
+    private byte[] statuses = new byte[64];
+    private long[] stampedAt = new long[64];
+    // Id of the log row a slot reflects; updates that arrive late from another node are older and ignored
+    private long[] appliedUpdate = new long[64];
+    private int size;
+
+    private volatile long version;
+
+    public record RoomStatus(String number, String status) {}
+
+    public record View(String version, boolean full, List<RoomStatus> rooms) {}
+
+    public synchronized void addRoom(String number) {
+        slot(number);
+    }
+
+    public synchronized void clear() {
+        slots.clear();
+        Arrays.fill(numbers, null);
+        size = 0;
+        version++;
+    }
+
+    public synchronized boolean apply(String number, String status, long updateId) {
+        int slot = slot(number);
+        if (updateId <= appliedUpdate[slot]) {
+            return false;
+        }
+        appliedUpdate[slot] = updateId;
+        byte code = code(status);
+        if (statuses[slot] != code) {
+            statuses[slot] = code;
+            stampedAt[slot] = ++version;
+        }
+        return true;
+    }
+
+    public String getVersion() {
+        return epoch + "." + version;
+    }
+
+    public View since(String cursor) {
+        long since = parse(cursor);
+        // Polls from up-to-date clients never take the lock
+        if (since == version) {
+            return new View(getVersion(), false, List.of());
+        }
+        synchronized (this) {
+            boolean full = since < 0 || since > version;
+            List<RoomStatus> rooms = new ArrayList<>();
+            for (int slot = 0; slot < size; slot++) {
+                if (full || stampedAt[slot] > since) {
+                    rooms.add(new RoomStatus(numbers[slot], STATUSES[statuses[slot]]));
+                }
+            }
+            return new View(getVersion(), full, rooms);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int slot(String number) {
+        Integer slot = slots.get(number);
+        if (slot != null) {
+            return slot;
+        }
+        if (size == numbers.length) {
+            int capacity = size * 2;
+            numbers = Arrays.copyOf(numbers, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            stampedAt = Arrays.copyOf(stampedAt, capacity);
+            appliedUpdate = Arrays.copyOf(appliedUpdate, capacity);
+        }
+        slot = size++;
+        slots.put(number, slot);
+        numbers[slot] = number;
+        statuses[slot] = 0;
+        appliedUpdate[slot] = 0;
+        // A new room is a change too, so clients polling for deltas pick it up
+        stampedAt[slot] = ++version;
+        return slot;
+    }
+
+    private long parse(String cursor) {
+        if (cursor == null) {
+            return -1;
+        }
+        int dot = cursor.indexOf('.');
+        if (dot < 0 || !epoch.equals(cursor.substring(0, dot))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(cursor.substring(dot + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte code(String status) {
+        for (byte i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown room status: " + status);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.ChangeRecord;
+import com.example.demo.model.Room;
+import com.example.demo.model.RoomStatusUpdate;
+import com.example.demo.repository.RoomRepository;
+import com.example.demo.repository.RoomStatusUpdateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Status changes go to the room_status_log first and reach the board through the change log once they
+// commit, on this node right away and on the others at their next poll
+@Service
+public class RoomStatusService {
+    private final RoomRepository roomRepository;
+    private final RoomStatusUpdateRepository roomStatusUpdateRepository;
+    private final RoomStatusBoard roomStatusBoard;
+    private final ChangeLog changeLog;
+
+    @Autowired
+    public RoomStatusService(RoomRepository roomRepository, RoomStatusUpdateRepository roomStatusUpdateRepository,
+                             RoomStatusBoard roomStatusBoard, ChangeLog changeLog) {
+        this.roomRepository = roomRepository;
+        this.roomStatusUpdateRepository = roomStatusUpdateRepository;
+        this.roomStatusBoard = roomStatusBoard;
+        this.changeLog = changeLog;
+        changeLog.subscribe(ChangeRecord.ROOM_STATUS, this::applyRecords);
+    }
+
+    // Rooms start out clean until their first logged change
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildBoard() {
+        roomStatusBoard.clear();
+        for (Room room : roomRepository.findAll()) {
+            roomStatusBoard.addRoom(room.getNumber());
+        }
+        for (RoomStatusUpdate update : roomStatusUpdateRepository.findLatestPerRoom()) {
+            roomStatusBoard.apply(update.getRoomNumber(), update.getStatus(), update.getId());
+        }
+    }
+
+    @Transactional
+    public RoomStatusUpdate updateStatus(String roomNumber, String status, String changedBy) {
+        Room room = roomRepository.findByNumber(roomNumber)
+            .orElseThrow(() -> new ResourceNotFoundException("Room not found: " + roomNumber));
+        RoomStatusUpdate update = new RoomStatusUpdate();
+        update.setRoomId(room.getId());
+        update.setRoomNumber(room.getNumber());
+        update.setStatus(status);
+        update.setChangedBy(changedBy);
+        update.setChangedAt(Instant.now());
+        RoomStatusUpdate saved = roomStatusUpdateRepository.save(update);
+        changeLog.append(ChangeRecord.ROOM_STATUS, saved.getId().toString());
+        return saved;
+    }
+
+    public RoomStatusBoard.View getStatus(String since) {
+        return roomStatusBoard.since(since);
+    }
+
+    private void applyRecords(List<ChangeRecord> records) {
+        List<Long> ids = new ArrayList<>(records.size());
+        for (ChangeRecord record : records) {
+            ids.add(Long.valueOf(record.getEntityKey()));
+        }
+        List<RoomStatusUpdate> updates = new ArrayList<>(roomStatusUpdateRepository.findAllById(ids));
+        updates.sort(Comparator.comparing(RoomStatusUpdate::getId));
+        for (RoomStatusUpdate update : updates) {
+            roomStatusBoard.apply(update.getRoomNumber(), update.getStatus(), update.getId());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.service.ColumnarSnapshot.Column;
+import com.example.demo.service.ColumnarSnapshot.Kind;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Snapshots whole tables into columnar files under exports.directory, nightly and on demand. Rows come
+// off a forward-only cursor straight into the writer, which holds one row group at a time, so heap use
+// does not grow with the table. Exports run one at a time on their own thread, in a read-only
+// transaction that goes to a replica when there is one.
+@Service
+public class SnapshotExportService {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotExportService.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    private static final Pattern FILE_NAME = Pattern.compile("([a-z-]+)-\\d{8}-\\d{6}-\\d{3}\\.cols");
+    public static final String USERS = "users";
+    public static final String ROOM_STATUS = "room-status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("snapshot-export").daemon().factory());
+    private final Map<String, Dataset> datasets = new LinkedHashMap<>();
+    private final Path directory;
+    private final int groupSize;
+    private final int fetchSize;
+    private final int maxFiles;
+
+    public record ExportFile(String name, String dataset, long bytes, Instant createdAt) {}
+
+    @FunctionalInterface
+    private interface RowStreamer {
+        void stream(ResultSet rs, ColumnarSnapshot.Writer writer) throws SQLException, IOException;
+    }
+
+    private record Dataset(String sql, List<Column> columns, RowStreamer streamer) {}
+
+    public SnapshotExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 @Value("${exports.directory:exports}") String directory,
+                                 @Value("${exports.row-group-size:8192}") int groupSize,
+                                 @Value("${exports.fetch-size:1000}") int fetchSize,
+                                 @Value("${exports.max-files:14}") int maxFiles) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.directory = Paths.get(directory);
+        this.groupSize = groupSize;
+        this.fetchSize = fetchSize;
+        this.maxFiles = maxFiles;
+        // One row per role membership, ordered by user, folded back into one row per user with a role set
+        datasets.put(USERS, new Dataset(
+            "select u.id, u.username, u.email, u.last_session, u.version, r.name, u.tenant_id from users u "
+                + "left join user_roles_map m on m.user_id = u.id left join user_roles r on r.id = m.role_id order by u.id",
+            List.of(new Column("id", Kind.UUID), new Column("username", Kind.STRING), new Column("email", Kind.STRING),
+                new Column("roles", Kind.DICT_SET), new Column("last_session", Kind.TIMESTAMP), new Column("version", Kind.LONG),
+                new Column("tenant_id", Kind.DICT)),
+            SnapshotExportService::streamUsers));
+        datasets.put(ROOM_STATUS, new Dataset(
+            "select id, room_number, status, changed_by, changed_at from room_status_log order by id",
+            List.of(new Column("id", Kind.LONG), new Column("room_number", Kind.DICT), new Column("status", Kind.DICT),
+                new Column("changed_by", Kind.DICT), new Column("changed_at", Kind.TIMESTAMP)),
+            (rs, writer) -> {
+                while (rs.next()) {
+                    writer.write(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), instant(rs.getTimestamp(5)));
+                }
+            }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<String> getDatasets() {
+        return List.copyOf(datasets.keySet());
+    }
+
+    // Queues the export and returns the name the file will have once it is complete
+    public String requestExport(String dataset) {
+        if (!datasets.containsKey(dataset)) {
+            throw new ResourceNotFoundException("Unknown dataset: " + dataset);
+        }
+        String name = newName(dataset);
+        executor.execute(() -> exportQuietly(dataset, name));
+        return name;
+    }
+
+    @Scheduled(cron = "${exports.cron:0 30 2 * * *}")
+    public void exportAll() {
+        for (String dataset : datasets.keySet()) {
+            String name = newName(dataset);
+            executor.execute(() -> exportQuietly(dataset, name));
+        }
+    }
+
+    // Written under a temporary name and moved into place when complete, so listings and downloads
+    // never see a partial file
+    public Path export(String dataset, String name) throws IOException {
+        Dataset spec = datasets.get(dataset);
+        Files.createDirectories(directory);
+        Path partial = directory.resolve(name + ".partial");
+        Path target = directory.resolve(name);
+        long started = System.nanoTime();
+        long rows;
+        try (ColumnarSnapshot.Writer writer = new ColumnarSnapshot.Writer(partial, dataset, spec.columns(), groupSize)) {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                boolean mysql = con.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+                try (PreparedStatement statement = con.prepareStatement(spec.sql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    // Connector/J buffers the whole result unless given this sentinel, which makes it stream row by row
+                    statement.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        spec.streamer().stream(rs, writer);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }));
+            rows = writer.getRowCount();
+        } catch (RuntimeException | IOException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Exported {} {} rows to {} ({} bytes) in {} ms", rows, dataset, target, Files.size(target),
+            (System.nanoTime() - started) / 1_000_000);
+        deleteOldFiles(dataset);
+        return target;
+    }
+
+    public List<ExportFile> listExports() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<ExportFile> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path path : listing.sorted(Comparator.reverseOrder()).toList()) {
+                Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    files.add(new ExportFile(path.getFileName().toString(), matcher.group(1), Files.size(path),
+                        Files.getLastModifiedTime(path).toInstant()));
+                }
+            }
+        }
+        return files;
+    }
+
+    // Only names this service produces resolve, so a download can never reach outside the directory
+    public Optional<Path> resolveExport(String name) {
+        if (!FILE_NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path path = directory.resolve(name);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private void exportQuietly(String dataset, String name) {
+        try {
+            export(dataset, name);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Export of {} failed: {}", dataset, e.getMessage());
+        }
+    }
+
+    private void deleteOldFiles(String dataset) throws IOException {
+        List<ExportFile> files = listExports().stream().filter(file -> file.dataset().equals(dataset)).toList();
+        // Newest first, so everything past maxFiles is the oldest
+        for (int i = maxFiles; i < files.size(); i++) {
+            Files.deleteIfExists(directory.resolve(files.get(i).name()));
+        }
+    }
+
+    private static String newName(String dataset) {
+        return dataset + "-" + FILE_TIMESTAMP.format(Instant.now()) + ".cols";
+    }
+
+    private static void streamUsers(ResultSet rs, ColumnarSnapshot.Writer writer) throws SQLException, IOException {
+        UUID current = null;
+        Object[] row = null;
+        List<String> roles = null;
+        while (rs.next()) {
+            UUID id = uuid(rs.getObject(1));
+            if (!id.equals(current)) {
+                if (row != null) {
+                    writer.write(row);
+                }
+                current = id;
+                roles = new ArrayList<>(2);
+                row = new Object[] { id, rs.getString(2), rs.getString(3), roles, instant(rs.getTimestamp(4)), rs.getLong(5),
+                    rs.getString(7) };
+            }
+            String role = rs.getString(6);
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+        if (row != null) {
+            writer.write(row);
+        }
+    }
+
+    // H2 hands back UUIDs, MySQL the BINARY(16) Hibernate stores them in
+    private static UUID uuid(Object value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap((byte[]) value);
+        return new UUID(bytes.getLong(), bytes.getLong());
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
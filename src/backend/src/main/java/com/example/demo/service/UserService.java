@@ -1,13 +1,19 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.UserFields;
+import com.example.demo.model.ChangeRecord;
 import com.example.demo.model.User;
+import com.example.demo.notification.NotificationOutbox;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.security.TenantContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,42 +21,77 @@ import java.util.UUID;
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ChangeLog changeLog;
+    private final NotificationOutbox notificationOutbox;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserRoleRepository userRoleRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserRoleRepository userRoleRepository,
+                       ChangeLog changeLog, NotificationOutbox notificationOutbox) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.changeLog = changeLog;
+        this.notificationOutbox = notificationOutbox;
     }
 
+    @Transactional
     public User registerUser(User user) {
+        return registerUser(user, null);
+    }
+
+    // New users join the caller's tenant unless they were given one. The notification, if any, is queued in
+    // the same transaction and sent later, so the request never waits on the mail server.
+    @Transactional
+    public User registerUser(User user, String notification) {
+        if (user.getTenantId() == null) {
+            user.setTenantId(TenantContext.current());
+        }
         String password = user.getPassword();
         if (password != null && !password.startsWith("$2")) {
             user.setPassword(passwordEncoder.encode(password));
         }
-        return userRepository.save(user);
+        user.setVersion(user.getVersion() + 1);
+        User saved = userRepository.save(user);
+        // Caches on every node, this one included, are invalidated once the write is visible, so a
+        // concurrent reader never caches stale data under a new ETag
+        changeLog.append(ChangeRecord.USER, saved.getTenantId(), saved.getId().toString());
+        if (notification != null) {
+            notificationOutbox.enqueue(notification, saved);
+        }
+        return saved;
     }
 
-    public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+    public Optional<User> findByUsername(String tenantId, String username) {
+        return userRepository.findByTenantIdAndUsername(tenantId, username);
     }
 
-    public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+    public Optional<User> findByEmail(String tenantId, String email) {
+        return userRepository.findByTenantIdAndEmail(tenantId, email);
+    }
+
+    // Read-write so credentials are checked on the primary: a replica may not have a new account or password yet
+    @Transactional
+    public Optional<User> findByEmailForLogin(String tenantId, String email) {
+        return userRepository.findByTenantIdAndEmail(tenantId, email);
     }
 
     public boolean checkPassword(User user, String rawPassword) {
         return passwordEncoder.matches(rawPassword, user.getPassword());
     }
 
-    public Optional<User> findById(UUID id) {
-        return userRepository.findById(id);
+    public Optional<User> findById(String tenantId, UUID id) {
+        return userRepository.findByTenantIdAndId(tenantId, id);
     }
 
     public List<User> getAllAdmins() {
-        return userRepository.findAllByRoles_Name("ADMIN");
+        return userRepository.findAllByTenantIdAndRoles_Name(TenantContext.current(), "ADMIN");
     }
 
     public List<User> getAllUsers() {
-        return userRepository.findAll();
+        return userRepository.findAllByTenantId(TenantContext.current());
+    }
+
+    // Only the requested fields are read; see UserRepositoryCustomImpl
+    public List<Map<String, Object>> getAllUsers(UserFields fields) {
+        return userRepository.findFieldsByTenantId(TenantContext.current(), fields);
     }
 } 
\ No newline at end of file
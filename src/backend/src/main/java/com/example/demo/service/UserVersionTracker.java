@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ChangeRecord;
+import com.example.demo.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UserVersionTracker {
+    // The collection version lives in memory, so the boot id keeps ETags from colliding across restarts.
+    // ETags are weak because Tomcat refuses to gzip responses that carry a strong one.
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    // One version per tenant, so a busy property's writes never invalidate another's cached lists
+    private final Map<String, TenantVersion> versions = new ConcurrentHashMap<>();
+    private final ChangeLog changeLog;
+    // Read replicas may serve the list from before a write for up to their lag bound, under the ETag that
+    // came after it, so the version is bumped once more when that bound has passed
+    private final long replicaLagMillis;
+
+    private static final class TenantVersion {
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicLong replicaCatchUpAt = new AtomicLong();
+    }
+
+    // User writes on any node, this one included, reach the tracker through the change log after commit
+    public UserVersionTracker(ChangeLog changeLog,
+                              @Value("${datasource.replica.urls:}") String replicaUrls,
+                              @Value("${datasource.replica.max-lag-ms:2000}") long replicaMaxLagMillis,
+                              @Value("${datasource.replica.check-interval-ms:1000}") long replicaCheckMillis) {
+        this.changeLog = changeLog;
+        this.replicaLagMillis = replicaUrls.isBlank() ? 0 : replicaMaxLagMillis + replicaCheckMillis;
+        changeLog.subscribe(ChangeRecord.USER, records -> {
+            Set<String> tenants = new HashSet<>();
+            for (ChangeRecord record : records) {
+                tenants.add(record.getTenantId());
+            }
+            for (String tenantId : tenants) {
+                markChanged(tenantId);
+                if (replicaLagMillis > 0) {
+                    tenant(tenantId).replicaCatchUpAt.set(System.currentTimeMillis() + replicaLagMillis);
+                }
+            }
+        });
+    }
+
+    public long getCollectionVersion(String tenantId) {
+        return tenant(tenantId).version.get();
+    }
+
+    public void markChanged(String tenantId) {
+        tenant(tenantId).version.incrementAndGet();
+    }
+
+    public String collectionEtag(String tenantId) {
+        TenantVersion tenant = tenant(tenantId);
+        // Behind on other nodes' writes: hand out a fresh ETag so no client is told its copy is current
+        if (!changeLog.isWithinLagBound()) {
+            tenant.version.incrementAndGet();
+        }
+        long catchUpAt = tenant.replicaCatchUpAt.get();
+        if (catchUpAt != 0 && System.currentTimeMillis() >= catchUpAt && tenant.replicaCatchUpAt.compareAndSet(catchUpAt, 0)) {
+            tenant.version.incrementAndGet();
+        }
+        return "W/\"users-" + tenantId + "-" + bootId + "-" + tenant.version.get() + "\"";
+    }
+
+    public String userEtag(User user) {
+        return "W/\"user-" + user.getId() + "-" + user.getVersion() + "\"";
+    }
+
+    private TenantVersion tenant(String tenantId) {
+        return versions.computeIfAbsent(tenantId, t -> new TenantVersion());
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.demo.channel;
+
+import com.example.demo.model.InboundBooking;
+import com.example.demo.repository.InboundBookingRepository;
+import com.example.demo.service.AvailabilityIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The queue is kept far smaller than a flash sale so the stand-in is refused and has to retry along the way
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:channel;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "channel.webhook-secret=" + ChannelBookingIngestionTest.SECRET,
+    "channel.queue.capacity=64",
+    "channel.batch-size=16",
+    "channel.poll-interval-ms=20",
+    "channel.depth-refresh-ms=200",
+    "channel.retry-after-seconds=0",
+    "channel.max-body-bytes=65536"
+})
+class ChannelBookingIngestionTest {
+    static final String SECRET = "flash-sale-secret";
+    private static final String RECORDING = "/channel/flash-sale-2026-10-01.jsonl";
+    private static final LocalDate RECORDED_ON = LocalDate.of(2026, 10, 1);
+    private static final int PASSES = 3;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private InboundBookingRepository inboundBookingRepository;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void replayedFlashSaleIsAppliedOnceAndInRoomOrder() throws Exception {
+        List<JsonNode> recording = ChannelManagerStandIn.loadRecording(RECORDING, RECORDED_ON);
+        ChannelManagerStandIn standIn = new ChannelManagerStandIn(uri("/api/v1/channel/bookings"), SECRET);
+        long started = System.nanoTime();
+        standIn.replay(recording, PASSES);
+        long acknowledged = System.nanoTime();
+        awaitTrue(() -> inboundBookingRepository.countByStatus(InboundBooking.PENDING) == 0);
+        long applied = System.nanoTime();
+        System.out.printf("%d deliveries acknowledged in %.0f ms (%d refused and retried), all applied after %.0f ms%n",
+            standIn.getAccepted(), (acknowledged - started) / 1e6, standIn.getRefused(), (applied - started) / 1e6);
+
+        Expected expected = Expected.of(recording, PASSES);
+        for (String status : List.of(InboundBooking.APPLIED, InboundBooking.DUPLICATE, InboundBooking.REJECTED)) {
+            assertThat(inboundBookingRepository.countByStatus(status)).as(status).isEqualTo(expected.outcomes.getOrDefault(status, 0L));
+        }
+        assertThat(inboundBookingRepository.countByStatus(InboundBooking.FAILED)).isZero();
+
+        // One reservation per external ref, in the state its room's events leave it in
+        Map<String, String> reservations = new HashMap<>();
+        jdbcTemplate.query("SELECT r.external_ref, r.status, m.number, r.check_in FROM reservations r "
+                + "JOIN rooms m ON m.id = r.room_id WHERE r.external_ref IS NOT NULL",
+            row -> {
+                reservations.put(row.getString(1), row.getString(2) + " " + row.getString(3) + " " + row.getDate(4).toLocalDate());
+            });
+        assertThat(reservations).isEqualTo(expected.reservations);
+
+        Integer overlapping = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservations a JOIN reservations b "
+            + "ON a.room_id = b.room_id AND a.id < b.id AND a.check_in < b.check_out AND b.check_in < a.check_out "
+            + "WHERE a.status = 'CONFIRMED' AND b.status = 'CONFIRMED'", Integer.class);
+        assertThat(overlapping).isZero();
+
+        // The calendars were resynced after each batch, so availability agrees with the table
+        jdbcTemplate.query("SELECT room_id, check_in, check_out FROM reservations WHERE status = 'CONFIRMED'",
+            row -> {
+                assertThat(availabilityIndex.isFree(row.getLong(1), row.getDate(2).toLocalDate(), row.getDate(3).toLocalDate())).isFalse();
+            });
+    }
+
+    @Test
+    void deliveriesThatDoNotFitTheQueueAreRefused() throws Exception {
+        // More than the queue holds, but within the per-request limit of 100
+        ArrayNode bookings = objectMapper.createArrayNode();
+        for (int i = 0; i < 80; i++) {
+            bookings.add(booking("oversized-" + i));
+        }
+        HttpResponse<String> response = new ChannelManagerStandIn(uri("/api/v1/channel/bookings"), SECRET)
+            .send(objectMapper.writeValueAsBytes(bookings));
+        assertThat(response.statusCode()).as(response.body()).isEqualTo(429);
+        assertThat(response.headers().firstValue("Retry-After")).isPresent();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM channel_booking_inbox WHERE external_ref LIKE 'booking.com:oversized-%'",
+            Integer.class)).isZero();
+    }
+
+    @Test
+    void unsignedAndInvalidDeliveriesAreNotStaged() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        byte[] body = objectMapper.writeValueAsBytes(booking("unsigned-1"));
+        HttpResponse<String> unsigned = client.send(HttpRequest.newBuilder(uri("/api/v1/channel/bookings"))
+            .header("Content-Type", "application/json")
+            .header("X-Channel-Signature", ChannelManagerStandIn.sign(body, "not-the-secret"))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(unsigned.statusCode()).isEqualTo(401);
+
+        ObjectNode invalid = booking("invalid-1");
+        invalid.put("checkOut", invalid.get("checkIn").asText());
+        HttpResponse<String> rejected = new ChannelManagerStandIn(uri("/api/v1/channel/bookings"), SECRET)
+            .send(objectMapper.writeValueAsString(List.of(booking("invalid-0"), invalid)).getBytes(StandardCharsets.UTF_8));
+        assertThat(rejected.statusCode()).isEqualTo(400);
+        assertThat(objectMapper.readTree(rejected.body()).path("message").asText()).startsWith("Booking 1:");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM channel_booking_inbox WHERE external_ref IN "
+            + "('booking.com:unsigned-1', 'booking.com:invalid-0', 'booking.com:invalid-1')", Integer.class)).isZero();
+    }
+
+    @Test
+    void oversizedBodiesAreRefusedBeforeTheyAreRead() throws Exception {
+        ArrayNode bookings = objectMapper.createArrayNode();
+        for (int i = 0; i < 50; i++) {
+            ObjectNode booking = booking("padded-" + i);
+            booking.put("notes", "x".repeat(2000));
+            bookings.add(booking);
+        }
+        HttpResponse<String> response = new ChannelManagerStandIn(uri("/api/v1/channel/bookings"), SECRET)
+            .send(objectMapper.writeValueAsBytes(bookings));
+        assertThat(response.statusCode()).isEqualTo(413);
+        assertThat(objectMapper.readTree(response.body()).path("message").asText()).startsWith("Request body cannot exceed");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM channel_booking_inbox WHERE external_ref LIKE 'booking.com:padded-%'",
+            Integer.class)).isZero();
+    }
+
+    private ObjectNode booking(String reservationId) {
+        ObjectNode booking = objectMapper.createObjectNode();
+        booking.put("channel", "booking.com");
+        booking.put("reservationId", reservationId);
+        booking.put("event", "CONFIRMED");
+        booking.put("roomNumber", "101");
+        booking.put("checkIn", LocalDate.now().plusDays(400).toString());
+        booking.put("checkOut", LocalDate.now().plusDays(401).toString());
+        booking.putObject("guest").put("name", "Test Guest");
+        return booking;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static void awaitTrue(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.get()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Condition not met in time");
+    }
+
+    // Applies the recording one room at a time, in the order the stand-in delivers it; rooms never share
+    // a reservation, so the order between rooms does not matter
+    private static final class Expected {
+        private final Map<String, Long> outcomes = new HashMap<>();
+        private final Map<String, String> reservations = new HashMap<>();
+
+        static Expected of(List<JsonNode> recording, int passes) {
+            Map<String, List<JsonNode>> lanes = new LinkedHashMap<>();
+            for (JsonNode event : recording) {
+                lanes.computeIfAbsent(event.get("roomNumber").asText(), room -> new ArrayList<>()).add(event);
+            }
+            Expected expected = new Expected();
+            for (Map.Entry<String, List<JsonNode>> lane : lanes.entrySet()) {
+                Map<String, LocalDate[]> stays = new HashMap<>();
+                for (int pass = 0; pass < passes; pass++) {
+                    for (JsonNode event : lane.getValue()) {
+                        expected.outcomes.merge(expected.apply(lane.getKey(), event, stays), 1L, Long::sum);
+                    }
+                }
+            }
+            return expected;
+        }
+
+        private String apply(String room, JsonNode event, Map<String, LocalDate[]> stays) {
+            String ref = event.get("channel").asText() + ":" + event.get("reservationId").asText();
+            String current = reservations.get(ref);
+            if (event.get("event").asText().equals("CANCELLED")) {
+                if (current == null) {
+                    return InboundBooking.REJECTED;
+                }
+                if (current.startsWith("CANCELLED")) {
+                    return InboundBooking.DUPLICATE;
+                }
+                reservations.put(ref, current.replaceFirst("CONFIRMED", "CANCELLED"));
+                stays.remove(ref);
+                return InboundBooking.APPLIED;
+            }
+            if (current != null) {
+                return InboundBooking.DUPLICATE;
+            }
+            LocalDate checkIn = LocalDate.parse(event.get("checkIn").asText());
+            LocalDate checkOut = LocalDate.parse(event.get("checkOut").asText());
+            for (LocalDate[] stay : stays.values()) {
+                if (checkIn.isBefore(stay[1]) && checkOut.isAfter(stay[0])) {
+                    return InboundBooking.REJECTED;
+                }
+            }
+            stays.put(ref, new LocalDate[] { checkIn, checkOut });
+            reservations.put(ref, "CONFIRMED " + room + " " + checkIn);
+            return InboundBooking.APPLIED;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.channel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stands in for a channel manager: replays a recorded session against the webhook as fast as it is
+// acknowledged. Each room gets a lane that sends the room's events one at a time in recorded order, the
+// way channel managers keep a room's updates in order, and backs off on 429 or 503 for as long as Retry-After says.
+final class ChannelManagerStandIn {
+    private final URI endpoint;
+    private final String secret;
+    // Webhook senders speak HTTP/1.1; an h2c upgrade would have Tomcat refuse any body over maxSavePostSize
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+
+    ChannelManagerStandIn(URI endpoint, String secret) {
+        this.endpoint = endpoint;
+        this.secret = secret;
+    }
+
+    // One delivery per line, with the stays moved forward by however long ago the session was recorded
+    static List<JsonNode> loadRecording(String resource, LocalDate recordedOn) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        long shift = ChronoUnit.DAYS.between(recordedOn, LocalDate.now());
+        List<JsonNode> events = new ArrayList<>();
+        try (InputStream in = ChannelManagerStandIn.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Recording not found: " + resource);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                ObjectNode event = (ObjectNode) objectMapper.readTree(line);
+                for (String field : List.of("checkIn", "checkOut")) {
+                    if (event.hasNonNull(field)) {
+                        event.put(field, LocalDate.parse(event.get(field).asText()).plusDays(shift).toString());
+                    }
+                }
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    static String sign(byte[] body, String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Sends the whole recording the given number of times; later passes are redeliveries of the first
+    void replay(List<JsonNode> events, int passes) throws Exception {
+        Map<String, List<JsonNode>> lanes = new LinkedHashMap<>();
+        for (JsonNode event : events) {
+            lanes.computeIfAbsent(event.get("roomNumber").asText(), room -> new ArrayList<>()).add(event);
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (List<JsonNode> lane : lanes.values()) {
+                running.add(executor.submit(() -> {
+                    for (int pass = 0; pass < passes; pass++) {
+                        for (JsonNode event : lane) {
+                            deliver(objectMapper.writeValueAsBytes(event));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> lane : running) {
+                lane.get(120, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    HttpResponse<String> send(byte[] body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(endpoint)
+            .header("Content-Type", "application/json")
+            .header("X-Channel-Signature", sign(body, secret))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    long getAccepted() {
+        return accepted.get();
+    }
+
+    long getRefused() {
+        return refused.get();
+    }
+
+    private void deliver(byte[] body) throws IOException, InterruptedException {
+        while (true) {
+            HttpResponse<String> response = send(body);
+            if (response.statusCode() == 202) {
+                accepted.incrementAndGet();
+                return;
+            }
+            // 503 comes from the concurrency limiter shedding the flood before it reaches the inbox
+            if (response.statusCode() != 429 && response.statusCode() != 503) {
+                throw new AssertionError("Delivery answered " + response.statusCode() + ": " + response.body());
+            }
+            refused.incrementAndGet();
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            Thread.sleep(Math.max(retryAfter * 1000, 10));
+        }
+    }
+}
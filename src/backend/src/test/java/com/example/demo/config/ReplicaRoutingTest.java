@@ -0,0 +1,145 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two embedded databases stand in for a primary and its replica. Nothing replicates between them: the test
+// copies the primary over when it wants the replica caught up, and marks the copy so reads show where they went.
+// The copy's heartbeat stops there too, so a replica left alone counts as lagging after max-lag-ms.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "datasource.replica.urls=" + ReplicaRoutingTest.REPLICA,
+    "datasource.replica.max-lag-ms=5000",
+    "datasource.replica.check-interval-ms=100",
+    "datasource.replica.pin-ms=8000"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingTest {
+    static final String REPLICA = "jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReplicaRoutingDataSource routing;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA, "sa", ""));
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @Order(1)
+    void readOnlyTrafficGoesToTheReplica() throws Exception {
+        catchUpReplica();
+        String token = login("user@example.com", "user123");
+        assertThat(email(get("/api/v1/users/me", token))).isEqualTo("replica-user@example.com");
+    }
+
+    @Test
+    @Order(2)
+    void writerReadsOwnWritesWhileOthersStayOnTheReplica() throws Exception {
+        catchUpReplica();
+        String userToken = login("user@example.com", "user123");
+        patchMe(login("admin@example.com", "admin123"), "{\"email\":\"admin2@example.com\"}");
+        // Token issue times have whole seconds, so a token from the same second as the write would be refused
+        Thread.sleep(1_100);
+        String adminToken = login("admin2@example.com", "admin123");
+
+        // The replica never receives the write, so only the primary can answer with the new email
+        assertThat(email(get("/api/v1/users/me", adminToken))).isEqualTo("admin2@example.com");
+        assertThat(email(get("/api/v1/users/me", userToken))).isEqualTo("replica-user@example.com");
+    }
+
+    @Test
+    @Order(3)
+    void laggingReplicaIsSkippedUntilItCatchesUp() throws Exception {
+        catchUpReplica();
+        String userToken = login("user@example.com", "user123");
+        assertThat(email(get("/api/v1/users/me", userToken))).isEqualTo("replica-user@example.com");
+
+        patchMe(login("admin2@example.com", "admin123"), "{\"username\":\"admin\"}");
+        awaitHealthy(false);
+        assertThat(replica.queryForObject("select beat from replica_heartbeat where id = 1", Long.class))
+            .isLessThan(jdbcTemplate.queryForObject("select beat from replica_heartbeat where id = 1", Long.class));
+        assertThat(email(get("/api/v1/users/me", userToken))).isEqualTo("user@example.com");
+
+        catchUpReplica();
+        assertThat(email(get("/api/v1/users/me", userToken))).isEqualTo("replica-user@example.com");
+    }
+
+    private void catchUpReplica() throws Exception {
+        Path script = Files.createTempFile("routing-primary", ".sql");
+        jdbcTemplate.execute("SCRIPT TO '" + script + "'");
+        replica.execute("DROP ALL OBJECTS");
+        replica.execute("RUNSCRIPT FROM '" + script + "'");
+        replica.update("UPDATE users SET email = 'replica-user@example.com' WHERE username = 'user'");
+        Files.delete(script);
+        awaitHealthy(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void awaitHealthy(boolean healthy) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            List<Map<String, Object>> replicas = (List<Map<String, Object>>) routing.getStats().get("replicas");
+            if (replicas.get(0).get("healthy").equals(healthy)) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Replica did not become " + (healthy ? "healthy" : "unhealthy"));
+    }
+
+    private void patchMe(String token, String body) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/v1/users/me"))
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type", "application/json")
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(body)));
+        assertThat(response.statusCode()).isEqualTo(200);
+    }
+
+    private String login(String email, String password) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/v1/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}")));
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    private String email(HttpResponse<String> response) throws Exception {
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.path("user").path("email").asText();
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder builder) throws Exception {
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.service.ClientLogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientLogsControllerTest {
+    private static final int MAX_BATCH_BYTES = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ClientLogService service;
+    private ClientLogsController controller;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void createController() {
+        service = new ClientLogService(objectMapper, 1024, directory.toString(), 1 << 20, 10, 16384, 100_000);
+        service.start();
+        controller = new ClientLogsController(service, objectMapper);
+        ReflectionTestUtils.setField(controller, "maxBatchBytes", MAX_BATCH_BYTES);
+        ReflectionTestUtils.setField(controller, "maxBatchEntries", 3);
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        SecurityContextHolder.clearContext();
+        service.shutdown();
+    }
+
+    @Test
+    void chunkedBodiesOverTheLimitAreRefusedBeforeParsing() throws Exception {
+        String array = "[" + "{\"message\":\"x\"},".repeat(MAX_BATCH_BYTES / 10) + "{}]";
+        assertThat(controller.ingest(chunked("application/json", array)).getStatusCode().value()).isEqualTo(413);
+
+        // One line and no newline, so reading it a line at a time would have buffered all of it
+        String line = "{\"message\":\"" + "x".repeat(4 * MAX_BATCH_BYTES) + "\"}";
+        ResponseEntity<?> refused = controller.ingest(chunked("application/x-ndjson", line));
+        assertThat(refused.getStatusCode().value()).isEqualTo(413);
+        assertThat(body(refused)).containsEntry("status", "fail")
+            .containsEntry("message", "Batch cannot exceed " + MAX_BATCH_BYTES + " bytes");
+        assertThat(service.getStats()).containsEntry("accepted", 0L);
+    }
+
+    @Test
+    void ndjsonLinesAreSplitCountedAndCapped() throws Exception {
+        // The malformed line still takes one of the three places
+        String lines = "{\"message\":\"one\"}\r\n\n  \nnot json\n{\"message\":\"two\"}\n{\"message\":\"three\"}\n{\"message\":\"four\"}";
+        ResponseEntity<?> response = controller.ingest(chunked("application/x-ndjson", lines));
+        assertThat(response.getStatusCode().value()).isEqualTo(202);
+        assertThat(body(response)).containsEntry("accepted", 2)
+            .containsEntry("dropped", Map.of("rateLimited", 0, "bufferFull", 0, "malformed", 1, "overBatchLimit", 2));
+
+        // Exactly at the limit is still accepted
+        String single = "{\"message\":\"" + "x".repeat(MAX_BATCH_BYTES - 14) + "\"}";
+        assertThat(single.getBytes(StandardCharsets.UTF_8)).hasSize(MAX_BATCH_BYTES);
+        assertThat(controller.ingest(chunked("application/json", single)).getStatusCode().value()).isEqualTo(202);
+    }
+
+    // Sent without a Content-Length, as a chunked request arrives
+    private static MockHttpServletRequest chunked(String contentType, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/client-logs") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType(contentType);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(ResponseEntity<?> response) {
+        return (Map<String, Object>) response.getBody();
+    }
+}
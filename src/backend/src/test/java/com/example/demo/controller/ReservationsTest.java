@@ -0,0 +1,156 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TenantContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every test books rooms of its own type, so the tests do not see each other's rooms
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:reservations;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class ReservationsTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String token;
+
+    @BeforeAll
+    void signIn() {
+        User admin = userRepository.findByTenantIdAndUsername(TenantContext.DEFAULT, "admin").orElseThrow();
+        token = jwtUtil.generateToken(admin.getId().toString(), admin.getTenantId());
+    }
+
+    @Test
+    void checkInsBeforeTodayAreRefused() throws Exception {
+        long room = createRoom("P-101", "PAST");
+
+        HttpResponse<String> booking = book(room, null, TODAY.minusDays(1), TODAY.plusDays(1));
+        assertThat(booking.statusCode()).isEqualTo(400);
+        assertThat(objectMapper.readTree(booking.body()).path("message").asText()).isEqualTo("Check-in cannot be in the past");
+        assertThat(availability("PAST", TODAY.minusDays(3), TODAY.minusDays(1)).statusCode()).isEqualTo(400);
+
+        // Today is still bookable, and listing reservations accepts any range
+        assertThat(freeRooms("PAST", TODAY, TODAY.plusDays(1))).containsExactly(room);
+        assertThat(book(room, null, TODAY, TODAY.plusDays(1)).statusCode()).isEqualTo(201);
+        assertThat(get("/api/v1/reservations?from=" + TODAY.minusDays(30) + "&to=" + TODAY.plusDays(2)).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void roomsAddedBehindTheIndexsBackAreFoundWithTheirBookings() throws Exception {
+        long known = createRoom("A-101", "ANNEX");
+        // As another node would: straight into the database, with a stay this node never saw booked
+        jdbcTemplate.update("INSERT INTO rooms (number, type, version) VALUES ('A-102', 'ANNEX', 3)");
+        long added = jdbcTemplate.queryForObject("select id from rooms where number = 'A-102'", Long.class);
+        jdbcTemplate.update("INSERT INTO guests (full_name) VALUES ('Elsewhere Guest')");
+        long guest = jdbcTemplate.queryForObject("select id from guests where full_name = 'Elsewhere Guest'", Long.class);
+        jdbcTemplate.update("INSERT INTO reservations (room_id, guest_id, check_in, check_out, status, created_at) "
+            + "VALUES (?, ?, ?, ?, 'CONFIRMED', ?)", added, guest, TODAY.plusDays(10), TODAY.plusDays(12), Timestamp.from(Instant.now()));
+
+        assertThat(freeRooms("ANNEX", TODAY.plusDays(1), TODAY.plusDays(3))).containsExactlyInAnyOrder(known, added);
+        assertThat(freeRooms("ANNEX", TODAY.plusDays(11), TODAY.plusDays(13))).containsExactly(known);
+
+        assertThat(book(added, null, TODAY.plusDays(11), TODAY.plusDays(12)).statusCode()).isEqualTo(409);
+        assertThat(book(added, null, TODAY.plusDays(1), TODAY.plusDays(3)).statusCode()).isEqualTo(201);
+        assertThat(freeRooms("ANNEX", TODAY.plusDays(1), TODAY.plusDays(3))).containsExactly(known);
+    }
+
+    @Test
+    void aCancelledStayFreesItsNights() throws Exception {
+        long room = createRoom("L-101", "LOFT");
+        HttpResponse<String> booked = book(null, "LOFT", TODAY.plusDays(5), TODAY.plusDays(8));
+        assertThat(booked.statusCode()).isEqualTo(201);
+        long reservation = objectMapper.readTree(booked.body()).path("reservation").path("id").asLong();
+
+        assertThat(freeRooms("LOFT", TODAY.plusDays(7), TODAY.plusDays(9))).isEmpty();
+        assertThat(book(null, "LOFT", TODAY.plusDays(7), TODAY.plusDays(9)).statusCode()).isEqualTo(409);
+        // Check-out day is free for the next guest
+        assertThat(freeRooms("LOFT", TODAY.plusDays(8), TODAY.plusDays(9))).containsExactly(room);
+
+        HttpResponse<String> cancelled = send(HttpRequest.newBuilder(uri("/api/v1/reservations/" + reservation)).DELETE());
+        assertThat(cancelled.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readTree(cancelled.body()).path("reservation").path("status").asText()).isEqualTo("CANCELLED");
+
+        assertThat(freeRooms("LOFT", TODAY.plusDays(7), TODAY.plusDays(9))).containsExactly(room);
+        assertThat(book(null, "LOFT", TODAY.plusDays(7), TODAY.plusDays(9)).statusCode()).isEqualTo(201);
+    }
+
+    private long createRoom(String number, String type) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/v1/rooms"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("number", number, "type", type)))));
+        assertThat(response.statusCode()).isEqualTo(201);
+        return objectMapper.readTree(response.body()).path("room").path("id").asLong();
+    }
+
+    private HttpResponse<String> book(Long roomId, String roomType, LocalDate checkIn, LocalDate checkOut) throws Exception {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("roomId", roomId);
+        body.put("roomType", roomType);
+        body.put("guestName", "Test Guest");
+        body.put("checkIn", checkIn.toString());
+        body.put("checkOut", checkOut.toString());
+        return send(HttpRequest.newBuilder(uri("/api/v1/reservations"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))));
+    }
+
+    private HttpResponse<String> availability(String type, LocalDate from, LocalDate to) throws Exception {
+        return get("/api/v1/reservations/availability?type=" + type + "&from=" + from + "&to=" + to);
+    }
+
+    private List<Long> freeRooms(String type, LocalDate from, LocalDate to) throws Exception {
+        HttpResponse<String> response = availability(type, from, to);
+        assertThat(response.statusCode()).isEqualTo(200);
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode room : objectMapper.readTree(response.body()).path("rooms")) {
+            ids.add(room.path("id").asLong());
+        }
+        return ids;
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TenantContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:role-members;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class RoleMembersTest {
+    private static final String PASSWORD = "$2a$10$membersmembersmembersmembersmembersmembersmembersmemb";
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<UUID> members = new ArrayList<>();
+    private UUID nonMember;
+    private UUID otherTenantMember;
+    private long userRole;
+    private long supervisorRole;
+    private String adminToken;
+
+    @BeforeAll
+    void seedUsers() {
+        userRole = userRoleRepository.findByName("USER").orElseThrow().getId();
+        supervisorRole = userRoleRepository.findByName("SUPERVISOR").orElseThrow().getId();
+        for (int i = 0; i < 3; i++) {
+            members.add(insert(TenantContext.DEFAULT, "member" + i, userRole, supervisorRole));
+        }
+        nonMember = insert(TenantContext.DEFAULT, "bystander", userRole);
+        // Same role, same name, another property
+        otherTenantMember = insert("other-resort", "member0", userRole, supervisorRole);
+        User admin = userRepository.findByTenantIdAndUsername(TenantContext.DEFAULT, "admin").orElseThrow();
+        adminToken = jwtUtil.generateToken(admin.getId().toString(), admin.getTenantId());
+    }
+
+    @Test
+    void removingARoleDeletesTheMembershipsAndSignsTheMembersOut() throws Exception {
+        List<String> memberTokens = new ArrayList<>();
+        for (UUID member : members) {
+            String token = jwtUtil.generateToken(member.toString(), TenantContext.DEFAULT);
+            assertThat(get("/api/v1/users/me", token).statusCode()).isEqualTo(200);
+            memberTokens.add(token);
+        }
+        String bystanderToken = jwtUtil.generateToken(nonMember.toString(), TenantContext.DEFAULT);
+
+        List<String> ids = new ArrayList<>();
+        members.forEach(id -> ids.add(id.toString()));
+        ids.add(nonMember.toString());
+        ids.add(otherTenantMember.toString());
+        ids.add(UUID.randomUUID().toString());
+        // The same member twice counts once
+        ids.add(members.get(0).toString());
+        JsonNode removed = objectMapper.readTree(removeSupervisors(ids).body());
+        assertThat(removed.path("status").asText()).isEqualTo("success");
+        assertThat(removed.path("requested").asInt()).isEqualTo(6);
+        assertThat(removed.path("removed").asInt()).isEqualTo(3);
+        assertThat(removed.path("unchanged").asInt()).isEqualTo(1);
+        // Another tenant's user is unknown here, like an id that does not exist at all
+        assertThat(removed.path("unknown").asInt()).isEqualTo(2);
+
+        for (UUID member : members) {
+            assertThat(roles(member)).containsExactly(userRole);
+            Map<String, Object> row = jdbcTemplate.queryForMap("select version, last_session from users where id = ?", member);
+            assertThat(((Number) row.get("VERSION")).longValue()).isEqualTo(2);
+            assertThat(row.get("LAST_SESSION")).isNotNull();
+        }
+        assertThat(roles(otherTenantMember)).containsExactlyInAnyOrder(userRole, supervisorRole);
+        for (UUID untouched : List.of(nonMember, otherTenantMember)) {
+            Map<String, Object> row = jdbcTemplate.queryForMap("select version, last_session from users where id = ?", untouched);
+            assertThat(((Number) row.get("VERSION")).longValue()).isEqualTo(1);
+            assertThat(row.get("LAST_SESSION")).isNull();
+        }
+
+        // Signed in before the removal, so refused; the entry point answers unauthenticated requests with 403
+        for (String token : memberTokens) {
+            assertThat(get("/api/v1/users/me", token).statusCode()).isEqualTo(403);
+        }
+        assertThat(get("/api/v1/users/me", bystanderToken).statusCode()).isEqualTo(200);
+
+        // Nothing is left to remove, so a retry changes nothing and signs nobody out again
+        JsonNode retried = objectMapper.readTree(removeSupervisors(ids).body());
+        assertThat(retried.path("removed").asInt()).isZero();
+        assertThat(retried.path("unchanged").asInt()).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("select version from users where id = ?", Long.class, members.get(0))).isEqualTo(2);
+    }
+
+    private UUID insert(String tenantId, String username, long... roleIds) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, tenant_id, username, email, password, version) VALUES (?, ?, ?, ?, ?, 1)",
+            id, tenantId, username, username + "@example.com", PASSWORD);
+        for (long roleId : roleIds) {
+            jdbcTemplate.update("INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)", id, roleId);
+        }
+        return id;
+    }
+
+    private List<Long> roles(UUID userId) {
+        return jdbcTemplate.queryForList("select role_id from user_roles_map where user_id = ?", Long.class, userId);
+    }
+
+    private HttpResponse<String> removeSupervisors(List<String> ids) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/roles/SUPERVISOR/members"))
+            .header("Authorization", "Bearer " + adminToken)
+            .header("Content-Type", "application/json")
+            .method("DELETE", HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("userIds", ids))))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response;
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Authorization", "Bearer " + token)
+            .GET()
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
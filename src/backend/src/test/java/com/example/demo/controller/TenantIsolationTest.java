@@ -0,0 +1,279 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.model.UserRole;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.service.IdempotencyStore;
+import com.example.demo.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many properties on one embedded database, every one with the same usernames and emails
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:tenancy;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "rate.limit.tenant-requests-per-minute=40"
+})
+class TenantIsolationTest {
+    private static final int TENANTS = 200;
+    private static final int USERS_PER_TENANT = 25;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    void seedTenants() {
+        UserRole adminRole = userRoleRepository.findByName("ADMIN").orElseThrow();
+        UserRole userRole = userRoleRepository.findByName("USER").orElseThrow();
+        // Hashed once: registerUser keeps passwords that are already hashed
+        String password = passwordEncoder.encode("resort123");
+        List<Object[]> users = new ArrayList<>(TENANTS * USERS_PER_TENANT);
+        List<Object[]> roles = new ArrayList<>(TENANTS * USERS_PER_TENANT);
+        for (int t = 0; t < TENANTS; t++) {
+            User admin = new User();
+            admin.setTenantId(tenant(t));
+            admin.setUsername("admin");
+            admin.setEmail("admin@resort.example");
+            admin.setPassword(password);
+            admin.setRoles(Set.of(adminRole, userRole));
+            userService.registerUser(admin);
+            for (int i = 0; i < USERS_PER_TENANT; i++) {
+                UUID id = UUID.randomUUID();
+                users.add(new Object[] { id, tenant(t), "desk" + i, "desk" + i + "@resort.example", password });
+                roles.add(new Object[] { id, userRole.getId() });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, tenant_id, username, email, password, version) VALUES (?, ?, ?, ?, ?, 1)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)", roles);
+    }
+
+    @Test
+    void everyLookupStaysInsideItsTenant() {
+        Set<UUID> seen = new HashSet<>();
+        for (int t = 0; t < TENANTS; t++) {
+            String tenantId = tenant(t);
+            List<User> users = userRepository.findAllByTenantId(tenantId);
+            // Counted rather than fixed: other tests add users to a few tenants
+            Integer rows = jdbcTemplate.queryForObject("select count(*) from users where tenant_id = ?", Integer.class, tenantId);
+            assertThat(users).hasSize(rows).hasSizeGreaterThanOrEqualTo(USERS_PER_TENANT + 1)
+                .allMatch(user -> user.getTenantId().equals(tenantId));
+            for (User user : users) {
+                assertThat(seen.add(user.getId())).isTrue();
+            }
+            User desk = userRepository.findByTenantIdAndEmail(tenantId, "desk7@resort.example").orElseThrow();
+            assertThat(desk.getTenantId()).isEqualTo(tenantId);
+            assertThat(userRepository.findAllByTenantIdAndRoles_Name(tenantId, "ADMIN")).hasSize(1);
+        }
+        assertThat(userRepository.findByTenantIdAndEmail("default", "desk7@resort.example")).isEmpty();
+    }
+
+    @Test
+    void tokensOnlyReachTheirOwnTenant() throws Exception {
+        JsonNode north = login(tenant(7));
+        JsonNode south = login(tenant(8));
+        assertThat(north.path("user").path("id").asText()).isNotEqualTo(south.path("user").path("id").asText());
+        // Without a tenant the login goes to the default one, where this email does not exist
+        HttpResponse<String> noTenant = send(HttpRequest.newBuilder(uri("/api/v1/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"admin@resort.example\",\"password\":\"resort123\"}")));
+        assertThat(noTenant.statusCode()).isEqualTo(401);
+
+        JsonNode list = objectMapper.readTree(get("/api/v1/users", north.path("token").asText(), null).body());
+        Set<String> expected = new HashSet<>();
+        for (User user : userRepository.findAllByTenantId(tenant(7))) {
+            expected.add(user.getId().toString());
+        }
+        Set<String> listed = new HashSet<>();
+        list.path("users").forEach(user -> listed.add(user.path("id").asText()));
+        assertThat(listed).isEqualTo(expected);
+    }
+
+    @Test
+    void writesInOneTenantLeaveOtherTenantsEtagsAlone() throws Exception {
+        String quiet = login(tenant(11)).path("token").asText();
+        String busy = login(tenant(12)).path("token").asText();
+        String quietEtag = get("/api/v1/users", quiet, null).headers().firstValue("ETag").orElseThrow();
+        String busyEtag = get("/api/v1/users", busy, null).headers().firstValue("ETag").orElseThrow();
+
+        for (int i = 0; i < 3; i++) {
+            HttpResponse<String> created = post("/api/v1/users", busy,
+                "{\"username\":\"night" + i + "\",\"email\":\"night" + i + "@resort.example\",\"password\":\"night123\",\"roles\":[\"USER\"]}");
+            assertThat(created.statusCode()).isEqualTo(201);
+        }
+
+        assertThat(get("/api/v1/users", quiet, quietEtag).statusCode()).isEqualTo(304);
+        HttpResponse<String> busyList = get("/api/v1/users", busy, busyEtag);
+        assertThat(busyList.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readTree(busyList.body()).path("results").asInt()).isEqualTo(USERS_PER_TENANT + 4);
+        assertThat(userRepository.findAllByTenantId(tenant(11))).hasSize(USERS_PER_TENANT + 1);
+    }
+
+    @Test
+    void onlyDefaultTenantAdminsCreateUsersElsewhere() throws Exception {
+        String token = login(tenant(20)).path("token").asText();
+        HttpResponse<String> response = post("/api/v1/users", token,
+            "{\"username\":\"intruder\",\"email\":\"intruder@resort.example\",\"password\":\"intruder123\",\"tenant\":\"" + tenant(21) + "\"}");
+        assertThat(response.statusCode()).isEqualTo(403);
+        assertThat(userRepository.findByTenantIdAndUsername(tenant(21), "intruder")).isEmpty();
+    }
+
+    @Test
+    void aNoisyTenantExhaustsOnlyItsOwnQuota() throws Exception {
+        String noisy = login(tenant(30)).path("token").asText();
+        String quiet = login(tenant(31)).path("token").asText();
+        int rejected = 0;
+        // Well past the quota of 40, so the refill during the loop cannot make up the difference
+        for (int i = 0; i < 80; i++) {
+            if (get("/api/v1/users/me", noisy, null).statusCode() == 429) {
+                rejected++;
+            }
+        }
+        assertThat(rejected).isGreaterThanOrEqualTo(20);
+        for (int i = 0; i < 10; i++) {
+            assertThat(get("/api/v1/users/me", quiet, null).statusCode()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void idempotencyKeysOfOneTenantCannotEvictAnothers() {
+        IdempotencyStore store = new IdempotencyStore(5, 3600);
+        IdempotencyStore.Claim quiet = store.claim(tenant(40), "user:key", "fingerprint");
+        assertThat(quiet.owner()).isTrue();
+        for (int i = 0; i < 1000; i++) {
+            store.claim(tenant(41), "user:key-" + i, "fingerprint");
+        }
+        assertThat(store.size(tenant(41))).isEqualTo(5);
+        assertThat(store.claim(tenant(40), "user:key", "fingerprint").owner()).isFalse();
+    }
+
+    @Test
+    void userEventsOnlyReachSubscribersOfTheSameTenant() throws Exception {
+        String north = login(tenant(50)).path("token").asText();
+        String south = login(tenant(51)).path("token").asText();
+        try (Stream<String> northStream = subscribe(north); Stream<String> southStream = subscribe(south)) {
+            Iterator<String> northEvents = northStream.iterator();
+            Iterator<String> southEvents = southStream.iterator();
+
+            assertThat(post("/api/v1/users", north,
+                "{\"username\":\"porter\",\"email\":\"porter@resort.example\",\"password\":\"porter123\",\"roles\":[\"USER\"]}").statusCode())
+                .isEqualTo(201);
+            assertThat(post("/api/v1/users", south,
+                "{\"username\":\"valet\",\"email\":\"valet@resort.example\",\"password\":\"valet123\",\"roles\":[\"USER\"]}").statusCode())
+                .isEqualTo(201);
+
+            assertThat(readUntil(northEvents, "\"valet\"", "\"porter\"")).contains("\"porter\"").doesNotContain("\"valet\"");
+            // Each subscriber gets its events in publish order, so the south stream would have had porter before valet
+            assertThat(readUntil(southEvents, "\"valet\"", "\"porter\"")).contains("\"valet\"").doesNotContain("\"porter\"");
+        }
+    }
+
+    @Test
+    void exportsAreOnlyForDefaultTenantAdmins() throws Exception {
+        String resortAdmin = login(tenant(60)).path("token").asText();
+        assertThat(get("/api/v1/exports", resortAdmin, null).statusCode()).isEqualTo(403);
+        assertThat(post("/api/v1/exports/users", resortAdmin, "").statusCode()).isEqualTo(403);
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/v1/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"admin@example.com\",\"password\":\"admin123\"}")));
+        String groupAdmin = objectMapper.readTree(response.body()).path("token").asText();
+        assertThat(get("/api/v1/exports", groupAdmin, null).statusCode()).isEqualTo(200);
+    }
+
+    private static String tenant(int t) {
+        return "resort-" + t;
+    }
+
+    private JsonNode login(String tenant) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/v1/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"email\":\"admin@resort.example\",\"password\":\"resort123\",\"tenant\":\"" + tenant + "\"}")));
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    private Stream<String> subscribe(String token) throws Exception {
+        HttpResponse<Stream<String>> response = client.send(HttpRequest.newBuilder(uri("/api/v1/events"))
+            .header("Authorization", "Bearer " + token)
+            .header("Accept", "text/event-stream")
+            .GET().build(), HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.body();
+    }
+
+    // Returns the first data line mentioning any of the markers
+    private static String readUntil(Iterator<String> events, String... markers) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            while (events.hasNext()) {
+                String line = events.next();
+                if (line.startsWith("data:") && Arrays.stream(markers).anyMatch(line::contains)) {
+                    return line;
+                }
+            }
+            throw new AssertionError("Event stream ended");
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private HttpResponse<String> get(String path, String token, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET();
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        return send(builder);
+    }
+
+    private HttpResponse<String> post(String path, String token, String body) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path))
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder builder) throws Exception {
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
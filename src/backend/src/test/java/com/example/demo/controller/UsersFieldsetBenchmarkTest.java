@@ -0,0 +1,148 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TenantContext;
+import com.example.demo.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statement counts come from Hibernate's statistics, which are global, so the background pollers are held
+// off for the length of the run
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:fieldsets;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "change-log.poll-interval-ms=3600000",
+    "notifications.poll-interval-ms=3600000",
+    "channel.workers=0",
+    "channel.depth-refresh-ms=3600000"
+})
+class UsersFieldsetBenchmarkTest {
+    private static final int USERS = 10_000;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String token;
+
+    @BeforeAll
+    void seedUsers() {
+        long userRole = userRoleRepository.findByName("USER").orElseThrow().getId();
+        long supervisorRole = userRoleRepository.findByName("SUPERVISOR").orElseThrow().getId();
+        List<Object[]> users = new ArrayList<>(USERS);
+        List<Object[]> roles = new ArrayList<>(USERS + USERS / 4);
+        for (int i = 0; i < USERS; i++) {
+            UUID id = UUID.randomUUID();
+            users.add(new Object[] { id, "fields" + i, "fields" + i + "@example.com", "$2a$10$fieldsfieldsfieldsfieldsfieldsfieldsfieldsfieldsfiel" });
+            roles.add(new Object[] { id, userRole });
+            if (i % 4 == 0) {
+                roles.add(new Object[] { id, supervisorRole });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, email, password, version) VALUES (?, ?, ?, ?, 1)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)", roles);
+        User admin = userRepository.findByTenantIdAndUsername(TenantContext.DEFAULT, "admin").orElseThrow();
+        token = jwtUtil.generateToken(admin.getId().toString(), admin.getTenantId());
+    }
+
+    @Test
+    void sparseFieldsetsShrinkPayloadAndQueries() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // What the endpoint did before fieldsets: load every user entity, roles included
+        statistics.clear();
+        long start = System.nanoTime();
+        List<User> entities = userService.getAllUsers();
+        entities.forEach(user -> user.getRoles().size());
+        long entityStatements = statistics.getPrepareStatementCount();
+        System.out.printf("%-36s %12s %10d %10.2f%n", "entities (before)", "-", entityStatements, (System.nanoTime() - start) / 1e6);
+
+        System.out.printf("%-36s %12s %10s %10s%n", "fields", "bytes", "statements", "p50 ms");
+        Map<String, long[]> results = new LinkedHashMap<>();
+        for (String fields : new String[] { "", "id,username,email,roles,lastSession", "id,username,roles", "id,username" }) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/users"
+                    + (fields.isEmpty() ? "" : "?fields=" + fields)))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept-Encoding", "identity")
+                .GET()
+                .build();
+            for (int i = 0; i < WARMUP; i++) {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            }
+            long[] nanos = new long[ITERATIONS];
+            HttpResponse<byte[]> last = null;
+            long statements = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                statistics.clear();
+                long started = System.nanoTime();
+                last = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                nanos[i] = System.nanoTime() - started;
+                statements = statistics.getPrepareStatementCount();
+            }
+            assertThat(last.statusCode()).isEqualTo(200);
+            Arrays.sort(nanos);
+            results.put(fields, new long[] { last.body().length, statements });
+            System.out.printf("%-36s %12d %10d %10.2f%n", fields.isEmpty() ? "(all)" : fields, last.body().length, statements,
+                nanos[ITERATIONS / 2] / 1e6);
+
+            if (fields.equals("id,username")) {
+                JsonNode users = objectMapper.readTree(last.body()).path("users");
+                assertThat(users.size()).isEqualTo(USERS + 2);
+                users.forEach(user -> assertThat(user.size()).isEqualTo(2));
+            }
+        }
+
+        long[] all = results.get("");
+        long[] withRoles = results.get("id,username,roles");
+        long[] sparse = results.get("id,username");
+        assertThat(results.get("id,username,email,roles,lastSession")).isEqualTo(all);
+        // Listing no longer loads roles one user at a time, and leaving roles out drops the join altogether
+        assertThat(all[1]).isLessThan(entityStatements);
+        assertThat(sparse[1]).isLessThan(withRoles[1]);
+        assertThat(sparse[0] * 2).isLessThan(all[0]);
+    }
+}
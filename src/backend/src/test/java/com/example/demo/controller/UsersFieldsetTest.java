@@ -0,0 +1,160 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TenantContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:fieldsets-test;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UsersFieldsetTest {
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String token;
+
+    @BeforeAll
+    void seedUsers() {
+        long userRole = userRoleRepository.findByName("USER").orElseThrow().getId();
+        long supervisorRole = userRoleRepository.findByName("SUPERVISOR").orElseThrow().getId();
+        for (int i = 0; i < 3; i++) {
+            UUID id = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO users (id, username, email, password, version) VALUES (?, ?, ?, ?, 1)",
+                id, "sparse" + i, "sparse" + i + "@example.com", "$2a$10$sparsesparsesparsesparsesparsesparsesparsesparsespar");
+            jdbcTemplate.update("INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)", id, userRole);
+            jdbcTemplate.update("INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)", id, supervisorRole);
+        }
+        User admin = userRepository.findByTenantIdAndUsername(TenantContext.DEFAULT, "admin").orElseThrow();
+        token = jwtUtil.generateToken(admin.getId().toString(), admin.getTenantId());
+    }
+
+    @Test
+    void fieldsComeBackInTheOrderOfAllWhateverOrderTheyWereAskedIn() throws Exception {
+        JsonNode body = objectMapper.readTree(get("/api/v1/users?fields=%20username,id,username%20", null).body());
+        assertThat(body.path("status").asText()).isEqualTo("success");
+        JsonNode sparse = user(body.path("users"), "sparse0");
+        assertThat(names(sparse)).containsExactly("id", "username");
+
+        JsonNode everything = user(objectMapper.readTree(get("/api/v1/users", null).body()).path("users"), "sparse0");
+        assertThat(names(everything)).containsExactly("id", "username", "email", "roles", "lastSession");
+        assertThat(everything.path("roles")).extracting(JsonNode::asText).containsExactly("SUPERVISOR", "USER");
+
+        JsonNode me = objectMapper.readTree(get("/api/v1/users/me?fields=email,roles", null).body()).path("user");
+        assertThat(names(me)).containsExactly("email", "roles");
+        assertThat(me.path("email").asText()).isEqualTo("admin@example.com");
+    }
+
+    @Test
+    void unknownFieldsAreRejected() throws Exception {
+        for (String path : new String[] { "/api/v1/users?fields=id,password", "/api/v1/users/me?fields=username,tenantId" }) {
+            HttpResponse<String> response = get(path, null);
+            assertThat(response.statusCode()).as(path).isEqualTo(400);
+            JsonNode body = objectMapper.readTree(response.body());
+            assertThat(body.path("status").asText()).isEqualTo("fail");
+            assertThat(body.path("message").asText()).startsWith("Unknown field: ")
+                .endsWith("expected any of id,username,email,roles,lastSession");
+        }
+    }
+
+    @Test
+    void eachFieldsetHasItsOwnETag() throws Exception {
+        String full = get("/api/v1/users", null).headers().firstValue("ETag").orElseThrow();
+        String allNamed = get("/api/v1/users?fields=lastSession,roles,email,username,id", null).headers().firstValue("ETag").orElseThrow();
+        String sparse = get("/api/v1/users?fields=username,id", null).headers().firstValue("ETag").orElseThrow();
+        String reordered = get("/api/v1/users?fields=id,username", null).headers().firstValue("ETag").orElseThrow();
+
+        // Naming every field is the full representation; asking for the same fields in another order is not a new one
+        assertThat(allNamed).isEqualTo(full);
+        assertThat(reordered).isEqualTo(sparse);
+        assertThat(sparse).isNotEqualTo(full).contains(";id,username");
+
+        assertThat(get("/api/v1/users?fields=id,username", sparse).statusCode()).isEqualTo(304);
+        // A cached sparse copy does not satisfy a request for other fields
+        assertThat(get("/api/v1/users", sparse).statusCode()).isEqualTo(200);
+        assertThat(get("/api/v1/users?fields=id,email", sparse).statusCode()).isEqualTo(200);
+        assertThat(get("/api/v1/users", full).statusCode()).isEqualTo(304);
+    }
+
+    @Test
+    void rolesAreOnlyJoinedWhenAskedFor() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long before = roleJoins(statistics);
+        assertThat(get("/api/v1/users?fields=id,username,email", null).statusCode()).isEqualTo(200);
+        assertThat(roleJoins(statistics)).isEqualTo(before);
+
+        assertThat(get("/api/v1/users?fields=id,roles", null).statusCode()).isEqualTo(200);
+        assertThat(roleJoins(statistics)).isEqualTo(before + 1);
+    }
+
+    private static long roleJoins(Statistics statistics) {
+        return Arrays.stream(statistics.getQueries())
+            .filter(query -> query.contains("join u.roles"))
+            .mapToLong(query -> statistics.getQueryStatistics(query).getExecutionCount())
+            .sum();
+    }
+
+    private HttpResponse<String> get(String path, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Authorization", "Bearer " + token)
+            .GET();
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode user(JsonNode users, String username) {
+        for (JsonNode user : users) {
+            if (username.equals(user.path("username").asText())) {
+                return user;
+            }
+        }
+        throw new AssertionError("No user " + username);
+    }
+
+    private static List<String> names(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
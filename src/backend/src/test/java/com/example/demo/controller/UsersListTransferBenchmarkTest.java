@@ -0,0 +1,103 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TenantContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UsersListTransferBenchmarkTest {
+    private static final int USERS = 10_000;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String token;
+
+    @BeforeAll
+    void seedUsers() {
+        long roleId = userRoleRepository.findByName("USER").orElseThrow().getId();
+        List<Object[]> users = new ArrayList<>(USERS);
+        List<Object[]> roles = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            UUID id = UUID.randomUUID();
+            users.add(new Object[] { id, "bench" + i, "bench" + i + "@example.com", "$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbench" });
+            roles.add(new Object[] { id, roleId });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, email, password, version) VALUES (?, ?, ?, ?, 1)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)", roles);
+        User admin = userRepository.findByTenantIdAndUsername(TenantContext.DEFAULT, "admin").orElseThrow();
+        token = jwtUtil.generateToken(admin.getId().toString(), admin.getTenantId());
+    }
+
+    @Test
+    void reportBytesOnWireAndLatency() throws Exception {
+        System.out.printf("%-10s %-9s %12s %10s %10s%n", "protocol", "encoding", "bytes", "p50 ms", "max ms");
+        long identityBytes = 0;
+        long gzipBytes = 0;
+        for (HttpClient.Version version : new HttpClient.Version[] { HttpClient.Version.HTTP_1_1, HttpClient.Version.HTTP_2 }) {
+            HttpClient client = HttpClient.newBuilder().version(version).build();
+            for (String encoding : new String[] { "identity", "gzip" }) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/users"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Accept-Encoding", encoding)
+                    .GET()
+                    .build();
+                for (int i = 0; i < WARMUP; i++) {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                }
+                long[] nanos = new long[ITERATIONS];
+                HttpResponse<byte[]> last = null;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    long start = System.nanoTime();
+                    last = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    nanos[i] = System.nanoTime() - start;
+                }
+                assertThat(last.statusCode()).isEqualTo(200);
+                Arrays.sort(nanos);
+                int bytes = last.body().length;
+                if ("gzip".equals(encoding)) {
+                    assertThat(last.headers().firstValue("Content-Encoding")).hasValue("gzip");
+                    gzipBytes = bytes;
+                } else {
+                    identityBytes = bytes;
+                }
+                System.out.printf("%-10s %-9s %12d %10.2f %10.2f%n", last.version(), encoding, bytes,
+                    nanos[ITERATIONS / 2] / 1e6, nanos[ITERATIONS - 1] / 1e6);
+            }
+        }
+        assertThat(gzipBytes).isLessThan(identityBytes);
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives the scripted session login -> /users/me -> user list -> password change -> logout with an open
+// arrival model: sessions start on a Poisson schedule whether or not earlier ones have finished, so a slow
+// server shows up as latency and errors instead of quietly lowering the offered load
+public class LoadScenarioRunner {
+    public static final List<String> STEPS = List.of("login", "me", "list", "password", "logout");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .build();
+    private final String baseUrl;
+    private final String[] passwords;
+    private final ConcurrentLinkedQueue<Integer> idleUsers = new ConcurrentLinkedQueue<>();
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final Map<String, Map<String, AtomicLong>> statuses = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+    private final AtomicLongArray sessionOutcomes = new AtomicLongArray(3);
+    private final AtomicLong passwordChanges = new AtomicLong();
+
+    public record Settings(double sessionsPerSecond, Duration duration, int maxInFlight, Duration requestTimeout, long seed) {}
+
+    public LoadScenarioRunner(String baseUrl, int users, String initialPassword) {
+        this.baseUrl = baseUrl;
+        this.passwords = new String[users];
+        for (int i = 0; i < users; i++) {
+            passwords[i] = initialPassword;
+            idleUsers.add(i);
+        }
+        for (String step : STEPS) {
+            latencies.put(step, new LatencyHistogram());
+            statuses.put(step, new ConcurrentHashMap<>());
+            errors.put(step, new AtomicLong());
+        }
+    }
+
+    public Map<String, Object> run(Settings settings) throws InterruptedException {
+        Random random = new Random(settings.seed());
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        long offered = 0;
+        long dropped = 0;
+        long start = System.nanoTime();
+        long end = start + settings.duration().toNanos();
+        long nextArrival = start;
+        try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (nextArrival < end) {
+                long wait = nextArrival - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    continue;
+                }
+                offered++;
+                // A session past the in-flight cap or without an idle synthetic user is counted, not queued
+                Integer user = null;
+                if (inFlight.tryAcquire()) {
+                    user = idleUsers.poll();
+                    if (user == null) {
+                        inFlight.release();
+                    }
+                }
+                if (user == null) {
+                    dropped++;
+                } else {
+                    int sessionUser = user;
+                    sessions.submit(() -> {
+                        try {
+                            runSession(sessionUser, settings.requestTimeout());
+                        } finally {
+                            idleUsers.add(sessionUser);
+                            inFlight.release();
+                        }
+                    });
+                }
+                nextArrival += (long) (-Math.log(1 - random.nextDouble()) / settings.sessionsPerSecond() * 1e9);
+            }
+            sessions.shutdown();
+            sessions.awaitTermination(settings.requestTimeout().toSeconds() * STEPS.size() + 10, TimeUnit.SECONDS);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        return summary(settings, offered, dropped, elapsedSeconds);
+    }
+
+    private void runSession(int user, Duration timeout) {
+        String email = SyntheticDataGenerator.email(user);
+        JsonNode login = call("login", post("/api/v1/auth/login", null,
+            Map.of("email", email, "password", passwords[user]), timeout), 200);
+        if (login == null) {
+            sessionOutcomes.incrementAndGet(1);
+            return;
+        }
+        String token = login.path("token").asText();
+        boolean admin = false;
+        for (JsonNode role : login.path("user").path("roles")) {
+            admin |= "ADMIN".equals(role.asText());
+        }
+        boolean ok = call("me", get("/api/v1/users/me", token, timeout), 200) != null;
+        // Only admins may list users; for everyone else the expected answer is 403
+        ok &= call("list", get("/api/v1/users", token, timeout), admin ? 200 : 403) != null;
+        String newPassword = "lt-" + user + "-" + passwordChanges.incrementAndGet();
+        JsonNode changed = call("password", patch("/api/v1/users/me/password", token,
+            Map.of("currentPassword", passwords[user], "password", newPassword, "passwordConfirm", newPassword), timeout), 200);
+        if (changed != null) {
+            passwords[user] = newPassword;
+            token = changed.path("token").asText(token);
+        }
+        ok &= changed != null;
+        ok &= call("logout", post("/api/v1/auth/logout", token, Map.of(), timeout), 200) != null;
+        sessionOutcomes.incrementAndGet(ok ? 0 : 2);
+    }
+
+    // Returns the parsed body when the status matched, null after counting an error
+    private JsonNode call(String step, HttpRequest request, int expectedStatus) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            latencies.get(step).recordNanos(System.nanoTime() - start);
+            statuses.get(step).computeIfAbsent(String.valueOf(response.statusCode()), s -> new AtomicLong()).incrementAndGet();
+            if (response.statusCode() != expectedStatus) {
+                errors.get(step).incrementAndGet();
+                return null;
+            }
+            byte[] body = response.body();
+            return body.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(body);
+        } catch (IOException e) {
+            latencies.get(step).recordNanos(System.nanoTime() - start);
+            // Transport failures are keyed by exception, e.g. HttpTimeoutException
+            statuses.get(step).computeIfAbsent(e.getClass().getSimpleName(), s -> new AtomicLong()).incrementAndGet();
+            errors.get(step).incrementAndGet();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.get(step).incrementAndGet();
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path, String token, Duration timeout) {
+        return request(path, token, timeout).GET().build();
+    }
+
+    private HttpRequest post(String path, String token, Map<String, String> body, Duration timeout) {
+        return request(path, token, timeout).POST(json(body)).build();
+    }
+
+    private HttpRequest patch(String path, String token, Map<String, String> body, Duration timeout) {
+        return request(path, token, timeout).method("PATCH", json(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path, String token, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .header("Accept-Encoding", "identity");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest.BodyPublisher json(Map<String, String> body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, Object> summary(Settings settings, long offered, long dropped, double elapsedSeconds) {
+        LatencyHistogram overall = new LatencyHistogram();
+        long requests = 0;
+        long failed = 0;
+        Map<String, Object> steps = new LinkedHashMap<>();
+        for (String step : STEPS) {
+            LatencyHistogram histogram = latencies.get(step);
+            overall.addAll(histogram);
+            long count = histogram.count();
+            long stepErrors = errors.get(step).get();
+            requests += count;
+            failed += stepErrors;
+            Map<String, Object> stepSummary = latencySummary(histogram);
+            stepSummary.put("requests", count);
+            stepSummary.put("errors", stepErrors);
+            Map<String, Long> byStatus = new LinkedHashMap<>();
+            statuses.get(step).entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> byStatus.put(e.getKey(), e.getValue().get()));
+            stepSummary.put("statuses", byStatus);
+            steps.put(step, stepSummary);
+        }
+        Map<String, Object> sessions = new LinkedHashMap<>();
+        sessions.put("offered", offered);
+        sessions.put("dropped", dropped);
+        sessions.put("completed", sessionOutcomes.get(0));
+        sessions.put("loginFailed", sessionOutcomes.get(1));
+        sessions.put("withErrors", sessionOutcomes.get(2));
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("baseUrl", baseUrl);
+        config.put("users", passwords.length);
+        config.put("sessionsPerSecond", settings.sessionsPerSecond());
+        config.put("durationSeconds", settings.duration().toSeconds());
+        config.put("maxInFlight", settings.maxInFlight());
+
+        Map<String, Object> totals = latencySummary(overall);
+        totals.put("requests", requests);
+        totals.put("errors", failed);
+        totals.put("errorRate", requests == 0 ? 0.0 : (double) failed / requests);
+        totals.put("throughputPerSecond", requests / elapsedSeconds);
+        totals.put("elapsedSeconds", elapsedSeconds);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("config", config);
+        summary.put("sessions", sessions);
+        summary.put("totals", totals);
+        summary.put("steps", steps);
+        return summary;
+    }
+
+    private static Map<String, Object> latencySummary(LatencyHistogram histogram) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50Ms", histogram.percentileMillis(0.50));
+        latency.put("p90Ms", histogram.percentileMillis(0.90));
+        latency.put("p99Ms", histogram.percentileMillis(0.99));
+        latency.put("p999Ms", histogram.percentileMillis(0.999));
+        latency.put("maxMs", histogram.maxMillis());
+        return latency;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.loadtest;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Writes synthetic users and roles straight through JDBC in batched, chunk-sized transactions, bypassing
+// JPA and password hashing so a million users take seconds rather than hours
+public class SyntheticDataGenerator {
+    public static final String EMAIL_DOMAIN = "@loadtest.example";
+    public static final String ROLE_PREFIX = "LOADTEST_";
+
+    private final DataSource dataSource;
+    private final int batchSize;
+
+    public record Result(int users, int roles, long mappings, long elapsedMillis) {}
+
+    public SyntheticDataGenerator(DataSource dataSource, int batchSize) {
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
+    }
+
+    public static String email(int index) {
+        return "lt-" + index + EMAIL_DOMAIN;
+    }
+
+    // Every user gets USER, about adminShare of them ADMIN, and up to two of the synthetic roles.
+    // All of them share one precomputed password hash.
+    public Result generate(int users, int syntheticRoles, double adminShare, String passwordHash, long seed) throws SQLException {
+        long start = System.nanoTime();
+        Random random = new Random(seed);
+        long mappings = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            clear(connection);
+            boolean binaryUuids = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            long userRoleId = roleId(connection, "USER");
+            long adminRoleId = roleId(connection, "ADMIN");
+            long[] syntheticRoleIds = createRoles(connection, syntheticRoles);
+            try (PreparedStatement insertUser = connection.prepareStatement(
+                     "INSERT INTO users (id, username, email, password, version) VALUES (?, ?, ?, ?, 1)");
+                 PreparedStatement insertMapping = connection.prepareStatement(
+                     "INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)")) {
+                for (int i = 0; i < users; i++) {
+                    Object id = uuid(UUID.randomUUID(), binaryUuids);
+                    insertUser.setObject(1, id);
+                    insertUser.setString(2, "lt-" + i);
+                    insertUser.setString(3, email(i));
+                    insertUser.setString(4, passwordHash);
+                    insertUser.addBatch();
+                    mappings += addMapping(insertMapping, id, userRoleId);
+                    if (random.nextDouble() < adminShare) {
+                        mappings += addMapping(insertMapping, id, adminRoleId);
+                    }
+                    if (syntheticRoleIds.length > 0) {
+                        int first = random.nextInt(syntheticRoleIds.length);
+                        mappings += addMapping(insertMapping, id, syntheticRoleIds[first]);
+                        int second = random.nextInt(syntheticRoleIds.length);
+                        if (second != first && random.nextBoolean()) {
+                            mappings += addMapping(insertMapping, id, syntheticRoleIds[second]);
+                        }
+                    }
+                    if ((i + 1) % batchSize == 0) {
+                        flush(connection, insertUser, insertMapping);
+                    }
+                }
+                flush(connection, insertUser, insertMapping);
+            }
+        }
+        return new Result(users, syntheticRoles, mappings, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Removes whatever an earlier run generated; seeded users and roles are left alone
+    public void clear() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            clear(connection);
+        }
+    }
+
+    private static void clear(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM user_roles_map WHERE user_id IN "
+                + "(SELECT id FROM users WHERE email LIKE '%" + EMAIL_DOMAIN + "')");
+            statement.executeUpdate("DELETE FROM user_roles_map WHERE role_id IN "
+                + "(SELECT id FROM user_roles WHERE name LIKE '" + ROLE_PREFIX + "%')");
+            statement.executeUpdate("DELETE FROM users WHERE email LIKE '%" + EMAIL_DOMAIN + "'");
+            statement.executeUpdate("DELETE FROM user_roles WHERE name LIKE '" + ROLE_PREFIX + "%'");
+        }
+        connection.commit();
+    }
+
+    private static long roleId(Connection connection, String name) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT id FROM user_roles WHERE name = ?")) {
+            select.setString(1, name);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("Role " + name + " is missing, has the database been seeded?");
+                }
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static long[] createRoles(Connection connection, int count) throws SQLException {
+        List<Long> ids = new ArrayList<>(count);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO user_roles (name) VALUES (?)")) {
+            for (int i = 0; i < count; i++) {
+                insert.setString(1, ROLE_PREFIX + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        for (int i = 0; i < count; i++) {
+            ids.add(roleId(connection, ROLE_PREFIX + i));
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static int addMapping(PreparedStatement insertMapping, Object userId, long roleId) throws SQLException {
+        insertMapping.setObject(1, userId);
+        insertMapping.setLong(2, roleId);
+        insertMapping.addBatch();
+        return 1;
+    }
+
+    private static void flush(Connection connection, PreparedStatement insertUser, PreparedStatement insertMapping) throws SQLException {
+        insertUser.executeBatch();
+        insertMapping.executeBatch();
+        connection.commit();
+    }
+
+    // Hibernate maps UUID ids to BINARY(16) on MySQL; H2 has a native UUID type
+    private static Object uuid(UUID id, boolean binary) {
+        if (!binary) {
+            return id;
+        }
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
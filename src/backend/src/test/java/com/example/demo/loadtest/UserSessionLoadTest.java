@@ -0,0 +1,96 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.AdpmxCrmAdminApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Seeds synthetic users, runs the scripted sessions and writes a JSON summary. Without loadtest.base-url the
+// app is started in-process on the embedded test database; with it, the harness targets an already running
+// app and writes the users through loadtest.jdbc-url, which must point at that app's database.
+@Tag("loadtest")
+class UserSessionLoadTest {
+    private static final String PASSWORD = "loadtest-password";
+
+    @Test
+    void runScriptedSessions() throws Exception {
+        int users = Integer.getInteger("loadtest.users", 10_000);
+        int roles = Integer.getInteger("loadtest.roles", 20);
+        double adminShare = Double.parseDouble(System.getProperty("loadtest.admin-share", "0.01"));
+        int batchSize = Integer.getInteger("loadtest.batch-size", 1_000);
+        double rate = Double.parseDouble(System.getProperty("loadtest.sessions-per-second", "2"));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30));
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 1_000);
+        Duration timeout = Duration.ofSeconds(Long.getLong("loadtest.timeout-seconds", 30));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+        Path output = Paths.get(System.getProperty("loadtest.output", "target/loadtest/summary.json"));
+        String baseUrl = System.getProperty("loadtest.base-url");
+
+        ConfigurableApplicationContext context = null;
+        DataSource dataSource;
+        if (baseUrl == null) {
+            context = new SpringApplicationBuilder(AdpmxCrmAdminApplication.class)
+                .properties("server.port=0", "spring.jpa.show-sql=false", "rate.limit.requests-per-minute=100000000")
+                .run();
+            dataSource = context.getBean(DataSource.class);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        } else {
+            dataSource = new DriverManagerDataSource(System.getProperty("loadtest.jdbc-url"),
+                System.getProperty("loadtest.jdbc-username"), System.getProperty("loadtest.jdbc-password"));
+        }
+        try {
+            SyntheticDataGenerator generator = new SyntheticDataGenerator(dataSource, batchSize);
+            SyntheticDataGenerator.Result generated = generator.generate(users, roles, adminShare,
+                new BCryptPasswordEncoder().encode(PASSWORD), 42);
+
+            LoadScenarioRunner runner = new LoadScenarioRunner(baseUrl, users, PASSWORD);
+            Map<String, Object> sessions = runner.run(new LoadScenarioRunner.Settings(rate, duration, maxInFlight, timeout, 7));
+
+            Map<String, Object> dataset = new LinkedHashMap<>();
+            dataset.put("users", generated.users());
+            dataset.put("syntheticRoles", generated.roles());
+            dataset.put("roleMappings", generated.mappings());
+            dataset.put("elapsedMillis", generated.elapsedMillis());
+            dataset.put("rowsPerSecond", (generated.users() + generated.mappings()) * 1000.0 / Math.max(1, generated.elapsedMillis()));
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("dataset", dataset);
+            summary.putAll(sessions);
+
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            Files.createDirectories(output.toAbsolutePath().getParent());
+            mapper.writeValue(output.toFile(), summary);
+            System.out.println(mapper.writeValueAsString(summary));
+            System.out.println("summary written to " + output.toAbsolutePath());
+
+            if (Boolean.parseBoolean(System.getProperty("loadtest.keep-data", "false"))) {
+                System.out.println("synthetic users kept, emails end with " + SyntheticDataGenerator.EMAIL_DOMAIN);
+            } else {
+                generator.clear();
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> totals = (Map<String, Object>) summary.get("totals");
+            assertThat((long) totals.get("requests")).isPositive();
+            assertThat((double) totals.get("errorRate")).isLessThanOrEqualTo(maxErrorRate);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.boot.logging.LoggingInitializationContext;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Loads the real logback-spring.xml and runs a stalled output behind an appender with the same settings as
+// ASYNC, so a change that lets callers block shows up here. Logging is global, so the default configuration
+// is loaded again afterwards.
+class AsyncLoggingConfigTest {
+    private static final String LOGGER = "async-logging-test";
+
+    @Test
+    void stalledOutputDropsLowLevelEventsInsteadOfBlockingCallers() throws Exception {
+        LoggingSystem loggingSystem = LoggingSystem.get(getClass().getClassLoader());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            initialize(loggingSystem, 64);
+            LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            AsyncAppender configured = (AsyncAppender) context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("ASYNC");
+            assertThat(configured.isNeverBlock()).isTrue();
+            assertThat(configured.getQueueSize()).isEqualTo(64);
+
+            List<ILoggingEvent> written = new CopyOnWriteArrayList<>();
+            // Stands in for a console that has stopped draining
+            AppenderBase<ILoggingEvent> stalled = new AppenderBase<>() {
+                @Override
+                protected void append(ILoggingEvent event) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (event.getLoggerName().equals(LOGGER)) {
+                        written.add(event);
+                    }
+                }
+            };
+            stalled.setContext(context);
+            stalled.start();
+            // An AsyncAppender takes a single appender for good, so the stalled one goes behind a copy
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(configured.getQueueSize());
+            async.setDiscardingThreshold(configured.getDiscardingThreshold());
+            async.setNeverBlock(configured.isNeverBlock());
+            async.setIncludeCallerData(configured.isIncludeCallerData());
+            async.addAppender(stalled);
+            async.start();
+
+            Logger logger = context.getLogger(LOGGER);
+            logger.setAdditive(false);
+            logger.addAppender(async);
+            MDC.put("requestId", "abc123");
+            long start = System.nanoTime();
+            for (int i = 0; i < 10_000; i++) {
+                logger.info("event {}", i);
+            }
+            logger.warn("still delivered");
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            MDC.remove("requestId");
+            assertThat(elapsedMillis).isLessThan(1_000);
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (written.stream().noneMatch(e -> e.getLevel() == Level.WARN) && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertThat(written).anyMatch(e -> e.getFormattedMessage().equals("still delivered"));
+            // The writer takes one batch off the queue before it stalls, so at most two queues' worth got through
+            assertThat(written.stream().filter(e -> e.getLevel() == Level.INFO).count()).isLessThanOrEqualTo(128);
+            // The MDC was captured on the logging thread, not read on the writer thread
+            assertThat(written).filteredOn(e -> e.getFormattedMessage().equals("event 0"))
+                .hasSize(1)
+                .allMatch(e -> "abc123".equals(e.getMDCPropertyMap().get("requestId")));
+        } finally {
+            release.countDown();
+            initialize(loggingSystem, 8192);
+        }
+    }
+
+    private static void initialize(LoggingSystem loggingSystem, int capacity) {
+        MockEnvironment environment = new MockEnvironment().withProperty("logging.async.capacity", String.valueOf(capacity));
+        // Any Spring context started earlier in this JVM has already initialized logging, and a second
+        // initialize would be skipped
+        loggingSystem.cleanUp();
+        loggingSystem.beforeInitialize();
+        loggingSystem.initialize(new LoggingInitializationContext(environment), "classpath:logback-spring.xml", null);
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.demo.notification;
+
+import com.example.demo.model.OutboxMessage;
+import com.example.demo.model.User;
+import com.example.demo.repository.OutboxMessageRepository;
+import com.example.demo.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "notifications.poll-interval-ms=50",
+    "notifications.backoff-ms=100",
+    "notifications.batch-size=20",
+    "notifications.smtp.timeout-ms=5000"
+})
+class NotificationOutboxTest {
+    private static final FakeSmtpServer smtp = FakeSmtpServer.start();
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void smtpServer(DynamicPropertyRegistry registry) {
+        registry.add("notifications.smtp.host", () -> "localhost");
+        registry.add("notifications.smtp.port", smtp::getPort);
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void creatingAUserDoesNotWaitForTheMailServer() throws Exception {
+        // The server takes the message but does not acknowledge it until released
+        CountDownLatch release = new CountDownLatch(1);
+        smtp.holdAcknowledgements(release);
+        try {
+            String token = login();
+            HttpResponse<String> created = send(HttpRequest.newBuilder(uri("/api/v1/users"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "{\"username\":\"frontdesk\",\"email\":\"frontdesk@example.com\",\"password\":\"frontdesk123\",\"roles\":[\"USER\"]}")));
+            assertThat(created.statusCode()).isEqualTo(201);
+            assertThat(smtp.received("frontdesk@example.com")).isEmpty();
+        } finally {
+            release.countDown();
+        }
+
+        awaitTrue(() -> smtp.received("frontdesk@example.com").size() == 1);
+        assertThat(smtp.received("frontdesk@example.com").get(0)).contains("Subject: Welcome to ADPMX CRM");
+        awaitTrue(() -> status("frontdesk@example.com").equals(OutboxMessage.SENT));
+    }
+
+    @Test
+    void transientRefusalsAreRetriedUntilAccepted() throws Exception {
+        smtp.refuseTemporarily("flaky@example.com", 2);
+        register("flaky", "flaky@example.com", OutboxMessage.WELCOME);
+
+        awaitTrue(() -> status("flaky@example.com").equals(OutboxMessage.SENT));
+        assertThat(message("flaky@example.com").getAttempts()).isEqualTo(3);
+        assertThat(smtp.received("flaky@example.com")).hasSize(1);
+    }
+
+    @Test
+    void permanentRefusalsAreGivenUpOnAtOnce() throws Exception {
+        smtp.refusePermanently("bounce@example.com");
+        register("bounce", "bounce@example.com", OutboxMessage.PASSWORD_CHANGED);
+
+        awaitTrue(() -> status("bounce@example.com").equals(OutboxMessage.FAILED));
+        OutboxMessage message = message("bounce@example.com");
+        assertThat(message.getAttempts()).isEqualTo(1);
+        assertThat(message.getLastError()).startsWith("550");
+    }
+
+    @Test
+    void concurrentDispatchersNeverClaimTheSameMessage() throws Exception {
+        int messages = 400;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < messages; i++) {
+                User user = new User();
+                user.setUsername("bulk" + i);
+                user.setEmail("bulk" + i + "@example.com");
+                notificationOutbox.enqueue(OutboxMessage.WELCOME, user);
+            }
+        });
+
+        // Four dispatchers at once, besides the scheduled one, stand in for four nodes
+        ExecutorService dispatchers = Executors.newFixedThreadPool(4);
+        List<Future<?>> running = new ArrayList<>();
+        for (int d = 0; d < 4; d++) {
+            running.add(dispatchers.submit(() -> {
+                while (notificationOutbox.dispatchBatch() > 0) {
+                    // Keep claiming until nothing is due
+                }
+            }));
+        }
+        for (Future<?> future : running) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        dispatchers.shutdown();
+
+        awaitTrue(() -> smtp.receivedMatching("bulk") == messages);
+        for (int i = 0; i < messages; i++) {
+            assertThat(smtp.received("bulk" + i + "@example.com")).hasSize(1);
+        }
+    }
+
+    private void register(String username, String email, String notification) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword(username + "123");
+        userService.registerUser(user, notification);
+    }
+
+    private OutboxMessage message(String recipient) {
+        return outboxMessageRepository.findAll().stream()
+            .filter(message -> message.getRecipient().equals(recipient))
+            .findFirst().orElseThrow();
+    }
+
+    private String status(String recipient) {
+        return message(recipient).getStatus();
+    }
+
+    private String login() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/v1/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"admin@example.com\",\"password\":\"admin123\"}")));
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder builder) throws Exception {
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static void awaitTrue(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.get()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Condition not met in time");
+    }
+
+    // Just enough SMTP to accept, hold back or refuse messages per recipient
+    static final class FakeSmtpServer implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+        private final Map<String, Queue<String>> received = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> temporaryRefusals = new ConcurrentHashMap<>();
+        private final Set<String> permanentRefusals = ConcurrentHashMap.newKeySet();
+        private volatile CountDownLatch acknowledge = new CountDownLatch(0);
+
+        private FakeSmtpServer(ServerSocket serverSocket) {
+            this.serverSocket = serverSocket;
+        }
+
+        static FakeSmtpServer start() {
+            try {
+                FakeSmtpServer server = new FakeSmtpServer(new ServerSocket(0));
+                server.connections.execute(server::acceptLoop);
+                return server;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void holdAcknowledgements(CountDownLatch release) {
+            acknowledge = release;
+        }
+
+        void refuseTemporarily(String recipient, int times) {
+            temporaryRefusals.put(recipient, new AtomicInteger(times));
+        }
+
+        void refusePermanently(String recipient) {
+            permanentRefusals.add(recipient);
+        }
+
+        List<String> received(String recipient) {
+            return List.copyOf(received.getOrDefault(recipient, new ConcurrentLinkedQueue<>()));
+        }
+
+        int receivedMatching(String prefix) {
+            return received.entrySet().stream().filter(entry -> entry.getKey().startsWith(prefix))
+                .mapToInt(entry -> entry.getValue().size()).sum();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            connections.shutdownNow();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.execute(() -> handle(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream out = socket.getOutputStream();
+                reply(out, "220 fake-smtp ready");
+                String recipient = null;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "EHLO", "HELO" -> reply(out, "250-fake-smtp\r\n250 8BITMIME");
+                        case "MAIL" -> {
+                            recipient = null;
+                            reply(out, "250 OK");
+                        }
+                        case "RCPT" -> {
+                            String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                            AtomicInteger refusals = temporaryRefusals.get(address);
+                            if (permanentRefusals.contains(address)) {
+                                reply(out, "550 No such user");
+                            } else if (refusals != null && refusals.getAndDecrement() > 0) {
+                                reply(out, "451 Try again later");
+                            } else {
+                                recipient = address;
+                                reply(out, "250 OK");
+                            }
+                        }
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            StringBuilder data = new StringBuilder();
+                            while (!(line = in.readLine()).equals(".")) {
+                                data.append(line).append('\n');
+                            }
+                            acknowledge.await();
+                            received.computeIfAbsent(recipient, r -> new ConcurrentLinkedQueue<>()).add(data.toString());
+                            reply(out, "250 Queued");
+                        }
+                        case "RSET" -> {
+                            recipient = null;
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "502 Command not implemented");
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static void reply(OutputStream out, String text) throws IOException {
+            out.write((text + "\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.security;
+
+import com.example.demo.security.AdaptiveConcurrencyLimiter.Lane;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void lanesMayOnlyFillTheirShareOfTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 4, 40);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(Lane.LOW)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(Lane.LOW)).isFalse();
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire(Lane.NORMAL)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(Lane.NORMAL)).isFalse();
+        assertThat(limiter.tryAcquire(Lane.HIGH)).isTrue();
+        assertThat(limiter.tryAcquire(Lane.HIGH)).isFalse();
+
+        // A released permit goes back to the shared count, but only the high lane may take the last one
+        limiter.release(-1);
+        assertThat(limiter.tryAcquire(Lane.LOW)).isFalse();
+        assertThat(limiter.tryAcquire(Lane.NORMAL)).isFalse();
+        assertThat(limiter.tryAcquire(Lane.HIGH)).isTrue();
+
+        Map<String, Object> stats = limiter.getStats();
+        assertThat(stats).containsEntry("limit", 10).containsEntry("inFlight", 10);
+        assertThat(lane(stats, "low")).containsEntry("limit", 5).containsEntry("accepted", 5L).containsEntry("rejected", 2L);
+        assertThat(lane(stats, "normal")).containsEntry("limit", 9).containsEntry("accepted", 4L).containsEntry("rejected", 2L);
+        assertThat(lane(stats, "high")).containsEntry("limit", 10).containsEntry("accepted", 2L).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void releasedPermitsWithoutALatencyLeaveTheLimitAlone() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 4, 40);
+        for (int round = 0; round < 100; round++) {
+            while (limiter.tryAcquire(Lane.HIGH)) {
+                // Fill up
+            }
+            for (int i = 0; i < 10; i++) {
+                limiter.release(-1);
+            }
+        }
+        assertThat(limiter.getStats()).containsEntry("inFlight", 0).containsEntry("limit", 10);
+    }
+
+    @Test
+    void theLimitGrowsWhileBusyAndLatencyHolds() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 40);
+        int previous = limiter.getLimit();
+        for (int i = 0; i < 60; i++) {
+            window(limiter, limiter.getLimit(), 10);
+            assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(previous);
+            previous = limiter.getLimit();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(40);
+
+        // Slower, but still within the tolerance of 1.5 times the baseline
+        AdaptiveConcurrencyLimiter tolerant = limiter(20, 4, 40);
+        window(tolerant, 20, 10);
+        int afterBaseline = tolerant.getLimit();
+        window(tolerant, afterBaseline, 14);
+        assertThat(tolerant.getLimit()).isGreaterThan(afterBaseline);
+    }
+
+    @Test
+    void anIdleLimitDoesNotGrow() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 40);
+        for (int i = 0; i < 60; i++) {
+            window(limiter, 1, 10);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void risingLatencyShrinksTheLimitDownToTheFloorAndItRecovers() {
+        AdaptiveConcurrencyLimiter limiter = limiter(40, 4, 40);
+        window(limiter, 1, 10);
+        assertThat(limiter.getLimit()).isEqualTo(40);
+
+        // Six times the baseline: the gradient bottoms out at 0.5, even with a single request in flight
+        int previous = limiter.getLimit();
+        for (int i = 0; i < 200 && limiter.getLimit() > 4; i++) {
+            window(limiter, 1, 60);
+            assertThat(limiter.getLimit()).isLessThanOrEqualTo(previous).isGreaterThanOrEqualTo(4);
+            previous = limiter.getLimit();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        // Slow windows at the floor nudge the baseline up, but only by a fraction each time
+        window(limiter, 1, 60);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat((double) limiter.getStats().get("baselineLatencyMs")).isGreaterThan(10).isLessThan(11);
+
+        for (int i = 0; i < 100; i++) {
+            window(limiter, limiter.getLimit(), 10);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(40);
+    }
+
+    // Every sample closes a window, so one window is: k requests in flight, the first to finish reporting
+    // the latency and the rest released without one
+    private static void window(AdaptiveConcurrencyLimiter limiter, int inFlight, long rttMillis) {
+        for (int i = 0; i < inFlight; i++) {
+            assertThat(limiter.tryAcquire(Lane.HIGH)).isTrue();
+        }
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        for (int i = 1; i < inFlight; i++) {
+            limiter.release(-1);
+        }
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter(initial, min, max, 0.2, 1.5, 0, 1, 600);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> lane(Map<String, Object> stats, String name) {
+        return (Map<String, Object>) ((Map<String, Object>) stats.get("lanes")).get(name);
+    }
+}
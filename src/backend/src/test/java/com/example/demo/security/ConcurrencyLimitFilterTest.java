@@ -0,0 +1,99 @@
+package com.example.demo.security;
+
+import com.example.demo.security.AdaptiveConcurrencyLimiter.Lane;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitFilterTest {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final FilterChain chain = (request, response) -> calls.incrementAndGet();
+    private AdaptiveConcurrencyLimiter limiter;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void createFilter() {
+        // Lane caps of 2 (low), 3 (normal) and 4 (high)
+        limiter = new AdaptiveConcurrencyLimiter(4, 2, 40, 0.2, 1.5, 250, 10, 600);
+        filter = new ConcurrencyLimitFilter(limiter);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+    }
+
+    @Test
+    void requestsAreSortedIntoLanes() {
+        assertThat(ConcurrencyLimitFilter.laneOf("POST", "/api/v1/auth/login")).isEqualTo(Lane.HIGH);
+        assertThat(ConcurrencyLimitFilter.laneOf("PUT", "/api/v1/users/me")).isEqualTo(Lane.HIGH);
+        assertThat(ConcurrencyLimitFilter.laneOf("GET", "/api/v1/users")).isEqualTo(Lane.LOW);
+        assertThat(ConcurrencyLimitFilter.laneOf("POST", "/api/v1/users")).isEqualTo(Lane.NORMAL);
+        assertThat(ConcurrencyLimitFilter.laneOf("GET", "/api/v1/exports/users")).isEqualTo(Lane.LOW);
+        assertThat(ConcurrencyLimitFilter.laneOf("GET", "/api/v1/users/42")).isEqualTo(Lane.NORMAL);
+    }
+
+    @Test
+    void lowPriorityRequestsAreShedBeforeHighPriorityOnes() throws Exception {
+        // Two requests already in flight fill the low lane
+        hold(2);
+        MockHttpServletResponse shed = send("GET", "/api/v1/users");
+        assertThat(shed.getStatus()).isEqualTo(503);
+        assertThat(shed.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(shed.getContentAsString()).contains("\"status\":\"fail\"").contains("Server is busy");
+        assertThat(calls.get()).isZero();
+
+        assertThat(send("GET", "/api/v1/rooms").getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/api/v1/auth/login").getStatus()).isEqualTo(200);
+        assertThat(calls.get()).isEqualTo(2);
+
+        // A third fills the normal lane; the login and profile lane still has room
+        hold(1);
+        assertThat(send("GET", "/api/v1/rooms").getStatus()).isEqualTo(503);
+        assertThat(send("GET", "/api/v1/users/me").getStatus()).isEqualTo(200);
+        hold(1);
+        assertThat(send("POST", "/api/v1/auth/refresh").getStatus()).isEqualTo(503);
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(limiter.getStats()).containsEntry("inFlight", 4);
+    }
+
+    @Test
+    void permitsAreReleasedEvenWhenTheChainFails() {
+        FilterChain failing = (request, response) -> {
+            throw new ServletException("Boom");
+        };
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/rooms"),
+                new MockHttpServletResponse(), failing)).isInstanceOf(ServletException.class);
+        }
+        assertThat(limiter.getStats()).containsEntry("inFlight", 0);
+    }
+
+    @Test
+    void eventStreamsAndADisabledFilterBypassTheLimit() throws Exception {
+        hold(4);
+        assertThat(send("GET", "/api/v1/events").getStatus()).isEqualTo(200);
+        ReflectionTestUtils.setField(filter, "enabled", false);
+        assertThat(send("GET", "/api/v1/users").getStatus()).isEqualTo(200);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(limiter.getStats()).containsEntry("inFlight", 4);
+    }
+
+    private void hold(int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertThat(limiter.tryAcquire(Lane.HIGH)).isTrue();
+        }
+    }
+
+    private MockHttpServletResponse send(String method, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.demo.security;
+
+import com.example.demo.service.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+    private static final String BODY = "{\"username\":\"night1\",\"email\":\"night1@example.com\",\"password\":\"night123\"}";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private IdempotencyFilter filter;
+    private String token;
+
+    @BeforeEach
+    void createFilter() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "idempotency-filter-test-secret-of-32-bytes-or-more");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationSeconds", 900);
+        token = jwtUtil.generateToken("7b1f0c9e-2d4a-4a57-9a43-0f3c1d2e5b60", "default");
+        filter = new IdempotencyFilter(new IdempotencyStore(100, 3600), jwtUtil);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 65536);
+        ReflectionTestUtils.setField(filter, "waitSeconds", 5L);
+    }
+
+    @Test
+    void aRetryReplaysTheRecordedResponse() throws Exception {
+        FilterChain chain = answering(201, "{\"status\":\"success\",\"id\":1}");
+        MockHttpServletResponse first = send("key-1", BODY, chain);
+        MockHttpServletResponse retry = send("key-1", BODY, chain);
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(first.getHeader("Idempotent-Replayed")).isNull();
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(retry.getHeader("Location")).isEqualTo("/api/v1/users/1");
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+
+        // Another key runs the request again
+        assertThat(send("key-2", BODY, chain).getHeader("Idempotent-Replayed")).isNull();
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void aDifferentBodyOnTheSameKeyIsRejected() throws Exception {
+        FilterChain chain = answering(201, "{\"status\":\"success\"}");
+        send("key-1", BODY, chain);
+        MockHttpServletResponse reused = send("key-1", BODY.replace("night1", "night2"), chain);
+
+        assertThat(reused.getStatus()).isEqualTo(422);
+        assertThat(reused.getContentAsString()).contains("was already used for a different request");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void aConcurrentDuplicateWaitsForTheFirstAttempt() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            write((HttpServletResponse) response, 201, "{\"status\":\"success\",\"id\":1}");
+        };
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(() -> sendQuietly("key-1", slow));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<MockHttpServletResponse> duplicate = CompletableFuture.supplyAsync(() -> sendQuietly("key-1", slow));
+
+        Thread.sleep(200);
+        assertThat(duplicate).isNotDone();
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+        MockHttpServletResponse replayed = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(replayed.getStatus()).isEqualTo(201);
+        assertThat(replayed.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void serverErrorsAreNotRecorded() throws Exception {
+        FilterChain failing = answering(503, "{\"status\":\"fail\"}");
+        assertThat(send("key-1", BODY, failing).getStatus()).isEqualTo(503);
+
+        FilterChain working = answering(201, "{\"status\":\"success\"}");
+        MockHttpServletResponse retry = send("key-1", BODY, working);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader("Idempotent-Replayed")).isNull();
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void requestsWithoutAValidTokenPassThroughUnrecorded() throws Exception {
+        token = "not-a-token";
+        FilterChain chain = answering(401, "{\"status\":\"fail\"}");
+        send("key-1", BODY, chain);
+        send("key-1", BODY, chain);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    private FilterChain answering(int status, String body) {
+        return (request, response) -> {
+            calls.incrementAndGet();
+            // The controller reads the body the filter already consumed
+            assertThat(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).startsWith("{");
+            write((HttpServletResponse) response, status, body);
+        };
+    }
+
+    private static void write(HttpServletResponse response, int status, String body) throws IOException {
+        response.setStatus(status);
+        response.setHeader("Location", "/api/v1/users/1");
+        response.setContentType("application/json");
+        response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletResponse sendQuietly(String key, FilterChain chain) {
+        try {
+            return send(key, BODY, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private MockHttpServletResponse send(String key, String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/users");
+        request.addHeader("Authorization", "Bearer " + token);
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.security;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitingFilterTest {
+    private RateLimitingFilter filter;
+
+    @BeforeEach
+    void createFilter() {
+        filter = new RateLimitingFilter();
+        ReflectionTestUtils.setField(filter, "requestsPerMinute", 5);
+    }
+
+    @Test
+    void signedChannelDeliveriesAreNotCounted() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            assertThat(channelDelivery("203.0.113.7", 202)).isEqualTo(202);
+        }
+        assertThat(request("/api/v1/users/me", "203.0.113.7", 200)).isEqualTo(200);
+    }
+
+    @Test
+    void deliveriesFailingTheSignatureUseUpTheAddressBucket() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(channelDelivery("203.0.113.8", 401)).isEqualTo(401);
+        }
+        // Refused before the controller runs, signed or not
+        assertThat(channelDelivery("203.0.113.8", 202)).isEqualTo(429);
+        assertThat(request("/api/v1/users/me", "203.0.113.8", 200)).isEqualTo(429);
+        // Other addresses keep their own bucket
+        assertThat(channelDelivery("203.0.113.9", 202)).isEqualTo(202);
+    }
+
+    @Test
+    void otherRequestsAreCountedPerAddress() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(request("/api/v1/users/me", "203.0.113.10", 200)).isEqualTo(200);
+        }
+        assertThat(request("/api/v1/users/me", "203.0.113.10", 200)).isEqualTo(429);
+        assertThat(request("/api/v1/users/me", "203.0.113.11", 200)).isEqualTo(200);
+    }
+
+    private int channelDelivery(String ip, int controllerStatus) throws Exception {
+        return request("/api/v1/channel/bookings", ip, controllerStatus);
+    }
+
+    // Runs the filter with a chain that answers the given status, and returns what the client saw
+    private int request(String path, String ip, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, resp) -> ((MockHttpServletResponse) resp).setStatus(status);
+        filter.doFilter(request, response, chain);
+        return response.getStatus();
+    }
+}
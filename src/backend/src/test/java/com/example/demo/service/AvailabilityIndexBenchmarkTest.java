@@ -0,0 +1,102 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("benchmark")
+class AvailabilityIndexBenchmarkTest {
+    private static final int ROOMS = 500;
+    private static final int DAYS = 730;
+    private static final String[] TYPES = { "STANDARD", "DELUXE", "SUITE", "FAMILY", "OCEAN_VIEW" };
+    private static final int QUERIES = 200_000;
+
+    private record Stay(long roomId, LocalDate checkIn, LocalDate checkOut) {}
+
+    @Test
+    void reportBuildAndQueryLatency() {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        List<Stay> stays = new ArrayList<>();
+        for (long room = 1; room <= ROOMS; room++) {
+            int day = random.nextInt(3);
+            while (day < DAYS) {
+                int nights = 1 + random.nextInt(7);
+                stays.add(new Stay(room, start.plusDays(day), start.plusDays(Math.min(DAYS, day + nights))));
+                day += nights + random.nextInt(4);
+            }
+        }
+
+        AvailabilityIndex index = new AvailabilityIndex();
+        long buildStart = System.nanoTime();
+        for (long room = 1; room <= ROOMS; room++) {
+            index.addRoom(room, TYPES[(int) (room % TYPES.length)]);
+        }
+        for (Stay stay : stays) {
+            index.book(stay.roomId(), stay.checkIn(), stay.checkOut());
+        }
+        long buildNanos = System.nanoTime() - buildStart;
+
+        String[] queryTypes = new String[QUERIES];
+        LocalDate[] queryFrom = new LocalDate[QUERIES];
+        LocalDate[] queryTo = new LocalDate[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queryTypes[i] = TYPES[random.nextInt(TYPES.length)];
+            queryFrom[i] = start.plusDays(random.nextInt(DAYS - 14));
+            queryTo[i] = queryFrom[i].plusDays(1 + random.nextInt(14));
+        }
+        long sink = 0;
+        for (int i = 0; i < 20_000; i++) {
+            sink += index.freeRooms(queryTypes[i], queryFrom[i], queryTo[i]).size();
+        }
+        long[] nanos = new long[QUERIES];
+        long queryStart = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            long t = System.nanoTime();
+            sink += index.freeRooms(queryTypes[i], queryFrom[i], queryTo[i]).size();
+            nanos[i] = System.nanoTime() - t;
+        }
+        long queryNanos = System.nanoTime() - queryStart;
+        Arrays.sort(nanos);
+
+        // Reference point: the same question answered by an overlap scan over every stay of each room
+        List<List<Stay>> staysByRoom = new ArrayList<>();
+        for (int room = 0; room <= ROOMS; room++) {
+            staysByRoom.add(new ArrayList<>());
+        }
+        stays.forEach(stay -> staysByRoom.get((int) stay.roomId()).add(stay));
+        int scanQueries = 2_000;
+        long scanStart = System.nanoTime();
+        for (int i = 0; i < scanQueries; i++) {
+            int typeIndex = Arrays.asList(TYPES).indexOf(queryTypes[i]);
+            for (int room = 1; room <= ROOMS; room++) {
+                if (room % TYPES.length != typeIndex) {
+                    continue;
+                }
+                boolean free = true;
+                for (Stay stay : staysByRoom.get(room)) {
+                    if (stay.checkIn().isBefore(queryTo[i]) && stay.checkOut().isAfter(queryFrom[i])) {
+                        free = false;
+                        break;
+                    }
+                }
+                sink += free ? 1 : 0;
+            }
+        }
+        long scanNanos = System.nanoTime() - scanStart;
+
+        System.out.printf("rooms=%d days=%d stays=%d%n", ROOMS, DAYS, stays.size());
+        System.out.printf("index build: %.1f ms%n", buildNanos / 1e6);
+        System.out.printf("index query: p50=%.1f us p99=%.1f us max=%.1f us throughput=%.0f q/s%n",
+            nanos[QUERIES / 2] / 1e3, nanos[QUERIES * 99 / 100] / 1e3, nanos[QUERIES - 1] / 1e3, QUERIES / (queryNanos / 1e9));
+        System.out.printf("overlap scan: mean=%.1f us/query%n", scanNanos / 1e3 / scanQueries);
+        assertThat(sink).isPositive();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import com.example.demo.AdpmxCrmAdminApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two app contexts on one embedded database stand in for two nodes behind the load balancer
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChangeLogTwoNodeTest {
+    private static final String DATABASE = "jdbc:h2:mem:change-log-nodes;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final long MAX_LAG_MS = 1000;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    void startNodes() {
+        nodeA = startNode("create-drop");
+        // The second node must not recreate the schema the first one made
+        nodeB = startNode("none");
+    }
+
+    @AfterAll
+    void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void writeOnOneNodeInvalidatesTheOtherWithinTheLagBound() throws Exception {
+        String token = login(nodeA);
+        HttpResponse<String> first = get(nodeA, "/api/v1/users", token, null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        assertThat(get(nodeA, "/api/v1/users", token, etag).statusCode()).isEqualTo(304);
+
+        long written = System.nanoTime();
+        HttpResponse<String> created = send(nodeB, HttpRequest.newBuilder(uri(nodeB, "/api/v1/users"))
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"username\":\"nodeb\",\"email\":\"nodeb@example.com\",\"password\":\"secret123\",\"roles\":[\"USER\"]}")));
+        assertThat(created.statusCode()).isEqualTo(201);
+
+        HttpResponse<String> afterWrite;
+        do {
+            afterWrite = get(nodeA, "/api/v1/users", token, etag);
+            if (afterWrite.statusCode() == 304) {
+                Thread.sleep(10);
+            }
+        } while (afterWrite.statusCode() == 304 && System.nanoTime() - written < 5 * MAX_LAG_MS * 1_000_000);
+        long lagMillis = (System.nanoTime() - written) / 1_000_000;
+        System.out.printf("node A saw node B's write after %d ms%n", lagMillis);
+
+        assertThat(afterWrite.statusCode()).isEqualTo(200);
+        assertThat(afterWrite.body()).contains("nodeb@example.com");
+        assertThat(lagMillis).isLessThanOrEqualTo(MAX_LAG_MS);
+        assertThat(afterWrite.headers().firstValue("ETag")).isNotEqualTo(etag);
+    }
+
+    @Test
+    void bulkRoleChangeOnOneNodeInvalidatesTheOther() throws Exception {
+        String token = login(nodeA);
+        String etag = get(nodeA, "/api/v1/users", token, null).headers().firstValue("ETag").orElseThrow();
+        JsonNode me = objectMapper.readTree(get(nodeB, "/api/v1/users/me", token, null).body());
+        String body = "{\"userIds\":[\"" + me.path("user").path("id").asText() + "\"]}";
+        HttpResponse<String> added = send(nodeB, HttpRequest.newBuilder(uri(nodeB, "/api/v1/roles/SUPERVISOR/members"))
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body)));
+        assertThat(added.statusCode()).isEqualTo(200);
+
+        Thread.sleep(MAX_LAG_MS);
+        assertThat(get(nodeA, "/api/v1/users", token, etag).statusCode()).isEqualTo(200);
+    }
+
+    // Arguments rather than default properties: the test application.properties would override those, and the
+    // nodes would share, and on close drop, the database of the other tests' cached contexts
+    private ConfigurableApplicationContext startNode(String ddlAuto) {
+        return new SpringApplicationBuilder(AdpmxCrmAdminApplication.class)
+            .run(
+                "--server.port=0",
+                "--spring.datasource.url=" + DATABASE,
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--change-log.poll-interval-ms=50",
+                "--change-log.max-lag-ms=" + MAX_LAG_MS);
+    }
+
+    private String login(ConfigurableApplicationContext node) throws Exception {
+        HttpResponse<String> response = send(node, HttpRequest.newBuilder(uri(node, "/api/v1/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"admin@example.com\",\"password\":\"admin123\"}")));
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    private HttpResponse<String> get(ConfigurableApplicationContext node, String path, String token, String etag) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(node, path)).header("Authorization", "Bearer " + token).GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return send(node, builder);
+    }
+
+    private HttpResponse<String> send(ConfigurableApplicationContext node, HttpRequest.Builder builder) throws Exception {
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(ConfigurableApplicationContext node, String path) {
+        return URI.create("http://localhost:" + ((WebServerApplicationContext) node).getWebServer().getPort() + path);
+    }
+}
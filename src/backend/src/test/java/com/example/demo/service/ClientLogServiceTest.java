@@ -0,0 +1,137 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientLogServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ClientLogService service;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void rollsWithinOneMillisecondKeepEveryFile() throws Exception {
+        // Every entry rolls the file, so many files are opened within the same millisecond
+        service = start(1, 1000, 16384);
+        List<JsonNode> entries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            entries.add(objectMapper.readTree("{\"message\":\"entry " + i + "\"}"));
+        }
+        assertThat(service.ingest("user-1", entries, 0).accepted()).isEqualTo(200);
+        service.shutdown();
+        service = null;
+
+        List<Path> files = files();
+        assertThat(files).hasSize(200);
+        List<String> lines = new ArrayList<>();
+        for (Path file : files) {
+            lines.addAll(read(file));
+        }
+        assertThat(lines).hasSize(200);
+        for (int i = 0; i < 200; i++) {
+            JsonNode line = objectMapper.readTree(lines.get(i));
+            assertThat(line.get("message").asText()).isEqualTo("entry " + i);
+            assertThat(line.get("server").get("user").asText()).isEqualTo("user-1");
+        }
+    }
+
+    @Test
+    void limitsAreCountedInUtf8Bytes() throws Exception {
+        service = start(300, 100, 200);
+        // 90 characters, but 180 bytes of message alone once encoded
+        String wide = "é".repeat(90);
+        List<JsonNode> entries = new ArrayList<>();
+        entries.add(objectMapper.readTree("{\"message\":\"" + wide + "\"}"));
+        entries.add(objectMapper.readTree("{\"message\":\"" + "e".repeat(90) + "\"}"));
+        ClientLogService.IngestResult result = service.ingest("user-1", entries, 0);
+        assertThat(result.malformed()).isEqualTo(1);
+        assertThat(result.accepted()).isEqualTo(1);
+
+        entries.clear();
+        for (int i = 0; i < 20; i++) {
+            entries.add(objectMapper.readTree("{\"m\":\"" + "ñ".repeat(20) + "\"}"));
+        }
+        assertThat(service.ingest("user-1", entries, 0).accepted()).isEqualTo(20);
+        service.shutdown();
+        service = null;
+
+        int longest = 0;
+        int total = 0;
+        List<byte[]> contents = new ArrayList<>();
+        for (Path file : files()) {
+            byte[] content = decompress(file);
+            contents.add(content);
+            for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+                longest = Math.max(longest, line.getBytes(StandardCharsets.UTF_8).length + 1);
+                total++;
+            }
+        }
+        assertThat(total).isEqualTo(21);
+        // A file only rolls once it has reached the limit, so it can pass it by less than one line
+        for (byte[] content : contents) {
+            assertThat(content.length).isLessThan(300 + longest);
+        }
+        assertThat(contents.size()).isGreaterThan(1);
+    }
+
+    @Test
+    void entriesThatAreNotObjectsAreCountedAsMalformed() throws Exception {
+        service = start(1 << 20, 1000, 16384);
+        List<JsonNode> entries = new ArrayList<>();
+        entries.add(objectMapper.readTree("[1, 2]"));
+        entries.add(null);
+        entries.add(objectMapper.readTree("{\"ok\":true}"));
+        ClientLogService.IngestResult result = service.ingest("user-1", entries, 3);
+        assertThat(result.accepted()).isEqualTo(1);
+        assertThat(result.malformed()).isEqualTo(2);
+        assertThat(service.getStats()).containsEntry("droppedOverBatchLimit", 3L);
+    }
+
+    private ClientLogService start(long maxFileBytes, int maxFiles, int maxEntryBytes) {
+        ClientLogService started = new ClientLogService(objectMapper, 1024, directory.toString(), maxFileBytes, maxFiles,
+            maxEntryBytes, 100_000);
+        started.start();
+        return started;
+    }
+
+    // Oldest first, which is also the order they were written in
+    private List<Path> files() throws IOException {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.sorted().toList();
+        }
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        String content = new String(decompress(file), StandardCharsets.UTF_8);
+        return content.isEmpty() ? List.of() : List.of(content.split("\n"));
+    }
+
+    private static byte[] decompress(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return in.readAllBytes();
+        }
+    }
+}
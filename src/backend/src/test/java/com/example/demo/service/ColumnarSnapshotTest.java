@@ -0,0 +1,79 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarSnapshotTest {
+    private static final List<ColumnarSnapshot.Column> COLUMNS = List.of(
+        new ColumnarSnapshot.Column("id", ColumnarSnapshot.Kind.UUID),
+        new ColumnarSnapshot.Column("name", ColumnarSnapshot.Kind.STRING),
+        new ColumnarSnapshot.Column("version", ColumnarSnapshot.Kind.LONG),
+        new ColumnarSnapshot.Column("lastSession", ColumnarSnapshot.Kind.TIMESTAMP),
+        new ColumnarSnapshot.Column("status", ColumnarSnapshot.Kind.DICT),
+        new ColumnarSnapshot.Column("roles", ColumnarSnapshot.Kind.DICT_SET));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void everyColumnKindRoundTripsAcrossRowGroups() throws IOException {
+        Instant base = Instant.parse("2024-03-01T12:00:00.123Z");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 53; i++) {
+            rows.add(new Object[] {
+                new UUID(i * 31L, -i),
+                // Nulls, empty strings and multi-byte characters
+                i % 4 == 0 ? null : i % 9 == 0 ? "" : "Zoë " + i,
+                // Deltas go up and down, including past zero
+                (long) (i % 2 == 0 ? i * 1000 : -i * 7),
+                // Nulls in between, and times that move backwards
+                i % 3 == 0 ? null : base.plusMillis((i % 5 == 0 ? -1L : 1L) * i * 86_400_123L),
+                i % 6 == 0 ? null : i < 30 ? "ACTIVE" : "LOCKED-" + (i % 2),
+                // Dictionary entries first seen in later groups, and empty sets
+                i % 7 == 0 ? List.of() : i < 20 ? List.of("USER") : List.of("USER", "ROLE-" + i / 10)
+            });
+        }
+
+        // 53 rows in groups of 8: six full groups and a short one
+        Path file = directory.resolve("users.cols");
+        try (ColumnarSnapshot.Writer writer = new ColumnarSnapshot.Writer(file, "users", COLUMNS, 8)) {
+            for (Object[] row : rows) {
+                writer.write(row);
+            }
+            assertThat(writer.getRowCount()).isEqualTo(53);
+        }
+
+        List<Object[]> read = new ArrayList<>();
+        try (ColumnarSnapshot.Reader reader = new ColumnarSnapshot.Reader(file)) {
+            assertThat(reader.getName()).isEqualTo("users");
+            assertThat(reader.getColumns()).isEqualTo(COLUMNS);
+            assertThat(reader.forEach(read::add)).isEqualTo(53);
+        }
+        assertThat(read).hasSize(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(read.get(i)).as("row " + i).containsExactly(rows.get(i));
+        }
+    }
+
+    @Test
+    void anEmptySnapshotHasNoRows() throws IOException {
+        Path file = directory.resolve("empty.cols");
+        try (ColumnarSnapshot.Writer writer = new ColumnarSnapshot.Writer(file, "empty", COLUMNS, 8)) {
+            assertThat(writer.getRowCount()).isZero();
+        }
+        try (ColumnarSnapshot.Reader reader = new ColumnarSnapshot.Reader(file)) {
+            assertThat(reader.forEach(row -> {
+                throw new AssertionError("No rows expected");
+            })).isZero();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventHubTest {
+    private static final int BUFFER_SIZE = 8;
+    private static final int DISPATCH_THREADS = 2;
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    // Threads that sent anything after the connect comment
+    private final Set<String> senders = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private final List<EventHub> hubs = new ArrayList<>();
+    private Behaviour next = Behaviour.RECORD;
+
+    private final EventHub hub = hub(3600, 60_000);
+
+    private enum Behaviour { RECORD, BLOCK, FAIL }
+
+    @AfterEach
+    void shutdown() {
+        unblock.countDown();
+        hubs.forEach(EventHub::shutdown);
+    }
+
+    @Test
+    void eventsFanOutInOrderToSubscribersOfTheTenant() throws Exception {
+        hub.subscribe("north");
+        hub.subscribe("north");
+        hub.subscribe("south");
+        for (int i = 0; i < 5; i++) {
+            hub.publish("north", "user-updated", Map.of("id", i));
+        }
+        hub.publish("south", "login", Map.of("id", 99));
+
+        awaitTrue(() -> emitters.get(0).sent.size() == 6 && emitters.get(1).sent.size() == 6 && emitters.get(2).sent.size() == 2);
+        for (RecordingEmitter north : emitters.subList(0, 2)) {
+            assertThat(north.sent.get(0)).contains("connected");
+            for (int i = 0; i < 5; i++) {
+                assertThat(north.sent.get(i + 1)).contains("event:user-updated").contains("id=" + i);
+            }
+        }
+        assertThat(emitters.get(2).sent.get(1)).contains("event:login").contains("id=99");
+        assertThat(hub.getSubscriberCount()).isEqualTo(3);
+    }
+
+    @Test
+    void aStalledClientIsDroppedWithoutHoldingUpTheOthers() throws Exception {
+        hub.subscribe("north");
+        next = Behaviour.BLOCK;
+        hub.subscribe("north");
+        RecordingEmitter stalled = emitters.get(1);
+
+        // The first event parks the stalled client's send; the rest pile up in its buffer until it overflows.
+        // The healthy client keeps receiving every event meanwhile.
+        RecordingEmitter healthy = emitters.get(0);
+        for (int i = 0; i < BUFFER_SIZE + 2; i++) {
+            hub.publish("north", "user-updated", Map.of("id", i));
+            int expected = i + 2;
+            awaitTrue(() -> healthy.sent.size() == expected);
+        }
+        assertThat(hub.getDroppedSubscriberCount()).isEqualTo(1);
+        assertThat(hub.getSubscriberCount()).isEqualTo(1);
+
+        unblock.countDown();
+        awaitTrue(() -> stalled.completed);
+        hub.publish("north", "user-updated", Map.of("id", "after"));
+        awaitTrue(() -> healthy.sent.size() == BUFFER_SIZE + 4);
+        // Nothing past the event it was stuck on
+        assertThat(stalled.sent.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void aDisconnectedClientIsRemovedOnTheNextSend() throws Exception {
+        hub.subscribe("north");
+        RecordingEmitter healthy = emitters.get(0);
+        hub.subscribe("north");
+        emitters.get(1).behaviour = Behaviour.FAIL;
+        assertThat(hub.getSubscriberCount()).isEqualTo(2);
+
+        hub.publish("north", "user-created", Map.of("id", 1));
+        awaitTrue(() -> hub.getSubscriberCount() == 1);
+        hub.publish("north", "user-created", Map.of("id", 2));
+        awaitTrue(() -> healthy.sent.size() == 3);
+        // Removed because the send failed, not dropped for being slow
+        assertThat(hub.getDroppedSubscriberCount()).isZero();
+    }
+
+    @Test
+    void aClientStuckInASendIsCutLoosePastTheWriteDeadline() throws Exception {
+        EventHub hub = hub(3600, 200);
+        hub.subscribe("north");
+        next = Behaviour.BLOCK;
+        hub.subscribe("north");
+        RecordingEmitter stalled = emitters.get(1);
+
+        // One event is enough: it parks the send, and the buffer never comes close to filling
+        hub.publish("north", "user-updated", Map.of("id", 1));
+        awaitTrue(() -> hub.getDroppedSubscriberCount() == 1);
+        assertThat(hub.getSubscriberCount()).isEqualTo(1);
+        assertThat(stalled.completed).isFalse();
+
+        unblock.countDown();
+        awaitTrue(() -> stalled.completed);
+        hub.publish("north", "user-updated", Map.of("id", 2));
+        awaitTrue(() -> emitters.get(0).sent.size() == 3);
+        assertThat(stalled.sent).hasSize(2);
+    }
+
+    @Test
+    void idleSubscribersGetKeepalivesFromTheSharedDispatchThreads() throws Exception {
+        EventHub hub = hub(1, 60_000);
+        for (int i = 0; i < 200; i++) {
+            hub.subscribe("north");
+        }
+        awaitTrue(() -> emitters.stream().allMatch(emitter -> emitter.sent.size() >= 2));
+        for (RecordingEmitter emitter : emitters) {
+            assertThat(emitter.sent.get(1)).contains("keepalive");
+        }
+        assertThat(senders).hasSizeLessThanOrEqualTo(DISPATCH_THREADS).allMatch(name -> name.startsWith("sse-dispatch-"));
+    }
+
+    // Hands out emitters that record what is sent instead of writing to a response
+    private EventHub hub(long heartbeatSeconds, long writeDeadlineMillis) {
+        EventHub hub = new EventHub(BUFFER_SIZE, 60_000, heartbeatSeconds, DISPATCH_THREADS, writeDeadlineMillis) {
+            @Override
+            SseEmitter createEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter(next, unblock, senders);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        hubs.add(hub);
+        return hub;
+    }
+
+    private static void awaitTrue(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.get()) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Condition not met in time");
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch unblock;
+        private final Set<String> senders;
+        private volatile Behaviour behaviour;
+        private volatile boolean completed;
+
+        private RecordingEmitter(Behaviour behaviour, CountDownLatch unblock, Set<String> senders) {
+            this.behaviour = behaviour;
+            this.unblock = unblock;
+            this.senders = senders;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (behaviour == Behaviour.FAIL) {
+                throw new IOException("Broken pipe");
+            }
+            List<String> parts = new ArrayList<>();
+            builder.build().forEach(part -> parts.add(String.valueOf(part.getData())));
+            sent.add(String.join("", parts));
+            if (sent.size() > 1) {
+                senders.add(Thread.currentThread().getName());
+            }
+            // The connect comment goes through; the first real event is where the client stops reading
+            if (behaviour == Behaviour.BLOCK && sent.size() > 1) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
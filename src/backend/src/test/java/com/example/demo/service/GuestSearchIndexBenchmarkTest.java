@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("benchmark")
+class GuestSearchIndexBenchmarkTest {
+    private static final int GUESTS = 1_000_000;
+    private static final int ROUNDS = 2_000;
+    private static final String[] FIRST_NAMES = { "José", "María", "Juan", "Ana", "Luis", "Sofía", "Carlos", "Lucía",
+        "John", "Emily", "Michael", "Sarah", "David", "Jessica", "Andrés", "Inés", "Ramón", "Zoë", "Chloé", "Renée" };
+    private static final String[] LAST_NAMES = { "García", "Martínez", "López", "Hernández", "González", "Pérez",
+        "Rodríguez", "Sánchez", "Núñez", "Muñoz", "Smith", "Johnson", "Williams", "Brown", "Jones", "Miller",
+        "Davis", "Wilson", "Ibáñez", "Peña" };
+    private static final String[] NATIONALITIES = { "Mexico", "United States", "Canada", "España", "Argentina", "Colombia" };
+    private static final String[] NOTES = { "", "", "Prefiere habitación con vista al mar", "Vegetarian, allergic to nuts",
+        "Aniversario de bodas", "Late check-out requested", "Cliente frecuente", "Honeymoon" };
+    private static final String[] QUERIES = { "jose", "garc", "josé garcía", "maria nunez", "998", "mex", "smith john",
+        "vegetarian", "muñoz", "ibanez ramon" };
+
+    @Test
+    void reportBuildAndQueryLatency() {
+        Random random = new Random(7);
+        List<GuestSearchIndex.Document> documents = new ArrayList<>(GUESTS);
+        for (int id = 1; id <= GUESTS; id++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String email = GuestSearchIndex.tokenize(first).get(0) + "." + GuestSearchIndex.tokenize(last).get(0) + id + "@example.com";
+            String phone = "+52 998 " + (1_000_000 + random.nextInt(9_000_000));
+            String text = first + " " + last + " " + email + " " + phone + " "
+                + NATIONALITIES[random.nextInt(NATIONALITIES.length)] + " " + NOTES[random.nextInt(NOTES.length)];
+            documents.add(new GuestSearchIndex.Document(id, GuestSearchIndex.tokenize(text).toArray(String[]::new)));
+        }
+
+        GuestSearchIndex index = new GuestSearchIndex();
+        long buildStart = System.nanoTime();
+        GuestSearchIndex.Rebuild rebuild = index.startRebuild();
+        int chunk = 20_000;
+        IntStream.range(0, GUESTS / chunk).parallel()
+            .forEach(c -> rebuild.addAll(documents.subList(c * chunk, (c + 1) * chunk)));
+        rebuild.commit();
+        long buildNanos = System.nanoTime() - buildStart;
+        assertThat(index.size()).isEqualTo(GUESTS);
+
+        long sink = 0;
+        for (int i = 0; i < ROUNDS / 4; i++) {
+            sink += index.search(QUERIES[i % QUERIES.length], 20).guestIds().size();
+        }
+        System.out.printf("guests=%d build=%.0f ms%n", GUESTS, buildNanos / 1e6);
+        for (String query : QUERIES) {
+            long[] nanos = new long[ROUNDS / QUERIES.length];
+            for (int i = 0; i < nanos.length; i++) {
+                long t = System.nanoTime();
+                sink += index.search(query, 20).guestIds().size();
+                nanos[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("query %-14s p50=%.2f ms p99=%.2f ms%n", '"' + query + '"',
+                nanos[nanos.length / 2] / 1e6, nanos[nanos.length * 99 / 100] / 1e6);
+        }
+
+        // Reference point: the same match done as a LIKE-style scan over the folded text of every guest
+        long scanStart = System.nanoTime();
+        int scanHits = 0;
+        for (GuestSearchIndex.Document document : documents) {
+            for (String token : document.tokens()) {
+                if (token.startsWith("garc")) {
+                    scanHits++;
+                    break;
+                }
+            }
+        }
+        System.out.printf("full scan \"garc\": %.1f ms (%d hits)%n", (System.nanoTime() - scanStart) / 1e6, scanHits);
+        assertThat(sink).isPositive();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Guest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GuestSearchIndexTest {
+
+    @Test
+    void tokenizeFoldsCaseAccentsAndPunctuation() {
+        assertThat(GuestSearchIndex.tokenize("José Núñez-García")).containsExactly("jose", "nunez", "garcia");
+        assertThat(GuestSearchIndex.tokenize("ANA.lópez@Correo.mx")).containsExactly("ana", "lopez", "correo", "mx");
+        assertThat(GuestSearchIndex.tokenize("  ")).isEmpty();
+        assertThat(GuestSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void everyTermMustMatchAsAPrefixNewestFirst() {
+        GuestSearchIndex index = new GuestSearchIndex();
+        index.put(guest(1, "José García", "jose@example.com", "+52 (998) 123-4567"));
+        index.put(guest(2, "Josefina Garza", "jgarza@example.com", null));
+        index.put(guest(3, "Ana López", "ana@example.com", null));
+
+        assertThat(ids(index, "jose")).containsExactly(2L, 1L);
+        assertThat(ids(index, "JOSÉ GAR")).containsExactly(2L, 1L);
+        assertThat(ids(index, "jose garcia")).containsExactly(1L);
+        assertThat(ids(index, "998 123 4567")).containsExactly(1L);
+        assertThat(ids(index, "9981234567")).containsExactly(1L);
+        assertThat(ids(index, "lopez ana")).containsExactly(3L);
+        assertThat(ids(index, "jose lopez")).isEmpty();
+        assertThat(index.search("jose", 1).guestIds()).containsExactly(2L);
+    }
+
+    @Test
+    void singleLetterTermsOnlyMatchWholeTokens() {
+        GuestSearchIndex index = new GuestSearchIndex();
+        index.put(guest(1, "A Bernal", null, null));
+        index.put(guest(2, "Alberto Bernal", null, null));
+
+        assertThat(ids(index, "a bernal")).containsExactly(1L);
+        assertThat(ids(index, "al bernal")).containsExactly(2L);
+    }
+
+    @Test
+    void updatesReplaceTokensAndDeletesHideGuests() {
+        GuestSearchIndex index = new GuestSearchIndex();
+        index.put(guest(1, "Marta Ruiz", null, null));
+        index.put(guest(2, "Marta Soto", null, null));
+
+        index.put(guest(1, "Marta Vidal", null, null));
+        assertThat(ids(index, "ruiz")).isEmpty();
+        assertThat(ids(index, "vidal")).containsExactly(1L);
+        // The update makes guest 1 the most recently written
+        assertThat(ids(index, "marta")).containsExactly(1L, 2L);
+
+        index.remove(2);
+        index.remove(99);
+        assertThat(ids(index, "marta")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void tombstonesAreCompactedAwayAsTheyPileUp() {
+        GuestSearchIndex index = new GuestSearchIndex();
+        for (long id = 1; id <= 100; id++) {
+            index.put(guest(id, "Guest " + id, "guest" + id + "@example.com", null));
+        }
+        // Each update tombstones the guest's previous document
+        for (int round = 0; round < 50; round++) {
+            for (long id = 1; id <= 100; id++) {
+                index.put(guest(id, "Guest " + id + " round" + round, "guest" + id + "@example.com", null));
+            }
+            assertThat(index.tombstones()).isLessThanOrEqualTo(Math.max(1024, index.size()));
+        }
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(ids(index, "round49")).hasSize(100).first().isEqualTo(100L);
+        assertThat(ids(index, "round48")).isEmpty();
+        assertThat(ids(index, "guest 42")).containsExactly(42L);
+        assertThat(index.search("guest", 5).guestIds()).containsExactly(100L, 99L, 98L, 97L, 96L);
+
+        for (long id = 1; id <= 100; id++) {
+            index.remove(id);
+        }
+        assertThat(ids(index, "guest")).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void prefixesWithTooManyExpansionsAreReportedAsTruncated() {
+        GuestSearchIndex index = new GuestSearchIndex();
+        for (long id = 1; id <= 600; id++) {
+            index.put(guest(id, "Zed" + id, null, null));
+        }
+        GuestSearchIndex.Hits hits = index.search("zed", 1000);
+        assertThat(hits.truncated()).isTrue();
+        assertThat(hits.guestIds()).hasSize(512);
+
+        GuestSearchIndex.Hits narrower = index.search("zed59", 1000);
+        assertThat(narrower.truncated()).isFalse();
+        assertThat(narrower.guestIds()).containsExactly(599L, 598L, 597L, 596L, 595L, 594L, 593L, 592L, 591L, 590L, 59L);
+    }
+
+    @Test
+    void rebuildOrdersByGuestIdAndReportsWritesMadeMeanwhile() {
+        GuestSearchIndex index = new GuestSearchIndex();
+        index.put(guest(1, "Old Name", null, null));
+
+        GuestSearchIndex.Rebuild rebuild = index.startRebuild();
+        // Chunks may load in any order
+        rebuild.addAll(List.of(document(3, "Luis Mora"), document(4, "Luis Prieto")));
+        rebuild.addAll(List.of(document(1, "Luis Vega"), document(2, "Luis Ortega")));
+        index.put(guest(5, "Luis Nuevo", null, null));
+        index.remove(1);
+        // Still serving the old index until the commit
+        assertThat(ids(index, "old")).isEmpty();
+        assertThat(ids(index, "luis")).containsExactly(5L);
+
+        Set<Long> touched = rebuild.commit();
+        assertThat(touched).containsExactlyInAnyOrder(1L, 5L);
+        assertThat(ids(index, "luis")).containsExactly(4L, 3L, 2L, 1L);
+        // The caller replays what changed during the rebuild
+        index.put(guest(5, "Luis Nuevo", null, null));
+        index.remove(1);
+        assertThat(ids(index, "luis")).containsExactly(5L, 4L, 3L, 2L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    private static List<Long> ids(GuestSearchIndex index, String query) {
+        GuestSearchIndex.Hits hits = index.search(query, 1000);
+        assertThat(hits.truncated()).isFalse();
+        return new ArrayList<>(hits.guestIds());
+    }
+
+    private static GuestSearchIndex.Document document(long id, String fullName) {
+        return GuestSearchIndex.prepare(guest(id, fullName, null, null));
+    }
+
+    private static Guest guest(long id, String fullName, String email, String phone) {
+        Guest guest = new Guest();
+        guest.setId(id);
+        guest.setFullName(fullName);
+        guest.setEmail(email);
+        guest.setPhone(phone);
+        return guest;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.StayOutsideRatesException;
+import com.example.demo.model.RateRule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PricingEngineTest {
+    private static final List<String> TYPES = List.of("STANDARD", "DELUXE");
+    // A Monday
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2030, 1, 7);
+    private static final int DAYS = 60;
+
+    private final AvailabilityIndex index = new AvailabilityIndex();
+    private final List<PricingEngine> engines = new ArrayList<>();
+
+    @BeforeEach
+    void seedRooms() {
+        for (long room = 1; room <= 4; room++) {
+            index.addRoom(room, "DELUXE");
+        }
+        index.addRoom(5, "STANDARD");
+        index.addRoom(6, "STANDARD");
+        // Half the deluxe rooms are taken on Friday the 11th only
+        index.book(1, LocalDate.of(2030, 1, 11), LocalDate.of(2030, 1, 12));
+        index.book(2, LocalDate.of(2030, 1, 11), LocalDate.of(2030, 1, 12));
+    }
+
+    @AfterEach
+    void shutdown() {
+        engines.forEach(PricingEngine::shutdown);
+    }
+
+    @Test
+    void rulesCombineIntoTheNightlyRate() {
+        assertThat(FIRST_NIGHT.getDayOfWeek()).isEqualTo(DayOfWeek.MONDAY);
+        PricingEngine engine = engine();
+        engine.rebuild(rules(), TYPES, FIRST_NIGHT, DAYS);
+
+        // Thursday: deluxe base and season. Friday: plus the weekend and the 50% occupancy band. Saturday:
+        // the season has ended, the weekend still applies
+        PricingEngine.Quote deluxe = engine.quote("DELUXE", LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 13), null);
+        assertThat(deluxe.nightlyCents()).containsExactly(300_00L, 396_00L, 220_00L);
+        assertThat(deluxe.totalCents()).isEqualTo(916_00);
+        assertThat(deluxe.promoCode()).isNull();
+
+        PricingEngine.Quote promo = engine.quote("DELUXE", LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 13), "winter");
+        assertThat(promo.nightlyCents()).containsExactly(270_00L, 356_40L, 198_00L);
+        assertThat(promo.promoCode()).isEqualTo("WINTER");
+
+        // The base rate for every type, the weekend rule and no occupancy surcharge
+        PricingEngine.Quote standard = engine.quote("STANDARD", LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 13), "NOPE");
+        assertThat(standard.nightlyCents()).containsExactly(100_00L, 110_00L, 110_00L);
+        assertThat(standard.promoCode()).isNull();
+    }
+
+    @Test
+    void staysOutsideThePublishedWindowAreRefused() {
+        PricingEngine engine = engine();
+        engine.rebuild(rules(), TYPES, FIRST_NIGHT, DAYS);
+
+        assertThatThrownBy(() -> engine.quote("DELUXE", FIRST_NIGHT.minusDays(1), FIRST_NIGHT.plusDays(1), null))
+            .isInstanceOf(StayOutsideRatesException.class)
+            .hasMessage("Rates are published for stays between 2030-01-07 and 2030-03-08");
+        assertThatThrownBy(() -> engine.quote("DELUXE", FIRST_NIGHT.plusDays(DAYS - 1), FIRST_NIGHT.plusDays(DAYS + 1), null))
+            .isInstanceOf(StayOutsideRatesException.class);
+        assertThatThrownBy(() -> engine.quote("DELUXE", LocalDate.of(2019, 12, 30), LocalDate.of(2019, 12, 31), null))
+            .isInstanceOf(StayOutsideRatesException.class);
+        assertThatThrownBy(() -> engine.quote("DELUXE", FIRST_NIGHT.plusDays(3), FIRST_NIGHT.plusDays(3), null))
+            .isInstanceOf(StayOutsideRatesException.class);
+        assertThatThrownBy(() -> engine.quote("PENTHOUSE", FIRST_NIGHT, FIRST_NIGHT.plusDays(1), null))
+            .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(engine.quote("DELUXE", FIRST_NIGHT.plusDays(DAYS - 1), FIRST_NIGHT.plusDays(DAYS), null).nightlyCents()).hasSize(1);
+    }
+
+    @Test
+    void refreshAfterRuleEditsMatchesAFullRebuild() {
+        List<RateRule> rules = rules();
+        PricingEngine refreshed = engine();
+        refreshed.rebuild(rules, TYPES, FIRST_NIGHT, DAYS);
+
+        // Move the season, change the standard base rate, drop the weekend, add a band and a standard season
+        rule(rules, RateRule.SEASON).setEndDate(LocalDate.of(2030, 1, 20));
+        rule(rules, RateRule.SEASON).setPercent(35);
+        rules.stream().filter(rule -> RateRule.BASE.equals(rule.getKind()) && rule.getRoomType() == null)
+            .findFirst().orElseThrow().setAmountCents(105_00L);
+        rules.remove(rule(rules, RateRule.WEEKDAY));
+        rules.add(rule(rules, RateRule.OCCUPANCY, null, r -> {
+            r.setMinOccupancy(25);
+            r.setPercent(8);
+        }));
+        rules.add(rule(rules, RateRule.SEASON, "STANDARD", r -> {
+            r.setStartDate(LocalDate.of(2030, 2, 1));
+            r.setEndDate(LocalDate.of(2030, 2, 15));
+            r.setPercent(-30);
+        }));
+        refreshed.refresh(rules, TYPES);
+
+        PricingEngine rebuilt = engine();
+        rebuilt.rebuild(rules, TYPES, FIRST_NIGHT, DAYS);
+        for (String type : TYPES) {
+            for (int night = 0; night < DAYS; night++) {
+                LocalDate checkIn = FIRST_NIGHT.plusDays(night);
+                LocalDate checkOut = checkIn.plusDays(Math.min(3, DAYS - night));
+                assertThat(refreshed.quote(type, checkIn, checkOut, "WINTER").nightlyCents())
+                    .as(type + " from " + checkIn)
+                    .containsExactly(rebuilt.quote(type, checkIn, checkOut, "WINTER").nightlyCents());
+            }
+        }
+        assertThat(refreshed.quote("DELUXE", LocalDate.of(2030, 1, 11), LocalDate.of(2030, 1, 12), null).nightlyCents())
+            .containsExactly(324_00L);
+    }
+
+    private PricingEngine engine() {
+        PricingEngine engine = new PricingEngine(index, 2);
+        engines.add(engine);
+        return engine;
+    }
+
+    private static List<RateRule> rules() {
+        List<RateRule> rules = new ArrayList<>();
+        rules.add(rule(rules, RateRule.BASE, null, r -> r.setAmountCents(100_00L)));
+        rules.add(rule(rules, RateRule.BASE, "DELUXE", r -> r.setAmountCents(200_00L)));
+        rules.add(rule(rules, RateRule.SEASON, "DELUXE", r -> {
+            r.setStartDate(LocalDate.of(2030, 1, 10));
+            r.setEndDate(LocalDate.of(2030, 1, 12));
+            r.setPercent(50);
+        }));
+        // Friday and Saturday nights
+        rules.add(rule(rules, RateRule.WEEKDAY, null, r -> {
+            r.setDaysOfWeek(0b0110000);
+            r.setPercent(10);
+        }));
+        rules.add(rule(rules, RateRule.OCCUPANCY, null, r -> {
+            r.setMinOccupancy(50);
+            r.setPercent(20);
+        }));
+        rules.add(rule(rules, RateRule.PROMO, null, r -> {
+            r.setPromoCode("WINTER");
+            r.setPercent(-10);
+        }));
+        return rules;
+    }
+
+    private static RateRule rule(List<RateRule> rules, String kind) {
+        return rules.stream().filter(rule -> kind.equals(rule.getKind())).findFirst().orElseThrow();
+    }
+
+    private static RateRule rule(List<RateRule> rules, String kind, String type, Consumer<RateRule> settings) {
+        RateRule rule = new RateRule();
+        rule.setId(rules.stream().mapToLong(RateRule::getId).max().orElse(0) + 1);
+        rule.setKind(kind);
+        rule.setRoomType(type);
+        settings.accept(rule);
+        return rule;
+    }
+}
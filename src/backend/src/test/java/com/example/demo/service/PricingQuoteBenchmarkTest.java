@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import com.example.demo.model.RateRule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Public because the classes JMH generates for the nested benchmark state have to reach it
+@Tag("benchmark")
+public class PricingQuoteBenchmarkTest {
+    private static final String[] TYPES = { "STANDARD", "DELUXE", "SUITE", "FAMILY", "OCEAN_VIEW" };
+    private static final int ROOMS = 500;
+    private static final int DAYS = 730;
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2030, 1, 1);
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public static class QuoteBenchmark {
+        private PricingEngine engine;
+        private LocalDate[] checkIns;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            AvailabilityIndex index = seededIndex();
+            engine = new PricingEngine(index, 0);
+            engine.rebuild(rules(), List.of(TYPES), FIRST_NIGHT, DAYS);
+            Random random = new Random(3);
+            checkIns = new LocalDate[4096];
+            for (int i = 0; i < checkIns.length; i++) {
+                checkIns[i] = FIRST_NIGHT.plusDays(random.nextInt(DAYS - 30));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            engine.shutdown();
+        }
+
+        @Benchmark
+        public PricingEngine.Quote quoteOneNight() {
+            LocalDate checkIn = checkIns[next++ & (checkIns.length - 1)];
+            return engine.quote("DELUXE", checkIn, checkIn.plusDays(1), null);
+        }
+
+        @Benchmark
+        public PricingEngine.Quote quoteWeekWithPromo() {
+            LocalDate checkIn = checkIns[next++ & (checkIns.length - 1)];
+            return engine.quote("SUITE", checkIn, checkIn.plusDays(7), "SUMMER15");
+        }
+
+        @Benchmark
+        public PricingEngine.Quote quoteFourWeeks() {
+            LocalDate checkIn = checkIns[next++ & (checkIns.length - 1)];
+            return engine.quote("STANDARD", checkIn, checkIn.plusDays(28), null);
+        }
+    }
+
+    @Test
+    void reportCompileTimesAndQuoteLatency() throws Exception {
+        AvailabilityIndex index = seededIndex();
+        PricingEngine engine = new PricingEngine(index, 0);
+        List<RateRule> rules = rules();
+        for (int i = 0; i < 5; i++) {
+            engine.rebuild(rules, List.of(TYPES), FIRST_NIGHT, DAYS);
+        }
+        long rebuildStart = System.nanoTime();
+        engine.rebuild(rules, List.of(TYPES), FIRST_NIGHT, DAYS);
+        long rebuildNanos = System.nanoTime() - rebuildStart;
+
+        // Moving one season of one room type only recompiles that type's nights
+        RateRule season = rules.stream()
+            .filter(rule -> RateRule.SEASON.equals(rule.getKind()) && "SUITE".equals(rule.getRoomType()))
+            .findFirst().orElseThrow();
+        long refreshNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            season.setPercent(season.getPercent() + 1);
+            long refreshStart = System.nanoTime();
+            engine.refresh(rules, List.of(TYPES));
+            refreshNanos = Math.min(refreshNanos, System.nanoTime() - refreshStart);
+        }
+        PricingEngine.Quote quote = engine.quote("SUITE", FIRST_NIGHT.plusDays(180), FIRST_NIGHT.plusDays(187), "SUMMER15");
+        engine.shutdown();
+        System.out.printf("rate tables: %d types x %d nights, %d rules%n", TYPES.length, DAYS, rules.size());
+        System.out.printf("full rebuild: %.2f ms, incremental refresh (one season): %.2f ms%n", rebuildNanos / 1e6, refreshNanos / 1e6);
+        assertThat(quote.totalCents()).isPositive();
+
+        Options options = new OptionsBuilder()
+            .include(QuoteBenchmark.class.getName().replace('$', '.') + ".")
+            .forks(1)
+            .warmupIterations(3)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(1))
+            .shouldFailOnError(true)
+            .build();
+        assertThat(new Runner(options).run()).isNotEmpty();
+    }
+
+    private static AvailabilityIndex seededIndex() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        Random random = new Random(42);
+        for (long room = 1; room <= ROOMS; room++) {
+            index.addRoom(room, TYPES[(int) (room % TYPES.length)]);
+            int day = random.nextInt(3);
+            while (day < DAYS) {
+                int nights = 1 + random.nextInt(7);
+                index.book(room, FIRST_NIGHT.plusDays(day), FIRST_NIGHT.plusDays(Math.min(DAYS, day + nights)));
+                day += nights + random.nextInt(6);
+            }
+        }
+        return index;
+    }
+
+    private static List<RateRule> rules() {
+        List<RateRule> rules = new ArrayList<>();
+        long[] baseCents = { 120_00, 180_00, 320_00, 210_00, 260_00 };
+        for (int i = 0; i < TYPES.length; i++) {
+            long amountCents = baseCents[i];
+            rules.add(rule(rules, RateRule.BASE, TYPES[i], r -> r.setAmountCents(amountCents)));
+        }
+        for (String type : TYPES) {
+            for (int year = 0; year < 2; year++) {
+                LocalDate start = FIRST_NIGHT.plusYears(year);
+                rules.add(rule(rules, RateRule.SEASON, type, r -> {
+                    r.setStartDate(start.withMonth(12).withDayOfMonth(15));
+                    r.setEndDate(start.plusYears(1).withDayOfMonth(7));
+                    r.setPercent(40);
+                }));
+                rules.add(rule(rules, RateRule.SEASON, type, r -> {
+                    r.setStartDate(start.withMonth(7));
+                    r.setEndDate(start.withMonth(9));
+                    r.setPercent(25);
+                }));
+                rules.add(rule(rules, RateRule.SEASON, type, r -> {
+                    r.setStartDate(start.withMonth(9));
+                    r.setEndDate(start.withMonth(11));
+                    r.setPercent(-20);
+                }));
+            }
+        }
+        // Friday and Saturday nights
+        rules.add(rule(rules, RateRule.WEEKDAY, null, r -> {
+            r.setDaysOfWeek(0b0110000);
+            r.setPercent(15);
+        }));
+        int[][] bands = { { 50, 5 }, { 80, 15 }, { 95, 30 } };
+        for (int[] band : bands) {
+            rules.add(rule(rules, RateRule.OCCUPANCY, null, r -> {
+                r.setMinOccupancy(band[0]);
+                r.setPercent(band[1]);
+            }));
+        }
+        rules.add(rule(rules, RateRule.PROMO, null, r -> {
+            r.setPromoCode("SUMMER15");
+            r.setPercent(-15);
+        }));
+        return rules;
+    }
+
+    private static RateRule rule(List<RateRule> rules, String kind, String type, Consumer<RateRule> settings) {
+        RateRule rule = new RateRule();
+        rule.setId(rules.size() + 1L);
+        rule.setKind(kind);
+        rule.setRoomType(type);
+        settings.accept(rule);
+        return rule;
+    }
+}
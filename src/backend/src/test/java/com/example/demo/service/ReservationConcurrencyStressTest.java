@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.BookingConflictException;
+import com.example.demo.model.Guest;
+import com.example.demo.model.Reservation;
+import com.example.demo.model.Room;
+import com.example.demo.repository.GuestRepository;
+import com.example.demo.repository.ReservationRepository;
+import com.example.demo.repository.RoomRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Its own database: the default one is shared with whichever other context happens to be cached, and can be
+// dropped from under this test when that context closes
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stress;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class ReservationConcurrencyStressTest {
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 40;
+    private static final LocalDate WINDOW_START = LocalDate.of(2031, 3, 1);
+    private static final int WINDOW_DAYS = 14;
+
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private GuestRepository guestRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentBookingsFromTwoNodesNeverOverbook() throws Exception {
+        // A second node: same database, its own availability index and lock stripes
+        ReservationService otherNode = new ReservationService(reservationRepository, roomRepository, guestRepository,
+            new AvailabilityIndex(), new RoomStatusBoard(), new GuestSearchIndex(), transactionManager);
+        otherNode.rebuildIndex();
+        ReservationService[] nodes = { reservationService, otherNode };
+        List<Long> suites = roomRepository.findAll().stream()
+            .filter(room -> "SUITE".equals(room.getType()))
+            .map(Room::getId)
+            .toList();
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            ReservationService node = nodes[t % nodes.length];
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    LocalDate checkIn = WINDOW_START.plusDays(random.nextInt(WINDOW_DAYS - 3));
+                    LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(3));
+                    Guest guest = new Guest();
+                    guest.setFullName("Stress Guest");
+                    try {
+                        if (random.nextBoolean()) {
+                            node.book(suites.get(random.nextInt(suites.size())), null, guest, checkIn, checkOut);
+                        } else {
+                            node.book(null, "SUITE", guest, checkIn, checkOut);
+                        }
+                        booked.incrementAndGet();
+                    } catch (BookingConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+            });
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        Map<Long, BitSet> nightsByRoom = new HashMap<>();
+        List<String> overlaps = new ArrayList<>();
+        int confirmed = 0;
+        for (Reservation reservation : reservationRepository.findOverlapping(WINDOW_START, WINDOW_START.plusDays(WINDOW_DAYS))) {
+            if (!Reservation.CONFIRMED.equals(reservation.getStatus())) {
+                continue;
+            }
+            confirmed++;
+            BitSet nights = nightsByRoom.computeIfAbsent(reservation.getRoom().getId(), id -> new BitSet());
+            int from = (int) (reservation.getCheckIn().toEpochDay() - WINDOW_START.toEpochDay());
+            int to = (int) (reservation.getCheckOut().toEpochDay() - WINDOW_START.toEpochDay());
+            int taken = nights.nextSetBit(from);
+            if (taken >= 0 && taken < to) {
+                overlaps.add("room " + reservation.getRoom().getId() + " night " + WINDOW_START.plusDays(taken));
+            }
+            nights.set(from, to);
+        }
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        System.out.printf("booking stress: %d attempts in %.2f s (%.0f/s), %d booked, %d conflicts, %d overlapping%n",
+            attempts, seconds, attempts / seconds, booked.get(), conflicts.get(), overlaps.size());
+        assertThat(overlaps).isEmpty();
+        assertThat(confirmed).isEqualTo(booked.get());
+        assertThat(booked.get()).isPositive();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferTest {
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThat(new RingBuffer<String>(8).capacity()).isEqualTo(8);
+        assertThatThrownBy(() -> new RingBuffer<String>(6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RingBuffer<String>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void offersFailWhenFullAndPollsReturnInOrderAcrossWraps() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        assertThat(buffer.poll()).isNull();
+
+        int next = 0;
+        int expected = 0;
+        // Enough rounds for the positions to wrap around the slots several times
+        for (int round = 0; round < 10; round++) {
+            while (buffer.offer(next)) {
+                next++;
+            }
+            assertThat(buffer.size()).isEqualTo(4);
+            assertThat(buffer.poll()).isEqualTo(expected++);
+            assertThat(buffer.poll()).isEqualTo(expected++);
+            assertThat(buffer.size()).isEqualTo(2);
+        }
+        Integer value;
+        while ((value = buffer.poll()) != null) {
+            assertThat(value).isEqualTo(expected++);
+        }
+        assertThat(expected).isEqualTo(next);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void concurrentProducersAndConsumersHandOverEveryElementOnce() throws Exception {
+        int producers = 4;
+        int consumers = 2;
+        int perProducer = 20_000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger produced = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            List<Future<?>> producing = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                producing.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        // Retries while full; offer itself never waits
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                        produced.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> consuming = new ArrayList<>();
+            for (int c = 0; c < consumers; c++) {
+                consuming.add(pool.submit(() -> {
+                    start.await();
+                    while (seen.size() < producers * perProducer) {
+                        Integer value = buffer.poll();
+                        if (value == null) {
+                            Thread.yield();
+                        } else if (!seen.add(value)) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : producing) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            for (Future<?> future : consuming) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(produced.get()).isEqualTo(producers * perProducer);
+        assertThat(seen).hasSize(producers * perProducer);
+        assertThat(duplicates.get()).isZero();
+        assertThat(buffer.poll()).isNull();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.model.UserRole;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserRoleRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest
+class RoleMembershipBenchmarkTest {
+    private static final int USERS = 20_000;
+    private static final int[] BATCHES = { 1_000, 5_000, 20_000 };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RoleMembershipService roleMembershipService;
+
+    private final List<UUID> ids = new ArrayList<>(USERS);
+
+    @BeforeAll
+    void seedUsers() {
+        long roleId = userRoleRepository.findByName("USER").orElseThrow().getId();
+        List<Object[]> users = new ArrayList<>(USERS);
+        List<Object[]> roles = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            users.add(new Object[] { id, "bench" + i, "bench" + i + "@example.com", "$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbench" });
+            roles.add(new Object[] { id, roleId });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, email, password, version) VALUES (?, ?, ?, ?, 1)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)", roles);
+    }
+
+    @Test
+    void reportBulkAgainstPerEntity() {
+        UserRole supervisor = userRoleRepository.findByName("SUPERVISOR").orElseThrow();
+        // Warm up both paths on ids the measured runs do not touch
+        perEntityAdd(ids.subList(USERS - 200, USERS), supervisor);
+        roleMembershipService.addMembers("MANAGER", ids.subList(USERS - 200, USERS));
+
+        System.out.printf("%-8s %16s %16s %16s %16s%n", "users", "per-entity ms", "bulk add ms", "bulk remove ms", "speedup");
+        for (int batch : BATCHES) {
+            List<UUID> target = ids.subList(0, Math.min(batch, USERS - 200));
+            long perEntityStart = System.nanoTime();
+            perEntityAdd(target, supervisor);
+            double perEntityMillis = (System.nanoTime() - perEntityStart) / 1e6;
+
+            long addStart = System.nanoTime();
+            RoleMembershipService.Result added = roleMembershipService.addMembers("MANAGER", target);
+            double addMillis = (System.nanoTime() - addStart) / 1e6;
+            assertThat(added.changed()).isEqualTo(target.size());
+            assertThat(countMembers("MANAGER")).isEqualTo(target.size() + 200);
+
+            long removeStart = System.nanoTime();
+            RoleMembershipService.Result removed = roleMembershipService.removeMembers("MANAGER", target);
+            double removeMillis = (System.nanoTime() - removeStart) / 1e6;
+            assertThat(removed.changed()).isEqualTo(target.size());
+            assertThat(countMembers("MANAGER")).isEqualTo(200);
+
+            jdbcTemplate.update("DELETE FROM user_roles_map WHERE role_id = ?", supervisor.getId());
+            System.out.printf("%-8d %16.1f %16.1f %16.1f %15.1fx%n", target.size(), perEntityMillis, addMillis, removeMillis,
+                perEntityMillis / addMillis);
+        }
+    }
+
+    // What a caller has to do today: load each user with its eager roles, add the role and save
+    private void perEntityAdd(List<UUID> target, UserRole role) {
+        for (UUID id : target) {
+            User user = userRepository.findById(id).orElseThrow();
+            Set<UserRole> roles = new HashSet<>(user.getRoles());
+            roles.add(role);
+            user.setRoles(roles);
+            userService.registerUser(user);
+        }
+    }
+
+    private long countMembers(String roleName) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM user_roles_map m JOIN user_roles r ON r.id = m.role_id WHERE r.name = ?", Long.class, roleName);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomStatusBoardTest {
+    @Test
+    void pollsReturnOnlyWhatChangedSinceTheClientsVersion() {
+        RoomStatusBoard board = new RoomStatusBoard();
+        for (int room = 101; room <= 110; room++) {
+            board.addRoom(Integer.toString(room));
+        }
+
+        RoomStatusBoard.View snapshot = board.since(null);
+        assertThat(snapshot.full()).isTrue();
+        assertThat(snapshot.rooms()).hasSize(10).allMatch(room -> room.status().equals("CLEAN"));
+
+        RoomStatusBoard.View idle = board.since(snapshot.version());
+        assertThat(idle.full()).isFalse();
+        assertThat(idle.rooms()).isEmpty();
+        assertThat(idle.version()).isEqualTo(snapshot.version());
+
+        board.apply("104", "DIRTY", 1);
+        board.apply("107", "OUT_OF_ORDER", 2);
+        board.apply("104", "OCCUPIED", 3);
+        RoomStatusBoard.View delta = board.since(snapshot.version());
+        assertThat(delta.full()).isFalse();
+        assertThat(delta.rooms()).containsExactly(
+            new RoomStatusBoard.RoomStatus("104", "OCCUPIED"),
+            new RoomStatusBoard.RoomStatus("107", "OUT_OF_ORDER"));
+        assertThat(board.since(delta.version()).rooms()).isEmpty();
+    }
+
+    @Test
+    void updatesOlderThanTheAppliedOneAreIgnored() {
+        RoomStatusBoard board = new RoomStatusBoard();
+        board.addRoom("201");
+        String version = board.getVersion();
+
+        assertThat(board.apply("201", "DIRTY", 8)).isTrue();
+        // A slower node's earlier change arriving after the newer one
+        assertThat(board.apply("201", "OCCUPIED", 5)).isFalse();
+        assertThat(board.since(version).rooms()).containsExactly(new RoomStatusBoard.RoomStatus("201", "DIRTY"));
+    }
+
+    @Test
+    void versionsFromAnotherBoardGetAFullSnapshot() {
+        RoomStatusBoard board = new RoomStatusBoard();
+        board.addRoom("301");
+        board.addRoom("302");
+
+        for (String cursor : List.of("elsewhere.1", "garbage", board.getVersion() + "0")) {
+            RoomStatusBoard.View view = board.since(cursor);
+            assertThat(view.full()).isTrue();
+            assertThat(view.rooms()).hasSize(2);
+        }
+    }
+}
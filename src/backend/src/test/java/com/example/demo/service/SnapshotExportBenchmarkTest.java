@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.UserRoleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = "exports.row-group-size=4096")
+class SnapshotExportBenchmarkTest {
+    private static final int USERS = 100_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private SnapshotExportService snapshotExportService;
+
+    @BeforeAll
+    void seedUsers() {
+        long userRole = userRoleRepository.findByName("USER").orElseThrow().getId();
+        long supervisorRole = userRoleRepository.findByName("SUPERVISOR").orElseThrow().getId();
+        long now = System.currentTimeMillis();
+        List<Object[]> users = new ArrayList<>(USERS);
+        List<Object[]> roles = new ArrayList<>(USERS + USERS / 10);
+        for (int i = 0; i < USERS; i++) {
+            UUID id = UUID.randomUUID();
+            Timestamp lastSession = i % 5 == 0 ? null : new Timestamp(now - ThreadLocalRandom.current().nextLong(30L * 24 * 3600 * 1000));
+            users.add(new Object[] { id, "export" + i, "export" + i + "@example.com", "$2a$10$exportexportexportexportexportexportexportexportexpo", lastSession });
+            roles.add(new Object[] { id, userRole });
+            if (i % 10 == 0) {
+                roles.add(new Object[] { id, supervisorRole });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, email, password, last_session, version) VALUES (?, ?, ?, ?, ?, 1)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles_map (user_id, role_id) VALUES (?, ?)", roles);
+    }
+
+    @Test
+    void columnarSnapshotIsSeveralTimesSmallerThanJson() throws Exception {
+        // The same fields getAllUsers returns, as one JSON document
+        List<Map<String, Object>> asJson = userService.getAllUsers().stream().map(user -> {
+            Map<String, Object> dto = new LinkedHashMap<>();
+            dto.put("id", user.getId());
+            dto.put("username", user.getUsername());
+            dto.put("email", user.getEmail());
+            dto.put("roles", user.getRoles().stream().map(r -> r.getName()).toList());
+            dto.put("lastSession", user.getLastSession());
+            dto.put("version", user.getVersion());
+            return dto;
+        }).toList();
+        long jsonBytes = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(asJson).length;
+
+        long started = System.nanoTime();
+        Path file = snapshotExportService.export(SnapshotExportService.USERS, "users-20000101-000000-000.cols");
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        long snapshotBytes = Files.size(file);
+
+        AtomicLong rows = new AtomicLong();
+        AtomicLong withSupervisor = new AtomicLong();
+        AtomicLong withoutSession = new AtomicLong();
+        try (ColumnarSnapshot.Reader reader = new ColumnarSnapshot.Reader(file)) {
+            assertThat(reader.getName()).isEqualTo(SnapshotExportService.USERS);
+            reader.forEach(row -> {
+                rows.incrementAndGet();
+                if (((List<?>) row[3]).contains("SUPERVISOR")) {
+                    withSupervisor.incrementAndGet();
+                }
+                if (row[4] == null) {
+                    withoutSession.incrementAndGet();
+                }
+            });
+        }
+        System.out.printf("users export: %d rows, %d bytes columnar vs %d bytes JSON (%.1fx) in %d ms%n",
+            rows.get(), snapshotBytes, jsonBytes, (double) jsonBytes / snapshotBytes, millis);
+
+        assertThat(rows.get()).isEqualTo(asJson.size());
+        assertThat(withSupervisor.get()).isGreaterThanOrEqualTo(USERS / 10);
+        assertThat(withoutSession.get()).isGreaterThanOrEqualTo(USERS / 5);
+        assertThat(jsonBytes).isGreaterThanOrEqualTo(5 * snapshotBytes);
+        Files.delete(file);
+    }
+}
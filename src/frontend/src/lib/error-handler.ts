@@ -97,7 +97,7 @@ export class ErrorHandler {
       // e.g., Sentry, LogRocket, Bugsnag, etc.
       if (process.env.NODE_ENV === "production") {
         // Example: Send to your API endpoint
-        // await fetch('/api/errors', {
+        // await fetch('/api/v1/client-logs', {
         //   method: 'POST',
         //   headers: { 'Content-Type': 'application/json' },
         //   body: JSON.stringify(errorInfo)
@@ -18,6 +18,8 @@
  * error('Failed to fetch user data', new Error('Network error'), { userId: '123' });
  * ```
  */
+import { getSession } from "next-auth/react";
+
 export enum LogLevel {
   /** Debug level - detailed information for debugging */
   DEBUG = 0,
@@ -193,9 +195,18 @@ class Logger {
     }
 
     try {
+      // The endpoint only takes entries from signed-in users; anything else would be refused with 401
+      const jwt = await this.getJwt();
+      if (!jwt) {
+        return;
+      }
+
       await fetch(this.config.remoteEndpoint, {
         method: "POST",
-        headers: { "Content-Type": "application/json" },
+        headers: {
+          "Content-Type": "application/json",
+          Authorization: `Bearer ${jwt}`,
+        },
         body: JSON.stringify({
           level,
           message,
@@ -212,6 +223,24 @@ class Logger {
     }
   }
 
+  /**
+   * Get the signed-in user's access token
+   *
+   * Reads the NextAuth session in the browser. Server code has no request
+   * to read the session from here, so it gets no token.
+   *
+   * @returns The access token, or undefined when there is no session
+   *
+   * @private
+   */
+  private async getJwt(): Promise<string | undefined> {
+    if (typeof window === "undefined") {
+      return undefined;
+    }
+    const session = await getSession();
+    return session?.jwt;
+  }
+
   /**
    * Log debug message
    *